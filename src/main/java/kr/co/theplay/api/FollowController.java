@@ -7,17 +7,18 @@ import io.swagger.annotations.ApiOperation;
 import kr.co.theplay.domain.user.User;
 import kr.co.theplay.dto.follow.BlockedUserDto;
 import kr.co.theplay.dto.follow.FollowUserDto;
-import kr.co.theplay.service.api.advice.exception.CommonConflictException;
 import kr.co.theplay.service.api.common.ResponseService;
 import kr.co.theplay.service.api.common.model.CommonResult;
 import kr.co.theplay.service.api.common.model.ListResult;
+import kr.co.theplay.service.api.common.model.SingleResult;
+import kr.co.theplay.service.api.security.SecurityUtil;
+import kr.co.theplay.service.api.security.UserPrincipal;
 import kr.co.theplay.service.follow.FollowService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -39,14 +40,9 @@ public class FollowController {
     @PostMapping(value = "/user/following/{userId}")
     public ResponseEntity<CommonResult> followUser(@PathVariable Long userId) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-
-        followService.followUser(email, userId);
+        followService.followUser(principal, userId);
 
         return new ResponseEntity<>(responseService.getSuccessResult(), HttpStatus.OK);
     }
@@ -57,14 +53,9 @@ public class FollowController {
     @ApiOperation(value = "팔로잉 목록 조회", notes = "로그인한 회원이 팔로잉하는 회원 목록을 조회한다.")
     @GetMapping(value = "/user/followings")
     public ResponseEntity<ListResult<FollowUserDto>> getFollowings() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        List<FollowUserDto> followUserDtos = followService.getFollowings(email);
+        List<FollowUserDto> followUserDtos = followService.getFollowings(principal);
         ListResult<FollowUserDto> result = responseService.getListResult(followUserDtos);
 
         return new ResponseEntity<>(result, HttpStatus.OK);
@@ -76,13 +67,8 @@ public class FollowController {
     @ApiOperation(value = "팔오워 목록 조회", notes = "로그인한 회원의 팔로워 목록을 조회한다")
     @GetMapping(value = "/user/followers")
     public ResponseEntity<ListResult<FollowUserDto>> getFollowers() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-        List<FollowUserDto> followUserDtos = followService.getFollowers(email);
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+        List<FollowUserDto> followUserDtos = followService.getFollowers(principal);
         ListResult<FollowUserDto> result = responseService.getListResult(followUserDtos);
 
         return new ResponseEntity<>(result, HttpStatus.OK);
@@ -94,32 +80,64 @@ public class FollowController {
     @ApiOperation(value = "선택 유저 팔로워 목록 조회", notes = "로그인한 회원의 팔로워 목록을 조회한다")
     @GetMapping(value = "/user/{userId}/followers")
     public ResponseEntity<ListResult<FollowUserDto>> getOtherUserFollowers(@PathVariable Long userId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-        List<FollowUserDto> followUserDtos = followService.getOtherUserFollower(userId);
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+        List<FollowUserDto> followUserDtos = followService.getOtherUserFollower(principal, userId);
         ListResult<FollowUserDto> result = responseService.getListResult(followUserDtos);
 
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
+    })
+    @ApiOperation(value = "팔로잉 목록 조회 (페이지)", notes = "로그인한 회원이 팔로잉하는 회원 목록을 회원 아이디 순으로 조회한다.")
+    @GetMapping(value = "/user/followings/page")
+    public ResponseEntity<SingleResult<Page<FollowUserDto>>> getFollowingsPage(@RequestParam("pageNumber") int number, @RequestParam("pageSize") int size) {
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+
+        Page<FollowUserDto> followUserDtos = followService.getFollowings(principal, number, size);
+        SingleResult<Page<FollowUserDto>> result = responseService.getSingleResult(followUserDtos);
+
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
+    })
+    @ApiOperation(value = "팔로워 목록 조회 (페이지)", notes = "로그인한 회원의 팔로워 목록을 회원 아이디 순으로 조회한다.")
+    @GetMapping(value = "/user/followers/page")
+    public ResponseEntity<SingleResult<Page<FollowUserDto>>> getFollowersPage(@RequestParam("pageNumber") int number, @RequestParam("pageSize") int size) {
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+
+        Page<FollowUserDto> followUserDtos = followService.getFollowers(principal, number, size);
+        SingleResult<Page<FollowUserDto>> result = responseService.getSingleResult(followUserDtos);
+
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
+    })
+    @ApiOperation(value = "선택 유저 팔로워 목록 조회 (페이지)", notes = "선택한 회원의 팔로워 목록을 회원 아이디 순으로 조회한다.")
+    @GetMapping(value = "/user/{userId}/followers/page")
+    public ResponseEntity<SingleResult<Page<FollowUserDto>>> getOtherUserFollowersPage(@PathVariable Long userId, @RequestParam("pageNumber") int number, @RequestParam("pageSize") int size) {
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+
+        Page<FollowUserDto> followUserDtos = followService.getOtherUserFollower(principal, userId, number, size);
+        SingleResult<Page<FollowUserDto>> result = responseService.getSingleResult(followUserDtos);
+
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     @ApiImplicitParams({
             @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
     })
     @ApiOperation(value = "팔로워 삭제", notes = "회원의 팔로워를 삭제한다")
     @DeleteMapping(value = "/user/followers/{userId}")
     public ResponseEntity<CommonResult> deleteFollower(@PathVariable Long userId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-
-        followService.deleteFollower(email, userId);
+        followService.deleteFollower(principal, userId);
 
         return new ResponseEntity<>(responseService.getSuccessResult(), HttpStatus.OK);
     }
@@ -130,14 +148,9 @@ public class FollowController {
     @ApiOperation(value = "팔로잉 취소", notes = "팔로잉을 취소한다")
     @DeleteMapping(value = "/user/followings/{userId}")
     public ResponseEntity<CommonResult> deleteFollowing(@PathVariable Long userId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        followService.deleteFollowing(email, userId);
+        followService.deleteFollowing(principal, userId);
 
         return new ResponseEntity<>(responseService.getSuccessResult(), HttpStatus.OK);
     }
@@ -148,15 +161,10 @@ public class FollowController {
     @ApiOperation(value = "팔로워 차단", notes = "팔로워를 삭제 & 차단한다")
     @PostMapping(value = "/user/followers/block/{userId}")
     public ResponseEntity<CommonResult> blockFollower(@PathVariable Long userId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
         // 팔로잉 삭제
-        followService.blockFollower(email, userId);
+        followService.blockFollower(principal, userId);
 
         return new ResponseEntity<>(responseService.getSuccessResult(), HttpStatus.OK);
     }
@@ -168,12 +176,8 @@ public class FollowController {
     @GetMapping(value = "/user/followers/blocks")
     public ResponseEntity<ListResult<BlockedUserDto>> getBlockedUsers(){
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        if(email.equals("anonymousUser")){
-            throw new CommonConflictException("accessException");
-        }
-        List<BlockedUserDto> blockedUserDtos = followService.getBlockedUsers(email);
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+        List<BlockedUserDto> blockedUserDtos = followService.getBlockedUsers(principal);
         ListResult<BlockedUserDto> result = responseService.getListResult(blockedUserDtos);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -6,19 +6,18 @@ import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import kr.co.theplay.dto.post.*;
 import kr.co.theplay.dto.recipe.RecipeSaveResDto;
-import kr.co.theplay.service.api.advice.exception.CommonConflictException;
 import kr.co.theplay.service.api.common.ResponseService;
 import kr.co.theplay.service.api.common.model.CommonResult;
 import kr.co.theplay.service.api.common.model.ListResult;
 import kr.co.theplay.service.api.common.model.SingleResult;
+import kr.co.theplay.service.api.security.SecurityUtil;
+import kr.co.theplay.service.api.security.UserPrincipal;
 import kr.co.theplay.service.post.PostService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import java.util.List;
@@ -42,14 +41,36 @@ public class PostController {
             @RequestPart("request") PostReqDto postReqDto,
             @RequestPart("files") List<MultipartFile> files) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        postService.create(principal, postReqDto, files);
+        return new ResponseEntity<>(responseService.getSuccessResult(), HttpStatus.OK);
+    }
+
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
+    })
+    @ApiOperation(value = "게시글 이미지 업로드 URL 발급", notes = "이미지마다 presigned PUT URL 을 발급한다. 응답의 headers 를 붙여 uploadUrl 로 이미지를 올린 뒤 key 들로 게시글을 작성한다.")
+    @PostMapping(value = "/post/image-slots")
+    public ResponseEntity<ListResult<ImageUploadSlotDto>> issueImageUploadSlots(@RequestBody List<ImageUploadReqDto> images) {
+
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+
+        List<ImageUploadSlotDto> slots = postService.issueImageUploadSlots(principal, images);
+        ListResult<ImageUploadSlotDto> result = responseService.getListResult(slots);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
+    })
+    @ApiOperation(value = "게시글 작성하기 (직접 업로드)", notes = "발급받은 URL 로 올린 이미지 key 들 (imageKeys) 로 게시글을 작성한다.")
+    @PostMapping(value = "/post/direct")
+    public ResponseEntity<CommonResult> createPostWithUploadedImages(@RequestBody PostReqDto postReqDto) {
 
-        postService.create(email, postReqDto, files);
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+
+        postService.createWithUploadedImages(principal, postReqDto);
         return new ResponseEntity<>(responseService.getSuccessResult(), HttpStatus.OK);
     }
 
@@ -59,14 +80,9 @@ public class PostController {
     @ApiOperation(value = "게시글 신고하기", notes = "게시글을 신고한다")
     @PostMapping(value = "/post/report")
     public ResponseEntity<CommonResult> reportPost(@RequestBody PostReportReqDto postReportReqDto) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        postService.reportPost(email, postReportReqDto);
+        postService.reportPost(principal, postReportReqDto);
         return new ResponseEntity<>(responseService.getSuccessResult(), HttpStatus.OK);
     }
 
@@ -77,19 +93,29 @@ public class PostController {
     @GetMapping(value = "/main-posts")
     public ResponseEntity<SingleResult<Page<PostResDto>>> getPostsForMain(@RequestParam("pageNumber") int number, @RequestParam("pageSize") int size) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-
-        Page<PostResDto> postResDtos = postService.getPostsForMain(email, number, size);
+        Page<PostResDto> postResDtos = postService.getPostsForMain(principal, number, size);
         SingleResult<Page<PostResDto>> result = responseService.getSingleResult(postResDtos);
         return new ResponseEntity<>(result, HttpStatus.OK);
 
     }
 
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
+    })
+    @ApiOperation(value = "메인 피드 게시글 조회 (커서)", notes = "메인 피드 게시글을 최신순으로 조회한다. 첫 페이지는 cursor 없이, 이후에는 응답의 nextCursor 를 넘긴다.")
+    @GetMapping(value = "/main-posts/cursor")
+    public ResponseEntity<SingleResult<PostCursorResDto>> getPostsForMainByCursor(@RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("pageSize") int size) {
+
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+
+        PostCursorResDto postCursorResDto = postService.getPostsForMainByCursor(principal, cursor, size);
+        SingleResult<PostCursorResDto> result = responseService.getSingleResult(postCursorResDto);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     @ApiImplicitParams({
             @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
     })
@@ -97,19 +123,29 @@ public class PostController {
     @GetMapping(value = "/user/posts")
     public ResponseEntity<SingleResult<Page<PostResDto>>> getUserPosts(@RequestParam("pageNumber") int number, @RequestParam("pageSize") int size) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        Page<PostResDto> postResDtos = postService.getUserPosts(email, number, size);
+        Page<PostResDto> postResDtos = postService.getUserPosts(principal, number, size);
         SingleResult<Page<PostResDto>> result = responseService.getSingleResult(postResDtos);
         return new ResponseEntity<>(result, HttpStatus.OK);
 
     }
 
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
+    })
+    @ApiOperation(value = "유저 메인 화면 (커서)", notes = "유저의 메인 화면 게시글을 커서 기반으로 불러온다")
+    @GetMapping(value = "/user/posts/cursor")
+    public ResponseEntity<SingleResult<PostCursorResDto>> getUserPostsByCursor(@RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("pageSize") int size) {
+
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+
+        PostCursorResDto postCursorResDto = postService.getUserPostsByCursor(principal, cursor, size);
+        SingleResult<PostCursorResDto> result = responseService.getSingleResult(postCursorResDto);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     @ApiImplicitParams({
             @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
     })
@@ -117,14 +153,9 @@ public class PostController {
     @GetMapping(value = "/post/{postId}/comments")
     public ResponseEntity<ListResult<PostCommentDto>> getPostComments(@PathVariable Long postId) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        List<PostCommentDto> postCommentDto = postService.getComments(email, postId);
+        List<PostCommentDto> postCommentDto = postService.getComments(principal, postId);
         ListResult<PostCommentDto> result = responseService.getListResult(postCommentDto);
         return new ResponseEntity<>(result, HttpStatus.OK);
 
@@ -137,14 +168,9 @@ public class PostController {
     @PostMapping(value = "/post/{postId}/comment")
     public ResponseEntity<CommonResult> uploadPostComment(@PathVariable Long postId, @RequestBody PostCommentReqDto postCommentReqDto) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-
-        postService.createComment(email, postId, postCommentReqDto);
+        postService.createComment(principal, postId, postCommentReqDto);
 
         return new ResponseEntity<>(responseService.getSuccessResult(), HttpStatus.OK);
     }
@@ -156,14 +182,9 @@ public class PostController {
     @PutMapping(value = "/post/{postId}")
     public ResponseEntity<CommonResult> updatePost(@PathVariable Long postId, @RequestBody PostReqDto postReqDto) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        postService.updatePost(email, postId, postReqDto);
+        postService.updatePost(principal, postId, postReqDto);
         return new ResponseEntity<>(responseService.getSuccessResult(), HttpStatus.OK);
     }
 
@@ -174,18 +195,28 @@ public class PostController {
     @GetMapping(value = "/following-posts")
     public ResponseEntity<SingleResult<Page<PostResDto>>> getFollowingPosts(@RequestParam("pageNumber") int number, @RequestParam("pageSize") int size) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-
-        Page<PostResDto> postResDtos = postService.getFollowingPosts(email, number, size);
+        Page<PostResDto> postResDtos = postService.getFollowingPosts(principal, number, size);
         SingleResult<Page<PostResDto>> result = responseService.getSingleResult(postResDtos);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
+    })
+    @ApiOperation(value = "팔로잉 피드 게시글 조회 (커서)", notes = "팔로잉하는 유저의 게시글 목록을 최신순으로 커서 기반 조회한다.")
+    @GetMapping(value = "/following-posts/cursor")
+    public ResponseEntity<SingleResult<PostCursorResDto>> getFollowingPostsByCursor(@RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("pageSize") int size) {
+
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+
+        PostCursorResDto postCursorResDto = postService.getFollowingPostsByCursor(principal, cursor, size);
+        SingleResult<PostCursorResDto> result = responseService.getSingleResult(postCursorResDto);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     @ApiImplicitParams({
             @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
     })
@@ -193,14 +224,9 @@ public class PostController {
     @PostMapping(value = "/recipe/{alcoholTagId}")
     public ResponseEntity<SingleResult<RecipeSaveResDto>> changeSaveRecipe(@PathVariable Long alcoholTagId) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        RecipeSaveResDto recipeSaveResDto = postService.changeSaveRecipe(email, alcoholTagId);
+        RecipeSaveResDto recipeSaveResDto = postService.changeSaveRecipe(principal, alcoholTagId);
         SingleResult<RecipeSaveResDto> result = responseService.getSingleResult(recipeSaveResDto);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -212,14 +238,9 @@ public class PostController {
     @GetMapping(value = "/user/posts/like")
     public ResponseEntity<SingleResult<Page<PostResDto>>> getUserLikedPosts(@RequestParam("pageNumber") int number, @RequestParam("pageSize") int size) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-
-        Page<PostResDto> postResDtos = postService.getUserLikedPosts(email, number, size);
+        Page<PostResDto> postResDtos = postService.getUserLikedPosts(principal, number, size);
         SingleResult<Page<PostResDto>> result = responseService.getSingleResult(postResDtos);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -232,18 +253,29 @@ public class PostController {
     public ResponseEntity<SingleResult<Page<PostResDto>>> getOtherUserPosts(@PathVariable Long userId,
                                                                             @RequestParam("pageNumber") int number, @RequestParam("pageSize") int size) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        Page<PostResDto> postResDtos = postService.getOtherUserPosts(email, userId, number, size);
+        Page<PostResDto> postResDtos = postService.getOtherUserPosts(principal, userId, number, size);
         SingleResult<Page<PostResDto>> result = responseService.getSingleResult(postResDtos);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
+    })
+    @ApiOperation(value = "선택 유저 메인 화면 (커서)", notes = "선택한 유저의 메인 화면 게시글들을 커서 기반으로 불러온다")
+    @GetMapping(value = "/user/{userId}/posts/cursor")
+    public ResponseEntity<SingleResult<PostCursorResDto>> getOtherUserPostsByCursor(@PathVariable Long userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("pageSize") int size) {
+
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+
+        PostCursorResDto postCursorResDto = postService.getOtherUserPostsByCursor(principal, userId, cursor, size);
+        SingleResult<PostCursorResDto> result = responseService.getSingleResult(postCursorResDto);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     @ApiImplicitParams({
             @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
     })
@@ -251,14 +283,9 @@ public class PostController {
     @GetMapping(value = "/user/{userId}/posts/like")
     public ResponseEntity<SingleResult<Page<PostResDto>>> getOtherUserLikedPosts(@PathVariable Long userId, @RequestParam("pageNumber") int number, @RequestParam("pageSize") int size) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-
-        Page<PostResDto> postResDtos = postService.getOtherUsersLikedPosts(email, userId, number, size);
+        Page<PostResDto> postResDtos = postService.getOtherUsersLikedPosts(principal, userId, number, size);
         SingleResult<Page<PostResDto>> result = responseService.getSingleResult(postResDtos);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -270,14 +297,9 @@ public class PostController {
     @PostMapping(value = "/post/{postId}/like")
     public ResponseEntity<SingleResult<PostLikeChangeResDto>> changeLikePost(@PathVariable Long postId) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        PostLikeChangeResDto postLikeChangeResDto = postService.changeLikePost(email, postId);
+        PostLikeChangeResDto postLikeChangeResDto = postService.changeLikePost(principal, postId);
         SingleResult<PostLikeChangeResDto> result = responseService.getSingleResult(postLikeChangeResDto);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -290,13 +312,8 @@ public class PostController {
     public ResponseEntity<SingleResult<Page<PostResDto>>> getSearchPosts(@RequestParam("recipeName") String recipeName,
                                                                          @RequestParam("pageNumber") int number, @RequestParam("pageSize") int size) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-        Page<PostResDto> postResDtos = postService.getSearchPosts(email, recipeName, number, size);
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+        Page<PostResDto> postResDtos = postService.getSearchPosts(principal, recipeName, number, size);
         SingleResult<Page<PostResDto>> result = responseService.getSingleResult(postResDtos);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -308,14 +325,9 @@ public class PostController {
     @PostMapping(value = "/comment/{postCommentId}/like")
     public ResponseEntity<SingleResult<CommentLikeResDto>> createCommentLike(@PathVariable Long postCommentId) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        CommentLikeResDto commentLikeResDto = postService.createCommentLike(email, postCommentId);
+        CommentLikeResDto commentLikeResDto = postService.createCommentLike(principal, postCommentId);
         SingleResult<CommentLikeResDto> result = responseService.getSingleResult(commentLikeResDto);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -327,14 +339,9 @@ public class PostController {
     @DeleteMapping(value = "/post/{postId}")
     public ResponseEntity<CommonResult> deletePostById(@PathVariable Long postId) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        postService.deletePostById(email, postId);
+        postService.deletePostById(principal, postId);
         return new ResponseEntity<>(responseService.getSuccessResult(), HttpStatus.OK);
     }
 
@@ -7,10 +7,11 @@ import io.swagger.annotations.ApiOperation;
 import kr.co.theplay.dto.post.PostResDto;
 import kr.co.theplay.dto.recipe.PopularRecipeDto;
 import kr.co.theplay.dto.recipe.UserRecipeResDto;
-import kr.co.theplay.service.api.advice.exception.CommonConflictException;
 import kr.co.theplay.service.api.common.ResponseService;
 import kr.co.theplay.service.api.common.model.ListResult;
 import kr.co.theplay.service.api.common.model.SingleResult;
+import kr.co.theplay.service.api.security.SecurityUtil;
+import kr.co.theplay.service.api.security.UserPrincipal;
 import kr.co.theplay.service.post.PostService;
 import kr.co.theplay.service.recipe.RecipeService;
 import lombok.RequiredArgsConstructor;
@@ -18,8 +19,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -41,12 +40,7 @@ public class RecipeController {
     @GetMapping(value = "/popular-recipes")
     public ResponseEntity<SingleResult<Page<PopularRecipeDto>>> getPopularRecipes(@RequestParam("pageNumber") int number, @RequestParam("pageSize") int size) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        SecurityUtil.getCurrentUser();
 
         Page<PopularRecipeDto> popularRecipeDtos = recipeService.getPopularRecipes(number, size);
         SingleResult<Page<PopularRecipeDto>> result = responseService.getSingleResult(popularRecipeDtos);
@@ -60,14 +54,9 @@ public class RecipeController {
     @ApiOperation(value = "유저 나의 레시피 목록 불러오기", notes = "유저 나의 레시피 (저장한 레시피) 목록을 페이징으로 가져온다")
     @GetMapping(value = "/user/recipes")
     public ResponseEntity<SingleResult<Page<UserRecipeResDto>>> getUserRecipes(@RequestParam("pageNumber") int number, @RequestParam("pageSize") int size) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        Page<UserRecipeResDto> userRecipeResDtos = recipeService.getUserRecipes(email, number, size);
+        Page<UserRecipeResDto> userRecipeResDtos = recipeService.getUserRecipes(principal, number, size);
         SingleResult<Page<UserRecipeResDto>> result = responseService.getSingleResult(userRecipeResDtos);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -78,14 +67,9 @@ public class RecipeController {
     @ApiOperation(value = "유저 나의 레시피 검색 가져오기", notes = "유저 나의 레시피 (저장한 레시피) 검색내역을 가져온다")
     @GetMapping(value = "/user/recipe")
     public ResponseEntity<ListResult<UserRecipeResDto>> getUserRecipe(@RequestParam("recipeName") String recipeName) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        List<UserRecipeResDto> userRecipeResDtos = recipeService.getUserSearchRecipe(email, recipeName);
+        List<UserRecipeResDto> userRecipeResDtos = recipeService.getUserSearchRecipe(principal, recipeName);
         ListResult<UserRecipeResDto> result = responseService.getListResult(userRecipeResDtos);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -98,14 +82,9 @@ public class RecipeController {
     public ResponseEntity<SingleResult<Page<UserRecipeResDto>>> getOtherUsersRecipes(@PathVariable Long userId,
                                                                                      @RequestParam("pageNumber") int number,
                                                                                      @RequestParam("pageSize") int size) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-
-        Page<UserRecipeResDto> userRecipeResDtos = recipeService.getOtherUserRecipes(email, userId, number, size);
+        Page<UserRecipeResDto> userRecipeResDtos = recipeService.getOtherUserRecipes(principal, userId, number, size);
         SingleResult<Page<UserRecipeResDto>> result = responseService.getSingleResult(userRecipeResDtos);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -117,14 +96,9 @@ public class RecipeController {
     @GetMapping(value = "/user/{userId}/recipe")
     public ResponseEntity<ListResult<UserRecipeResDto>> getOtherUserRecipe(@PathVariable Long userId,
                                                                            @RequestParam("recipeName") String recipeName) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        List<UserRecipeResDto> userRecipeResDtos = recipeService.getOtherUserSearchRecipe(email, userId, recipeName);
+        List<UserRecipeResDto> userRecipeResDtos = recipeService.getOtherUserSearchRecipe(principal, userId, recipeName);
         ListResult<UserRecipeResDto> result = responseService.getListResult(userRecipeResDtos);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -137,14 +111,9 @@ public class RecipeController {
     public ResponseEntity<SingleResult<Page<PostResDto>>> getPopularRecipesByTagName(
             @PathVariable String tagName, @RequestParam("pageNumber") int number, @RequestParam("pageSize") int size) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        Page<PostResDto> postResDtos = recipeService.getPopularRecipesByTagName(email, tagName, number, size);
+        Page<PostResDto> postResDtos = recipeService.getPopularRecipesByTagName(principal, tagName, number, size);
         SingleResult<Page<PostResDto>> result = responseService.getSingleResult(postResDtos);
 
         return new ResponseEntity<>(result, HttpStatus.OK);
@@ -2,17 +2,19 @@ package kr.co.theplay.api;
 
 import io.swagger.annotations.*;
 import kr.co.theplay.domain.notice.Notice;
+import kr.co.theplay.dto.notice.AlarmCursorResDto;
 import kr.co.theplay.dto.notice.AlarmResDto;
 import kr.co.theplay.dto.notice.NoticeListDto;
 import kr.co.theplay.dto.notice.NoticeSingleDto;
 import kr.co.theplay.dto.user.*;
 import kr.co.theplay.service.api.advice.exception.ApiParamNotValidException;
 import kr.co.theplay.service.api.advice.exception.CommonBadRequestException;
-import kr.co.theplay.service.api.advice.exception.CommonConflictException;
 import kr.co.theplay.service.api.common.ResponseService;
 import kr.co.theplay.service.api.common.model.CommonResult;
 import kr.co.theplay.service.api.common.model.ListResult;
 import kr.co.theplay.service.api.common.model.SingleResult;
+import kr.co.theplay.service.api.security.SecurityUtil;
+import kr.co.theplay.service.api.security.UserPrincipal;
 import kr.co.theplay.service.notice.AlarmService;
 import kr.co.theplay.service.notice.NoticeService;
 import kr.co.theplay.service.user.UserService;
@@ -21,8 +23,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.validation.Errors;
 import org.springframework.web.bind.annotation.*;
@@ -104,17 +104,12 @@ public class UserController {
             @ApiIgnore Errors errors
     ) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
         if (errors.hasErrors()) {
             throw new ApiParamNotValidException(errors);
         }
 
-        userService.updateUserNickname(userChangeNicknameDto, email);
+        userService.updateUserNickname(userChangeNicknameDto, principal);
         return new ResponseEntity<>(responseService.getSuccessResult(), HttpStatus.OK);
     }
 
@@ -139,14 +134,9 @@ public class UserController {
     @PutMapping(value = "/user/show-yn")
     public ResponseEntity<SingleResult<UserChangePrivacyResDto>> changePrivacyYn() {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        UserChangePrivacyResDto userChangePrivacyResDto = userService.changePrivacyYn(email);
+        UserChangePrivacyResDto userChangePrivacyResDto = userService.changePrivacyYn(principal);
         SingleResult<UserChangePrivacyResDto> result = responseService.getSingleResult(userChangePrivacyResDto);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -164,14 +154,9 @@ public class UserController {
             throw new ApiParamNotValidException(errors);
         }
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-
-        userService.changePassword(userChangePasswordDto, email);
+        userService.changePassword(userChangePasswordDto, principal);
         return new ResponseEntity<>(responseService.getSuccessResult(), HttpStatus.OK);
     }
 
@@ -181,13 +166,8 @@ public class UserController {
     @ApiOperation(value = "개인 정보 수정", notes = "개인 정보 수정 화면")
     @GetMapping(value = "/user/setting")
     public ResponseEntity<SingleResult<UserSettingsDto>> userSettings() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-        UserSettingsDto userSettingsDto = userService.getUserSettings(email);
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+        UserSettingsDto userSettingsDto = userService.getUserSettings(principal);
         SingleResult<UserSettingsDto> result = responseService.getSingleResult(userSettingsDto);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -198,12 +178,7 @@ public class UserController {
     @ApiOperation(value = "공지사항 목록 조회", notes = "공지사항 목록 조회")
     @GetMapping(value = "/user/notice")
     public ResponseEntity<ListResult<NoticeListDto>> getNoticeList() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        SecurityUtil.getCurrentUser();
 
         List<NoticeListDto> noticeListDto = noticeService.getNoticeList();
         ListResult<NoticeListDto> result = responseService.getListResult(noticeListDto);
@@ -216,12 +191,7 @@ public class UserController {
     @ApiOperation(value = "공지사항 단건 조회", notes = "공지사항 단건 조회")
     @GetMapping(value = "/user/notice/{noticeId}")
     public ResponseEntity<SingleResult<NoticeSingleDto>> getNoticeSingle(@PathVariable Long noticeId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        SecurityUtil.getCurrentUser();
 
         NoticeSingleDto noticeSingleDto = noticeService.getNoticeSingle(noticeId);
         SingleResult<NoticeSingleDto> result = responseService.getSingleResult(noticeSingleDto);
@@ -242,14 +212,9 @@ public class UserController {
     @ApiOperation(value = "유저 메인 상단 정보", notes = "유저 메인 상단 정보 [게시물, 좋아요, 팔로워, 나의 레시피]")
     @GetMapping(value = "/user/main-info")
     public ResponseEntity<SingleResult<UserMainInfoDto>> getUserInfo() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-
-        UserMainInfoDto userMainInfoDto = userService.getUserMainInfo(email);
+        UserMainInfoDto userMainInfoDto = userService.getUserMainInfo(principal);
         SingleResult<UserMainInfoDto> result = responseService.getSingleResult(userMainInfoDto);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -260,14 +225,9 @@ public class UserController {
     @ApiOperation(value = "선택 유저 메인 상단 정보", notes = "선택 유저 메인 상단 정보 [게시물, 좋아요, 팔로워, 나의 레시피]")
     @GetMapping(value = "/user/{userId}/main-info")
     public ResponseEntity<SingleResult<UserMainInfoDto>> getOtherUserInfo(@PathVariable Long userId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-
-        UserMainInfoDto userMainInfoDto = userService.getOtherUserIngo(email, userId);
+        UserMainInfoDto userMainInfoDto = userService.getOtherUserIngo(principal, userId);
         SingleResult<UserMainInfoDto> result = responseService.getSingleResult(userMainInfoDto);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -279,13 +239,9 @@ public class UserController {
     @GetMapping(value = "/alarms/new-alarm-yn")
     public ResponseEntity<SingleResult<UserAlarmNewYnDto>> getNewAlarmYn(){
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        UserAlarmNewYnDto alarmNewYnDto = userService.getNewAlarmYn(email);
+        UserAlarmNewYnDto alarmNewYnDto = userService.getNewAlarmYn(principal);
         SingleResult<UserAlarmNewYnDto> result = responseService.getSingleResult(alarmNewYnDto);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -296,32 +252,36 @@ public class UserController {
     @ApiOperation(value = "알람 목록 조회", notes = "알람 목록을 조회한다")
     @GetMapping(value = "/alarms")
     public ResponseEntity<ListResult<AlarmResDto>> getAlarm() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        List<AlarmResDto> alarmResDto = alarmService.getAlarms(email);
+        List<AlarmResDto> alarmResDto = alarmService.getAlarms(principal);
         ListResult<AlarmResDto> result = responseService.getListResult(alarmResDto);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
+    })
+    @ApiOperation(value = "알람 목록 조회 (커서)", notes = "알람 목록을 최신순으로 조회한다. 첫 페이지는 cursor 없이, 이후에는 응답의 nextCursor 를 넘긴다. 첫 페이지를 조회하면 받은 알람을 모두 읽음 처리한다.")
+    @GetMapping(value = "/alarms/cursor")
+    public ResponseEntity<SingleResult<AlarmCursorResDto>> getAlarmByCursor(@RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("pageSize") int size) {
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
+
+        AlarmCursorResDto alarmCursorResDto = alarmService.getAlarmsByCursor(principal, cursor, size);
+        SingleResult<AlarmCursorResDto> result = responseService.getSingleResult(alarmCursorResDto);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     @ApiImplicitParams({
             @ApiImplicitParam(name = "X-ACCESS-TOKEN", value = "Access Token", required = true, dataType = "String", paramType = "header")
     })
     @ApiOperation(value = "알람 단건 조회", notes = "단건 알람을 조회하여 읽는다.")
     @GetMapping(value = "/alarm/{alarmId}")
     public ResponseEntity<SingleResult<AlarmResDto>> getSingleAlarm(@PathVariable Long alarmId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
-
-        AlarmResDto alarmResDto = alarmService.getSingleAlarm(email, alarmId);
+        AlarmResDto alarmResDto = alarmService.getSingleAlarm(principal, alarmId);
         SingleResult<AlarmResDto> result = responseService.getSingleResult(alarmResDto);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -332,14 +292,9 @@ public class UserController {
     @ApiOperation(value = "개정 공개 비공개 여부", notes = "로그인 된 개정의 공개/비공개 여부를 조회한다")
     @GetMapping(value = "/user/show-yn")
     public ResponseEntity<SingleResult<UserChangePrivacyResDto>> getUserPrivacy() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-
-        if (email.equals("anonymousUser")) {
-            throw new CommonConflictException("accessException");
-        }
+        UserPrincipal principal = SecurityUtil.getCurrentUser();
 
-        UserChangePrivacyResDto userChangePrivacyResDto = userService.getUserPrivacy(email);
+        UserChangePrivacyResDto userChangePrivacyResDto = userService.getUserPrivacy(principal);
         SingleResult<UserChangePrivacyResDto> result = responseService.getSingleResult(userChangePrivacyResDto);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -65,6 +66,16 @@ public class ExceptionAdvice {
         return responseService.getSingleParamFailResult(e.getErrors());
     }
 
+    /**
+     * 업로드 용량 초과 (multipart 를 읽는 도중 max-file-size, max-request-size 를 넘으면 바로 중단된다)
+     */
+
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    @ResponseStatus(HttpStatus.OK)
+    protected CommonResult maxUploadSizeExceeded(HttpServletRequest request, MaxUploadSizeExceededException e) {
+        return generateFailResult(request, new CommonBadRequestException("imageSizeExcessLimit"));
+    }
+
     private CommonResult generateFailResult(HttpServletRequest request, CommonRuntimeException e) {
         return responseService.getFailResult(
                 Integer.parseInt(getMessage(e.getMessage() + ".code")),
@@ -0,0 +1,67 @@
+package kr.co.theplay.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    // 타임라인 fan-out, backfill 용. 큐가 가득 차면 요청 스레드에서 직접 실행해서 작업을 버리지 않는다.
+    @Bean
+    public ThreadPoolTaskExecutor timelineExecutor(@Value("${timeline.executor.pool-size:2}") int poolSize,
+                                                   @Value("${timeline.executor.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("timeline-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // 게시글 이미지 업로드 용. 요청 스레드는 업로드가 끝날 때까지 기다리므로 큐가 가득 차면 요청 스레드에서 직접 올린다.
+    @Bean
+    public ThreadPoolTaskExecutor imageUploadExecutor(@Value("${image-upload.executor.pool-size:8}") int poolSize,
+                                                      @Value("${image-upload.executor.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // 이미지 리사이즈 용. 메모리를 많이 쓰므로 스레드 수를 작게 두고, 넘치는 작업은 sweep 에서 다시 처리한다.
+    @Bean
+    public ThreadPoolTaskExecutor imageRenditionExecutor(@Value("${image-rendition.executor.pool-size:2}") int poolSize,
+                                                         @Value("${image-rendition.executor.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-rendition-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        return executor;
+    }
+
+    // 알림 이벤트 drain 용. 스레드 1개에 대기 1개만 두고 나머지 깨우기는 버린다. (대기 중인 drain 이 어차피 다 읽는다)
+    @Bean
+    public ThreadPoolTaskExecutor notificationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("notification-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        return executor;
+    }
+}
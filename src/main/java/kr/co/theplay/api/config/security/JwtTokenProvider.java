@@ -1,9 +1,9 @@
 package kr.co.theplay.api.config.security;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import kr.co.theplay.service.api.security.PrincipalCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -28,6 +28,7 @@ public class JwtTokenProvider {
     private long tokenValidTime = 90000 * 60 * 1000L; // 60 * 60 * 1000 이 1시간
 
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
     //기존의 String을 암호로 Encode 하는 과정.
     @PostConstruct
@@ -49,29 +50,39 @@ public class JwtTokenProvider {
                 .compact();
     }
 
-    // JWT 토큰 인증 정보 조회
-    public Authentication getAuthentication(String token) {
-        UserDetails userDetails = userDetailsService.loadUserByUsername(this.getUserId(token));
+    /*
+    토큰 검증 + 인증 정보 조회. 서명 검증은 한번만 하고 (Claims 재사용), 검증된 토큰은 PrincipalCache 에 캐시
+    유효하지 않거나 만료된 토큰이면 null
+     */
+    public Authentication authenticate(String token) {
+        String userId = principalCache.getVerifiedUserId(token);
+        if (userId == null) {
+            Claims claims = parseClaims(token);
+            if (claims == null) {
+                return null;
+            }
+            userId = claims.getSubject();
+            principalCache.putVerifiedToken(token, userId, claims.getExpiration());
+        }
+        UserDetails userDetails = userDetailsService.loadUserByUsername(userId);
         return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
     }
 
-    // 토큰에서 회원 정보 추출
-    public String getUserId(String token) {
-        return Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody().getSubject();
-    }
-
     // request 헤더에서 Token 값가져오기, "X-ACCESS-TOKEN" : "TOKEN 값"
     public String resolveToken(HttpServletRequest request) {
         return request.getHeader("X-ACCESS-TOKEN");
     }
 
     // 토큰의 유효성 + 만료일자 확인
-    public boolean validateToken(String jwtToken) {
+    private Claims parseClaims(String jwtToken) {
         try {
-            Jws<Claims> claims = Jwts.parser().setSigningKey(secretKey).parseClaimsJws(jwtToken);
-            return !claims.getBody().getExpiration().before(new Date());
+            Claims claims = Jwts.parser().setSigningKey(secretKey).parseClaimsJws(jwtToken).getBody();
+            if (claims.getExpiration() == null || claims.getExpiration().before(new Date())) {
+                return null;
+            }
+            return claims;
         } catch (Exception e) {
-            return false;
+            return null;
         }
     }
 }
@@ -0,0 +1,36 @@
+package kr.co.theplay.common;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+DB 에서 읽어온 시점부터 정해진 시간이 지나면 만료 (Caffeine Expiry)
+서버마다 따로 들고 있는 캐시의 최신성 기준. 이 서버에서 일어난 변경은 커밋 이후 computeIfPresent 로 바로 반영하고,
+다른 서버에서 일어난 변경은 캐시에 전달되지 않으므로 만료 후 다시 읽을 때 반영된다. (최대 duration 만큼 늦게 보인다)
+computeIfPresent 로 캐시를 고쳐도 만료 시각이 늘어나지 않으므로, 자주 쓰이는 key 도 duration 이 지나면 반드시 다시 읽는다.
+쓰는 곳 : ViewerRelationCache, TimelineService, FollowGraph, BlockCache (설정의 expire-after-load-*)
+ */
+public class ExpireAfterLoad<K, V> implements Expiry<K, V> {
+
+    private final long durationNanos;
+
+    public ExpireAfterLoad(long duration, TimeUnit unit) {
+        this.durationNanos = unit.toNanos(duration);
+    }
+
+    @Override
+    public long expireAfterCreate(K key, V value, long currentTime) {
+        return durationNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+    @Override
+    public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
@@ -0,0 +1,35 @@
+package kr.co.theplay.common;
+
+import java.time.LocalDateTime;
+
+/*
+outbox 테이블 (storage_deletion, notification_event) 재시도 정책
+실패할 때마다 지수 백오프 (base, base * 2, base * 4 ... 최대 2^10 배) 후 다시 시도하고, max-attempts 번 실패하면 DEAD
+ */
+public class OutboxRetry {
+
+    private static final int ERROR_MESSAGE_LENGTH = 500;
+
+    private final int maxAttempts;
+    private final long backoffBaseSeconds;
+
+    public OutboxRetry(int maxAttempts, long backoffBaseSeconds) {
+        this.maxAttempts = maxAttempts;
+        this.backoffBaseSeconds = backoffBaseSeconds;
+    }
+
+    // attempts 번 실패했다면 더 시도하지 않는다
+    public boolean isDead(int attempts) {
+        return attempts >= maxAttempts;
+    }
+
+    // attempts 번 실패한 뒤 다음 시도 시각
+    public LocalDateTime nextAttemptAt(int attempts) {
+        return LocalDateTime.now().plusSeconds(backoffBaseSeconds << Math.min(attempts - 1, 10));
+    }
+
+    // last_error 컬럼 길이에 맞게 자른다
+    public String lastError(String error) {
+        return error == null ? null : error.substring(0, Math.min(error.length(), ERROR_MESSAGE_LENGTH));
+    }
+}
@@ -11,10 +11,12 @@ import javax.persistence.*;
 
 @Getter
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_block_user_user_block", columnNames = {"user_id", "user_block_id"}))
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Block extends BaseTimeEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "block_id")
+    @TableGenerator(name = "block_id", table = "id_generator", pkColumnValue = "block", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
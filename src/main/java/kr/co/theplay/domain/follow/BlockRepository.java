@@ -1,7 +1,7 @@
 package kr.co.theplay.domain.follow;
 
 import kr.co.theplay.domain.user.User;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,6 +12,17 @@ import java.util.Optional;
 public interface BlockRepository extends JpaRepository<Block, Long> {
     Optional<Block> findByUserAndUserBlock(User user, User userBlock);
 
-    @Query("select b from Block b where b.user.email = :email")
-    List<Block> findAllByEmail(@Param("email") String email);
+    // (user_id, user_block_id) unique index
+    boolean existsByUserIdAndUserBlockId(Long userId, Long userBlockId);
+
+    // BlockCache 용, 내가 차단한 유저와 나를 차단한 유저
+    @Query("select b.userBlock.id from Block b where b.user.id = :userId")
+    List<Long> findBlockedIdsByUserId(@Param("userId") Long userId);
+
+    @Query("select b.user.id from Block b where b.userBlock.id = :userId")
+    List<Long> findBlockerIdsByUserId(@Param("userId") Long userId);
+
+    @EntityGraph(attributePaths = {"userBlock"})
+    @Query("select b from Block b where b.user.id = :userId")
+    List<Block> findAllByUserId(@Param("userId") Long userId);
 }
@@ -11,11 +11,13 @@ import javax.persistence.*;
 
 @Getter
 @Entity
+@Table(indexes = @Index(name = "idx_follow_user_follow_user", columnList = "user_follow_id, user_id"))
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Follow extends BaseTimeEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "follow_id")
+    @TableGenerator(name = "follow_id", table = "id_generator", pkColumnValue = "follow", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
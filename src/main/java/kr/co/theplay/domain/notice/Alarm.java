@@ -8,13 +8,21 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Getter
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_alarm_user_sorted_at", columnList = "user_id, sorted_at"),
+        @Index(name = "idx_alarm_user_group_key", columnList = "user_id, group_key"),
+        @Index(name = "idx_alarm_sorted_at", columnList = "sorted_at")
+})
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Alarm extends BaseTimeEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "alarm_id")
+    @TableGenerator(name = "alarm_id", table = "id_generator", pkColumnValue = "alarm", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -34,17 +42,56 @@ public class Alarm extends BaseTimeEntity {
     @Column
     private String content;
 
+    // 알림 이벤트의 idempotency key, 같은 이벤트로 alarm 이 두 번 생기지 않게 한다
+    @Column(unique = true, length = 100)
+    private String eventKey;
+
+    // 좋아요 / 댓글 알림이 달린 게시글 (게시글 삭제를 막지 않도록 FK 없이 아이디만 둔다)
+    @Column
+    private Long postId;
+
+    // 같은 게시글의 좋아요 / 댓글 알림을 하나로 묶는 키 (like:{postId}, comment:{postId}), 묶지 않는 알림은 null
+    @Column(length = 50)
+    private String groupKey;
+
+    // 이 알림에 묶인 보낸 사람 수 (OO님 외 N명), 같은 사람은 한 번만 센다 (AlarmActor)
+    @Column
+    private Integer actorCount;
+
+    // 목록 정렬 기준, 새 이벤트가 묶일 때마다 그 시각으로 올려서 목록 맨 위로 보낸다
+    @Column(nullable = false)
+    private LocalDateTime sortedAt;
+
     @Builder
-    public Alarm(Long id, User user, User userSend, String readYn, String type, String content) {
+    public Alarm(Long id, User user, User userSend, String readYn, String type, String content,
+                 String eventKey, Long postId, String groupKey, Integer actorCount) {
         this.id = id;
         this.user = user;
         this.userSend = userSend;
         this.readYn = readYn;
         this.type = type;
         this.content = content;
+        this.eventKey = eventKey;
+        this.postId = postId;
+        this.groupKey = groupKey;
+        this.actorCount = actorCount;
+        this.sortedAt = LocalDateTime.now();
     }
 
     public void changeReadYn(String readYn) {
         this.readYn = readYn;
     }
+
+    // 이전 데이터는 actorCount 가 없다
+    public int getActorCountOrOne() {
+        return Optional.ofNullable(actorCount).orElse(1);
+    }
+
+    // 읽지 않은 알림에 새 이벤트를 묶는다, 보낸 사람과 내용은 마지막 이벤트 기준 (addedActors : 처음 묶이는 보낸 사람 수)
+    public void coalesce(User userSend, String content, int addedActors) {
+        this.userSend = userSend;
+        this.content = content;
+        this.actorCount = getActorCountOrOne() + addedActors;
+        this.sortedAt = LocalDateTime.now();
+    }
 }
@@ -0,0 +1,28 @@
+package kr.co.theplay.domain.notice;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/*
+묶인 알림 (좋아요, 댓글) 에 들어간 보낸 사람, 같은 사람이 여러 번 보내도 한 번만 센다.
+insert ignore 로만 쌓으므로 (alarm_id, sender_id) 가 유니크, 알림과 같이 정리된다. (FK 없이 아이디만 둔다)
+ */
+@Getter
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_alarm_actor_alarm_sender", columnNames = {"alarm_id", "sender_id"}))
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class AlarmActor {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long alarmId;
+
+    @Column(nullable = false)
+    private Long senderId;
+}
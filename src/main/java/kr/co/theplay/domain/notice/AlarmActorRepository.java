@@ -0,0 +1,20 @@
+package kr.co.theplay.domain.notice;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface AlarmActorRepository extends JpaRepository<AlarmActor, Long> {
+
+    // 처음 보내는 사람이면 1, 이미 묶인 사람이면 0
+    @Modifying
+    @Query(value = "insert ignore into alarm_actor (alarm_id, sender_id) values (:alarmId, :senderId)", nativeQuery = true)
+    int add(@Param("alarmId") Long alarmId, @Param("senderId") Long senderId);
+
+    @Modifying
+    @Query("delete from AlarmActor a where a.alarmId in :alarmIds")
+    int deleteByAlarmIds(@Param("alarmIds") Collection<Long> alarmIds);
+}
@@ -0,0 +1,49 @@
+package kr.co.theplay.domain.notice;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/*
+보관 기간이 지난 알림 (AlarmArchiver 가 alarm 에서 옮겨온다)
+아이디는 원래 alarm 아이디 그대로, 유저는 탈퇴해도 남도록 FK 없이 아이디만 둔다.
+ */
+@Getter
+@Entity
+@Table(indexes = @Index(name = "idx_alarm_archive_user_created_date", columnList = "user_id, created_date"))
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class AlarmArchive {
+
+    @Id
+    private Long id;
+
+    @Column
+    private Long userId;
+
+    @Column
+    private Long userSendId;
+
+    @Column
+    private String readYn;
+
+    @Column
+    private String type;
+
+    @Column
+    private String content;
+
+    @Column
+    private Long postId;
+
+    @Column
+    private Integer actorCount;
+
+    @Column
+    private LocalDateTime createdDate;
+
+    @Column
+    private LocalDateTime archivedDate;
+}
@@ -1,12 +1,52 @@
 package kr.co.theplay.domain.notice;
 
 import kr.co.theplay.domain.user.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface AlarmRepository extends JpaRepository<Alarm, Long> {
-    List<Alarm> findByUserOrderByCreatedDateDesc(@Param("user") User user);
+    List<Alarm> findByUserOrderBySortedAtDescIdDesc(@Param("user") User user);
+
+    // 커서 (sortedAt, id) 다음부터, 묶이면서 sortedAt 이 올라간 알림은 맨 앞으로 온다
+    @Query("select a from Alarm a " +
+            "where a.user.id = :userId " +
+            "and (a.sortedAt < :sortedAt or (a.sortedAt = :sortedAt and a.id < :id)) " +
+            "order by a.sortedAt desc, a.id desc")
+    List<Alarm> findByUserIdAfter(@Param("userId") Long userId, @Param("sortedAt") LocalDateTime sortedAt, @Param("id") Long id, Pageable pageable);
+
+    /*
+    목록을 연 시점까지 받은 알림을 한번에 읽음 처리 (그 뒤에 들어온 알림은 남긴다)
+    기준은 목록 맨 위 알림의 (sortedAt, id), 아이디는 작성 순서가 아니므로 목록과 같은 정렬로 비교한다.
+     */
+    @Modifying
+    @Query("update Alarm a set a.readYn = 'Y' where a.user.id = :userId and a.readYn = 'N' " +
+            "and (a.sortedAt < :sortedAt or (a.sortedAt = :sortedAt and a.id <= :id))")
+    int markReadUpTo(@Param("userId") Long userId, @Param("sortedAt") LocalDateTime sortedAt, @Param("id") Long id);
+
+    // 보관 기간이 지난 알림, 묶여서 다시 올라온 알림은 sortedAt 기준으로 본다
+    @Query("select a.id from Alarm a where a.sortedAt < :before order by a.sortedAt, a.id")
+    List<Long> findIdsSortedBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+    @Modifying
+    @Query(value = "insert ignore into alarm_archive " +
+            "(id, user_id, user_send_id, read_yn, type, content, post_id, actor_count, created_date, archived_date) " +
+            "select a.id, a.user_id, a.user_send_id, a.read_yn, a.type, a.content, a.post_id, a.actor_count, a.created_date, :now " +
+            "from alarm a where a.id in (:ids)", nativeQuery = true)
+    int archiveByIds(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from Alarm a where a.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    // 같은 게시글 알림을 묶을 읽지 않은 알림, since 이후에 갱신된 것만
+    Optional<Alarm> findFirstByUserIdAndGroupKeyAndReadYnAndLastModifiedDateAfterOrderBySortedAtDesc(
+            Long userId, String groupKey, String readYn, LocalDateTime since);
 }
@@ -15,7 +15,8 @@ import javax.persistence.*;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Notice extends BaseTimeEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "notice_id")
+    @TableGenerator(name = "notice_id", table = "id_generator", pkColumnValue = "notice", allocationSize = 50)
     private Long id;
 
     @Column(length = 50)
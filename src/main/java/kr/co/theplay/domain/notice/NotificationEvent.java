@@ -0,0 +1,62 @@
+package kr.co.theplay.domain.notice;
+
+import kr.co.theplay.domain.BaseTimeEntity;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/*
+알림 이벤트 대기열 (outbox)
+좋아요 / 댓글 / 팔로우 트랜잭션 안에서는 이 row 만 쌓고 (NotificationEventRepository.append),
+NotificationDispatcher 가 모아서 alarm 으로 옮긴 뒤 row 를 지운다. (알림 문구는 발송할 때 만든다)
+idempotencyKey 는 같은 이벤트가 두 번 쌓이거나 두 번 발송되지 않게 막는다. (alarm.event_key 와 같은 값)
+ */
+@Getter
+@Entity
+@Table(indexes = @Index(name = "idx_notification_event_status_next_attempt", columnList = "status, next_attempt_at"))
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class NotificationEvent extends BaseTimeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String idempotencyKey;
+
+    @Column(nullable = false, length = 20)
+    private String type;
+
+    @Column(nullable = false)
+    private Long recipientId;
+
+    @Column(nullable = false)
+    private Long senderId;
+
+    @Column(nullable = false, length = 50)
+    private String senderNickname;
+
+    // 좋아요 / 댓글 이벤트의 게시글, 같은 게시글 이벤트끼리 묶는다
+    @Column
+    private Long postId;
+
+    // 댓글 내용 (앞부분만)
+    @Column
+    private String detail;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private NotificationEventStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+}
@@ -0,0 +1,48 @@
+package kr.co.theplay.domain.notice;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface NotificationEventRepository extends JpaRepository<NotificationEvent, Long> {
+
+    // 호출한 트랜잭션 안에서 실행, 같은 idempotency_key 가 이미 있으면 무시
+    @Modifying
+    @Query(value = "insert ignore into notification_event " +
+            "(idempotency_key, type, recipient_id, sender_id, sender_nickname, post_id, detail, status, attempts, next_attempt_at, created_date, last_modified_date) " +
+            "values (:idempotencyKey, :type, :recipientId, :senderId, :senderNickname, :postId, :detail, 'PENDING', 0, :now, :now, :now)", nativeQuery = true)
+    int append(@Param("idempotencyKey") String idempotencyKey, @Param("type") String type,
+               @Param("recipientId") Long recipientId, @Param("senderId") Long senderId,
+               @Param("senderNickname") String senderNickname, @Param("postId") Long postId,
+               @Param("detail") String detail, @Param("now") LocalDateTime now);
+
+    @Query("select e from NotificationEvent e " +
+            "where e.status = kr.co.theplay.domain.notice.NotificationEventStatus.PENDING and e.nextAttemptAt <= :now " +
+            "order by e.id")
+    List<NotificationEvent> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // 발송 트랜잭션 안에서 다시 읽으며 잠근다, 다른 서버가 먼저 처리해서 지운 이벤트는 빠진다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from NotificationEvent e where e.id in :ids order by e.id")
+    List<NotificationEvent> lockByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from NotificationEvent e where e.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("update NotificationEvent e set e.attempts = e.attempts + 1, e.status = :status, " +
+            "e.nextAttemptAt = :nextAttemptAt, e.lastError = :lastError where e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("status") NotificationEventStatus status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("lastError") String lastError);
+}
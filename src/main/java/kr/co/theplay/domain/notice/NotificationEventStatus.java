@@ -0,0 +1,10 @@
+package kr.co.theplay.domain.notice;
+
+/*
+알림 이벤트 상태
+PENDING : 발송 대기 (실패한 경우 nextAttemptAt 이후 재시도)
+DEAD : 재시도 횟수를 넘겨 더 이상 시도하지 않음, 확인 후 직접 처리
+ */
+public enum NotificationEventStatus {
+    PENDING, DEAD
+}
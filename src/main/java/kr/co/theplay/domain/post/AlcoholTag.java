@@ -15,11 +15,13 @@ import java.util.List;
 
 @Getter
 @Entity
+@Table(indexes = @Index(name = "idx_alcohol_tag_name_recipe_yn", columnList = "name, recipe_yn"))
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class AlcoholTag extends BaseTimeEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "alcohol_tag_id")
+    @TableGenerator(name = "alcohol_tag_id", table = "id_generator", pkColumnValue = "alcohol_tag", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -58,4 +60,12 @@ public class AlcoholTag extends BaseTimeEntity {
         this.post = post;
     }
 
+    // 게시글 수정, 값이 같으면 update 문이 나가지 않는다
+    public void update(IconKind iconKind, String name, Integer color, String recipeYn) {
+        this.iconKind = iconKind;
+        this.name = name;
+        this.color = color;
+        this.recipeYn = recipeYn;
+    }
+
 }
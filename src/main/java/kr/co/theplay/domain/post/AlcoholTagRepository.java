@@ -4,44 +4,52 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.security.core.parameters.P;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface AlcoholTagRepository extends JpaRepository <AlcoholTag, Long> {
 
     List<AlcoholTag> findByPost(Post post);
 
-    @Query(value = "select count(*) as cnt, name " +
+    // 게시글 수정 시 빠진 태그만 한번에 삭제 (저장한 레시피 user_recipe 를 먼저 지워야 한다)
+    @Modifying
+    @Query("delete from AlcoholTag t where t.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select a from AlcoholTag a where a.post.id in :postIds")
+    List<AlcoholTag> findByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    boolean existsByPostId(Long postId);
+
+    // 인기 레시피 랭킹 전체 재계산용 : 레시피 태그명별 게시글 좋아요 수 합 (Post 의 like_count 사용)
+    @Query(value = "select at.name, sum(p.like_count) as score " +
             "from alcohol_tag at " +
             "inner join post p on at.post_id = p.id " +
-            "inner join post_like pl on p.id = pl.post_id " +
-            "where recipe_yn = 'Y' " +
-            "group by name " +
-            "order by cnt desc ",
-    countQuery = "select count(distinct name) " +
+            "where at.recipe_yn = 'Y' " +
+            "group by at.name " +
+            "having score > 0 " +
+            "order by score desc ",
+            nativeQuery = true)
+    List<Object[]> findRecipeTagScores();
+
+    // 레시피 태그명의 좋아요 순 상위 게시글 : postId, 좋아요 수, 첫 이미지 (썸네일이 있으면 썸네일)
+    @Query(value = "select p.id, p.like_count, coalesce(pi.thumbnail_path, pi.file_path) " +
             "from alcohol_tag at " +
             "inner join post p on at.post_id = p.id " +
-            "inner join post_like pl on p.id = pl.post_id " +
-            "where recipe_yn = 'Y' ",
-    nativeQuery = true )
-    Page<Object []> findPopularTags(Pageable pageable);
+            "inner join post_image pi on p.id = pi.post_id and pi.number = 0 " +
+            "where at.recipe_yn = 'Y' and at.name = :tagName " +
+            "order by p.like_count desc, p.id desc " +
+            "limit :limit ",
+            nativeQuery = true)
+    List<Object[]> findTopRecipePosts(@Param("tagName") String tagName, @Param("limit") int limit);
 
-    @Query(
-            value = "select at.post_id, count(pl.id) as cnt, pi.file_path " +
-                    "from alcohol_tag at " +
-                    "inner join post p on at.post_id = p.id " +
-                    "left outer join post_like pl on p.id = pl.post_id " +
-                    "inner join post_image pi on p.id = pi.post_id " +
-                    "where at.recipe_yn = 'Y' and at.name = :tagName and pi.number = 0 " +
-                    "group by p.id " +
-                    "order by cnt desc " +
-                    "limit 10 ",
-            nativeQuery = true
-    )
-    List <Object [] > find10PopularImagesByAlcoholTagName(@Param("tagName") String tagName);
+    @Query("select a.name from AlcoholTag a where a.post.id = :postId and a.recipeYn = 'Y'")
+    List<String> findRecipeNamesByPostId(@Param("postId") Long postId);
 
     @Query("select a from AlcoholTag a where a.post.id = :postId and a.recipeYn = 'Y'")
     AlcoholTag findRecipesByPostId(@Param("postId") Long postId);
@@ -63,4 +71,9 @@ public interface AlcoholTagRepository extends JpaRepository <AlcoholTag, Long> {
             nativeQuery = true
     )
     Page<Object[]> findByNameOrderByLikeCnt(@Param("tagName") String tagName, Pageable page);
+
+    // 게시글 삭제 (PostDeleter), 저장한 레시피를 먼저 지운다
+    @Modifying
+    @Query("delete from AlcoholTag t where t.post.id = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
 }
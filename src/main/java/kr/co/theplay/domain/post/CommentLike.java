@@ -14,7 +14,8 @@ import javax.persistence.*;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class CommentLike extends BaseTimeEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "comment_like_id")
+    @TableGenerator(name = "comment_like_id", table = "id_generator", pkColumnValue = "comment_like", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
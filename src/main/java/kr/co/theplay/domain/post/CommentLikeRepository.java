@@ -2,16 +2,26 @@ package kr.co.theplay.domain.post;
 
 import kr.co.theplay.domain.user.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CommentLikeRepository extends JpaRepository<CommentLike, Long> {
 
-    // 댓글 좋아요 여부
-    boolean existsByPostCommentIdAndUserEmail(Long id, String email);
-
     // 해당 댓글 아이디를 좋아요 한 객체 수 (즉 댓글 좋아요 수)
     Long countAllByPostCommentId(Long id);
 
     Optional<CommentLike> findByPostCommentAndUser(PostComment postComment, User user);
+
+    // 게시글의 댓글, 대댓글 중 해당 유저가 좋아요 누른 댓글 아이디
+    @Query("select cl.postComment.id from CommentLike cl where cl.user.id = :userId and cl.postComment.post.id = :postId")
+    List<Long> findLikedCommentIds(@Param("userId") Long userId, @Param("postId") Long postId);
+
+    // 게시글 삭제 (PostDeleter), 호출한 트랜잭션 안에서 실행
+    @Modifying
+    @Query("delete from CommentLike cl where cl.postComment.id in (select c.id from PostComment c where c.post.id = :postId)")
+    int deleteByPostId(@Param("postId") Long postId);
 }
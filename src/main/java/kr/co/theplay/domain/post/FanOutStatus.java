@@ -0,0 +1,11 @@
+package kr.co.theplay.domain.post;
+
+/*
+팔로워 타임라인 적재 상태
+PENDING : 아직 적재 전 (작성 직후, 또는 타임라인 도입 이전 게시글)
+PUSHED : 팔로워들의 타임라인에 적재 완료
+PULLED : 팔로워가 너무 많은 작성자라 적재하지 않고 조회 시점에 직접 읽어온다
+ */
+public enum FanOutStatus {
+    PENDING, PUSHED, PULLED
+}
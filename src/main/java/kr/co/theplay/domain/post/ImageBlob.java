@@ -0,0 +1,41 @@
+package kr.co.theplay.domain.post;
+
+import kr.co.theplay.domain.BaseTimeEntity;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/*
+내용 (SHA-256) 기준으로 한번만 저장되는 이미지 원본
+같은 이미지를 쓰는 PostImage 수를 refCount 로 세고, 마지막 참조가 삭제될 때 S3 에서도 지운다.
+ */
+@Getter
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ImageBlob extends BaseTimeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 hex (직접 업로드한 이미지는 "upload:" + key 의 UUID)
+    @Column(nullable = false, unique = true, length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private String filePath;
+
+    @Column(nullable = false)
+    private Long refCount;
+
+    @Builder
+    public ImageBlob(Long id, String hash, String filePath, Long refCount) {
+        this.id = id;
+        this.hash = hash;
+        this.filePath = filePath;
+        this.refCount = refCount;
+    }
+}
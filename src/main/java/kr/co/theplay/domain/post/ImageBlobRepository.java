@@ -0,0 +1,41 @@
+package kr.co.theplay.domain.post;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, Long> {
+
+    Optional<ImageBlob> findByHash(String hash);
+
+    boolean existsByHash(String hash);
+
+    /*
+    삭제 대기열이 S3 에서 지우는 동안 잠근다. 없는 hash 는 gap lock 이 걸려서 그 사이 같은 hash 로 acquire (insert) 하는 트랜잭션은
+    삭제가 끝날 때까지 기다린다.
+     */
+    @Query(value = "select hash from image_blob where hash in (:hashes) for update", nativeQuery = true)
+    List<String> lockExistingHashes(@Param("hashes") Collection<String> hashes);
+
+    // 없으면 만들고 있으면 참조 수 + 1 (같은 이미지를 동시에 올려도 row 는 하나), 새로 만들었으면 1 / 있던 row 면 2
+    @Modifying
+    @Query(value = "insert into image_blob (hash, file_path, ref_count, created_date, last_modified_date) " +
+            "values (:hash, :filePath, 1, now(), now()) " +
+            "on duplicate key update ref_count = ref_count + 1, last_modified_date = now()",
+            nativeQuery = true)
+    int acquire(@Param("hash") String hash, @Param("filePath") String filePath);
+
+    @Modifying
+    @Query("update ImageBlob b set b.refCount = b.refCount - 1 where b.id = :id")
+    int release(@Param("id") Long id);
+
+    // 참조가 남아있지 않을 때만 삭제
+    @Modifying
+    @Query("delete from ImageBlob b where b.id = :id and b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
@@ -0,0 +1,48 @@
+package kr.co.theplay.domain.post;
+
+import kr.co.theplay.domain.BaseTimeEntity;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/*
+presigned URL 로 직접 올리도록 내준 업로드 자리
+게시글 작성에 쓰이면 row 를 지우고, expiresAt 까지 쓰이지 않으면 올라온 객체와 같이 지운다.
+ */
+@Getter
+@Entity
+@Table(indexes = @Index(name = "idx_image_upload_slot_expires_at", columnList = "expires_at"))
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ImageUploadSlot extends BaseTimeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "image_upload_slot_id")
+    @TableGenerator(name = "image_upload_slot_id", table = "id_generator", pkColumnValue = "image_upload_slot", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, unique = true)
+    private String objectKey;
+
+    // presigned URL 에 서명된 content type, 올라온 객체와 비교한다
+    @Column(nullable = false, length = 50)
+    private String contentType;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Builder
+    public ImageUploadSlot(Long id, Long userId, String objectKey, String contentType, LocalDateTime expiresAt) {
+        this.id = id;
+        this.userId = userId;
+        this.objectKey = objectKey;
+        this.contentType = contentType;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,28 @@
+package kr.co.theplay.domain.post;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ImageUploadSlotRepository extends JpaRepository<ImageUploadSlot, Long> {
+
+    List<ImageUploadSlot> findByObjectKeyIn(Collection<String> objectKeys);
+
+    @Query("select s from ImageUploadSlot s where s.expiresAt < :now order by s.id")
+    List<ImageUploadSlot> findExpired(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // 게시글 작성 트랜잭션 안에서 호출, 지운 개수로 다른 요청 (또는 만료 정리) 이 먼저 가져갔는지 확인한다
+    @Modifying
+    @Query("delete from ImageUploadSlot s where s.userId = :userId and s.objectKey in :objectKeys")
+    int claim(@Param("userId") Long userId, @Param("objectKeys") Collection<String> objectKeys);
+
+    @Modifying
+    @Query("delete from ImageUploadSlot s where s.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,43 @@
+package kr.co.theplay.domain.post;
+
+import kr.co.theplay.domain.BaseTimeEntity;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/*
+인기 레시피 랭킹 스냅샷 (PopularRecipeRanking 이 전체 재계산할 때마다 덮어씀)
+서버가 뜰 때 GROUP BY 재계산 없이 바로 랭킹을 올리기 위한 용도
+ */
+@Getter
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class PopularRecipe extends BaseTimeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "popular_recipe_id")
+    @TableGenerator(name = "popular_recipe_id", table = "id_generator", pkColumnValue = "popular_recipe", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String alcoholTagName;
+
+    // 해당 레시피 태그가 달린 게시글들의 좋아요 수 합
+    @Column(nullable = false)
+    private Long score;
+
+    // 좋아요 순 상위 게시글 아이디 (콤마 구분, 최대 10개)
+    @Column(length = 500)
+    private String topPostIds;
+
+    @Builder
+    public PopularRecipe(Long id, String alcoholTagName, Long score, String topPostIds) {
+        this.id = id;
+        this.alcoholTagName = alcoholTagName;
+        this.score = score;
+        this.topPostIds = topPostIds;
+    }
+}
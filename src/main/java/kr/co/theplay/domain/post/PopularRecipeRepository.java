@@ -0,0 +1,20 @@
+package kr.co.theplay.domain.post;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface PopularRecipeRepository extends JpaRepository<PopularRecipe, Long> {
+
+    @Query("select max(p.createdDate) from PopularRecipe p")
+    LocalDateTime findLastSavedDate();
+
+    // MySQL 이름 잠금 (커넥션 단위), 다른 서버가 잡고 있으면 기다리지 않고 0
+    @Query(value = "select coalesce(get_lock(:name, 0), 0)", nativeQuery = true)
+    int getLock(@Param("name") String name);
+
+    @Query(value = "select coalesce(release_lock(:name), 0)", nativeQuery = true)
+    int releaseLock(@Param("name") String name);
+}
@@ -6,6 +6,7 @@ import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -13,11 +14,17 @@ import java.util.List;
 
 @Getter
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_post_created_date_id", columnList = "created_date, id"),
+        @Index(name = "idx_post_user_created_date_id", columnList = "user_id, created_date, id"),
+        @Index(name = "idx_post_fan_out_status_created_date_id", columnList = "fan_out_status, created_date, id")
+})
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Post extends BaseTimeEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "post_id")
+    @TableGenerator(name = "post_id", table = "id_generator", pkColumnValue = "post", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -30,6 +37,21 @@ public class Post extends BaseTimeEntity {
     @Column
     private String content;
 
+    // 좋아요, 댓글 수 (PostCounterService 에서 모아서 반영)
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long likeCount = 0L;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long commentCount = 0L;
+
+    // 팔로워 타임라인 적재 상태 (TimelineService)
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    @ColumnDefault("'PENDING'")
+    private FanOutStatus fanOutStatus = FanOutStatus.PENDING;
+
     @OneToMany(mappedBy = "post", cascade = CascadeType.REMOVE)
     private List<PostImage> images = new ArrayList<>();
 
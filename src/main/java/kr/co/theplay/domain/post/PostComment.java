@@ -3,6 +3,7 @@ package kr.co.theplay.domain.post;
 import kr.co.theplay.domain.BaseTimeEntity;
 import kr.co.theplay.domain.user.User;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -14,7 +15,8 @@ import java.util.List;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class PostComment extends BaseTimeEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "post_comment_id")
+    @TableGenerator(name = "post_comment_id", table = "id_generator", pkColumnValue = "post_comment", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -34,6 +36,11 @@ public class PostComment extends BaseTimeEntity {
     @Column
     private String content;
 
+    // 댓글 좋아요 수 (PostCounterService 에서 모아서 반영)
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long likeCount = 0L;
+
     @Builder
     public PostComment(Long id, Post post, User user, List<CommentLike> commentLikes,
                        Long postCommentParentId, String content) {
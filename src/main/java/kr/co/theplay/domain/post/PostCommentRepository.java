@@ -3,9 +3,12 @@ package kr.co.theplay.domain.post;
 import kr.co.theplay.domain.user.User;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface PostCommentRepository extends JpaRepository<PostComment, Long> {
@@ -15,6 +18,10 @@ public interface PostCommentRepository extends JpaRepository<PostComment, Long>
 
     boolean existsByPostId(Long postId);
 
+    // 게시글의 댓글, 대댓글 전체를 작성자까지 한번에 가져온다 (아이디는 서버마다 미리 받아둔 구간에서 나오므로 작성 순서가 아니다)
+    @Query("select c from PostComment c join fetch c.user where c.post.id = :postId order by c.createdDate, c.id")
+    List<PostComment> findAllByPostIdWithUser(@Param("postId") Long postId);
+
     boolean existsByPostCommentParentId(Long commentId);
 
     @Query("select c from PostComment c where c.post.id = :postId and c.postCommentParentId = :postCommentId")
@@ -26,6 +33,44 @@ public interface PostCommentRepository extends JpaRepository<PostComment, Long>
     @EntityGraph(attributePaths = "user")
     PostComment findFirstByPostIdAndPostCommentParentIdOrderByCreatedDateDesc(Long postId, Long postCommentParentId);
 
+    // 각 게시글의 가장 최근 댓글 (대표 댓글), 작성자까지 한번에 가져온다
+    @Query("select c from PostComment c join fetch c.user " +
+            "where c.post.id in :postIds and c.postCommentParentId = 0 " +
+            "and c.createdDate = (select max(c2.createdDate) from PostComment c2 " +
+            "where c2.post.id = c.post.id and c2.postCommentParentId = 0) " +
+            "order by c.id desc")
+    List<PostComment> findLatestCommentsByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    // 가장 최근 댓글 작성자가 차단 관계인 게시글만, 차단 관계인 작성자를 빼고 다시 찾는다
+    @Query("select c from PostComment c join fetch c.user " +
+            "where c.post.id in :postIds and c.postCommentParentId = 0 and c.user.id not in :excludedUserIds " +
+            "and c.createdDate = (select max(c2.createdDate) from PostComment c2 " +
+            "where c2.post.id = c.post.id and c2.postCommentParentId = 0 and c2.user.id not in :excludedUserIds) " +
+            "order by c.id desc")
+    List<PostComment> findLatestCommentsByPostIdsExcluding(@Param("postIds") Collection<Long> postIds,
+                                                           @Param("excludedUserIds") Collection<Long> excludedUserIds);
+
+    @Transactional
+    @Modifying
+    @Query("update PostComment c set c.likeCount = c.likeCount + :delta where c.id in :commentIds")
+    int addLikeCount(@Param("delta") long delta, @Param("commentIds") Collection<Long> commentIds);
+
+    // 원본 테이블 기준으로 어긋난 좋아요 수 (id, 좋아요 수)
+    @Query(value = "select pc.id, coalesce(l.cnt, 0) from post_comment pc " +
+            "left join (select post_comment_id, count(*) as cnt from comment_like group by post_comment_id) l on l.post_comment_id = pc.id " +
+            "where pc.like_count <> coalesce(l.cnt, 0)",
+            nativeQuery = true)
+    List<Object[]> findLikeCountMismatches();
+
+    // 보정 트랜잭션 안에서 원본 row 수를 다시 센다 (공유 잠금, PostRepository.countLikesForUpdate 와 같은 이유)
+    @Query(value = "select count(*) from comment_like where post_comment_id = :commentId lock in share mode", nativeQuery = true)
+    long countLikesForUpdate(@Param("commentId") Long commentId);
+
+    @Transactional
+    @Modifying
+    @Query("update PostComment c set c.likeCount = :likeCount where c.id = :commentId")
+    int setLikeCount(@Param("commentId") Long commentId, @Param("likeCount") long likeCount);
+
     /*
     Native Query 사용 이래도 FetchType.Lazy는 어짜피 안가져옴 ㅋㅋ EntityGraph를 사용하자 ~
     @Query(value = "SELECT * FROM post_comment as p " +
@@ -35,4 +80,9 @@ public interface PostCommentRepository extends JpaRepository<PostComment, Long>
             "limit 1", nativeQuery = true)
     PostComment findPostCommentAndUser(@Param("postId") Long postId);
     */
+
+    // 게시글 삭제 (PostDeleter), 댓글 좋아요를 먼저 지운다
+    @Modifying
+    @Query("delete from PostComment c where c.post.id = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
 }
@@ -14,7 +14,8 @@ import javax.persistence.*;
 public class PostImage extends BaseTimeEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "post_image_id")
+    @TableGenerator(name = "post_image_id", table = "id_generator", pkColumnValue = "post_image", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -27,11 +28,32 @@ public class PostImage extends BaseTimeEntity {
     @Column
     private String filePath;
 
+    // 내용 기준 원본 (이전에 올린 이미지는 null)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "image_blob_id")
+    private ImageBlob imageBlob;
+
+    // 리사이즈 이미지 key, 만들어지기 전에는 null (원본을 내려준다)
+    @Column
+    private String thumbnailPath;
+
+    @Column
+    private String mediumPath;
+
     @Builder
-    public PostImage(Long id, Post post, Integer number, String filePath){
+    public PostImage(Long id, Post post, Integer number, String filePath, ImageBlob imageBlob){
         this.id = id;
         this.post = post;
         this.number = number;
         this.filePath = filePath;
+        this.imageBlob = imageBlob;
+    }
+
+    public String getThumbnailOrOriginalPath() {
+        return thumbnailPath != null ? thumbnailPath : filePath;
+    }
+
+    public String getMediumOrOriginalPath() {
+        return mediumPath != null ? mediumPath : filePath;
     }
 }
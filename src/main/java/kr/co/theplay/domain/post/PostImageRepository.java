@@ -1,11 +1,41 @@
 package kr.co.theplay.domain.post;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface PostImageRepository extends JpaRepository <PostImage, Long> {
 
+    @Query("select pi from PostImage pi where pi.post.id in :postIds order by pi.number")
+    List<PostImage> findByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    boolean existsByPostId(Long postId);
+
+    @Query("select pi.id from PostImage pi where pi.post.id = :postId order by pi.number")
+    List<Long> findIdsByPostId(@Param("postId") Long postId);
+
+    // 리사이즈 이미지가 아직 없는 이미지 (작업 누락, 서버 재시작 등)
+    @Query("select pi.id from PostImage pi where pi.thumbnailPath is null and pi.createdDate < :before order by pi.id")
+    List<Long> findIdsWithoutRenditions(@Param("before") LocalDateTime before, Pageable pageable);
+
+    // 같은 원본으로 이미 만들어둔 리사이즈 이미지
+    Optional<PostImage> findFirstByFilePathAndThumbnailPathIsNotNull(String filePath);
+
+    @Transactional
+    @Modifying
+    @Query("update PostImage pi set pi.thumbnailPath = :thumbnailPath, pi.mediumPath = :mediumPath where pi.id = :id")
+    int changeRenditions(@Param("id") Long id, @Param("thumbnailPath") String thumbnailPath, @Param("mediumPath") String mediumPath);
+
+    // 게시글 삭제 (PostDeleter), ImageBlob 참조 해제 이후에 호출
+    @Modifying
+    @Query("delete from PostImage pi where pi.post.id = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
 }
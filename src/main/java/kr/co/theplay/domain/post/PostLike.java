@@ -14,7 +14,8 @@ import javax.persistence.*;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class PostLike extends BaseTimeEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "post_like_id")
+    @TableGenerator(name = "post_like_id", table = "id_generator", pkColumnValue = "post_like", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
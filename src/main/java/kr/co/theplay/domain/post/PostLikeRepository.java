@@ -4,23 +4,34 @@ import kr.co.theplay.domain.user.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
-import java.util.Optional;
 
 public interface PostLikeRepository extends JpaRepository<PostLike, Long> {
-    List<PostLike> findByUserEmail(String email);
+    long countByUserId(Long userId);
 
-    @Query("select p.post from PostLike p where p.user.email = :email order by p.createdDate desc ")
-    Page<Post> findPostLikeByUserEmail(Pageable pageable, @Param("email") String email);
-
-    Optional<PostLike> findByPostIdAndUserEmail(Long id, String email);
+    @Query(value = "select p.post from PostLike p where p.user.id = :userId order by p.createdDate desc ",
+            countQuery = "select count(p) from PostLike p where p.user.id = :userId")
+    Page<Post> findPostLikeByUserId(Pageable pageable, @Param("userId") Long userId);
 
     PostLike findByPostAndUser(Post post, User user);
 
     boolean existsByPostAndUser(Post post, User user);
 
     Integer countPostLikeByPostId(Long postId);
+
+    // 해당 유저가 좋아요 누른 게시글 아이디 전체 (ViewerRelationCache 적재용)
+    @Query("select pl.post.id from PostLike pl where pl.user.id = :userId")
+    List<Long> findPostIdsByUserId(@Param("userId") Long userId);
+
+    @Query("select pl.user.id from PostLike pl where pl.post.id = :postId")
+    List<Long> findUserIdsByPostId(@Param("postId") Long postId);
+
+    // 게시글 삭제 (PostDeleter)
+    @Modifying
+    @Query("delete from PostLike pl where pl.post.id = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
 }
@@ -14,7 +14,8 @@ import javax.persistence.*;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class PostReport extends BaseTimeEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "post_report_id")
+    @TableGenerator(name = "post_report_id", table = "id_generator", pkColumnValue = "post_report", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -2,6 +2,7 @@ package kr.co.theplay.domain.post;
 
 import kr.co.theplay.domain.user.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -10,7 +11,11 @@ import java.util.Optional;
 public interface PostReportRepository extends JpaRepository<PostReport, Long> {
     Optional<PostReport> findByUserAndPost(User user, Post post);
 
-    @Query("select count(p) from PostReport p where p.post.user.email = :email")
-    Integer findCountReportByUser(@Param("email") String email);
+    @Query("select count(p) from PostReport p where p.post.user.id = :userId")
+    Integer findCountReportByUserId(@Param("userId") Long userId);
 
+    // 게시글 삭제 (PostDeleter)
+    @Modifying
+    @Query("delete from PostReport pr where pr.post.id = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
 }
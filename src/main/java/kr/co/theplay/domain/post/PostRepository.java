@@ -4,18 +4,19 @@ import kr.co.theplay.domain.user.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
 
-    @Query("select count(p) from Post p where p.user.email = :email")
-    Long findPostCountByUser(@Param("email") String email);
-
-    List<Post> findByUserEmail(String email);
+    long countByUserId(Long userId);
 
     @Query(value = "select distinct p from Post p " +
             "inner join PostImage pi on pi.post.id = p.id " +
@@ -24,20 +25,54 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     Page<Post> getLatestPostsForMain(Pageable pageable);
 
     @Query(value = "select p from Post p " +
-            "where p.user.email = :email " +
+            "where p.user.id = :userId " +
             "order by p.createdDate desc")
-    Page<Post> getUserLastestPosts(@Param("email") String email, Pageable pageable);
+    Page<Post> getUserLastestPosts(@Param("userId") Long userId, Pageable pageable);
 
     @Query(value = "select distinct p from Post p " +
             "inner join PostImage pi on pi.post.id = p.id " +
             "inner join AlcoholTag at on at.post.id = p.id " +
             "inner join Follow f on f.userFollow = p.user " +
-            "where f.user.email = :email " +
+            "where f.user.id = :userId " +
             "order by p.createdDate desc ")
-    Page<Post> getFollowingPosts(Pageable pageable, @Param("email") String email);
+    Page<Post> getFollowingPosts(Pageable pageable, @Param("userId") Long userId);
+
+    /*
+    커서(keyset) 페이징 : (createdDate, id) 보다 뒤에 있는 게시글을 인덱스 순서대로 읽고 count 쿼리는 날리지 않는다.
+    pageable 은 limit 용도로만 사용 (다음 페이지 여부 확인을 위해 size + 1 개 조회)
+     */
+    @Query("select p from Post p " +
+            "where exists (select pi.id from PostImage pi where pi.post = p) " +
+            "and exists (select at.id from AlcoholTag at where at.post = p) " +
+            "and (p.createdDate < :createdDate or (p.createdDate = :createdDate and p.id < :id)) " +
+            "order by p.createdDate desc, p.id desc")
+    List<Post> getLatestPostsForMainAfter(@Param("createdDate") LocalDateTime createdDate, @Param("id") Long id, Pageable pageable);
+
+    @Query("select p from Post p " +
+            "where p.user.id = :userId " +
+            "and (p.createdDate < :createdDate or (p.createdDate = :createdDate and p.id < :id)) " +
+            "order by p.createdDate desc, p.id desc")
+    List<Post> getUserLatestPostsAfter(@Param("userId") Long userId, @Param("createdDate") LocalDateTime createdDate, @Param("id") Long id, Pageable pageable);
 
-    @Query("select p from Post p where p.haveRecipeYn = 'Y' and p.user.email = :email")
-    List<Post> getUserRecipePosts(@Param("email") String email);
+    // 팔로잉 피드 중 타임라인에 적재되지 않은 (PENDING, PULLED) 게시글을 조회 시점에 직접 읽는다
+    @Query("select p from Post p " +
+            "where p.fanOutStatus <> kr.co.theplay.domain.post.FanOutStatus.PUSHED " +
+            "and p.user.id in (select f.userFollow.id from Follow f where f.user.id = :userId) " +
+            "and exists (select pi.id from PostImage pi where pi.post = p) " +
+            "and exists (select at.id from AlcoholTag at where at.post = p) " +
+            "and (p.createdDate < :createdDate or (p.createdDate = :createdDate and p.id < :id)) " +
+            "order by p.createdDate desc, p.id desc")
+    List<Post> getPulledFollowingPostsAfter(@Param("userId") Long userId, @Param("createdDate") LocalDateTime createdDate, @Param("id") Long id, Pageable pageable);
+
+    @Query("select p.id from Post p " +
+            "where p.fanOutStatus = kr.co.theplay.domain.post.FanOutStatus.PENDING and p.createdDate < :before " +
+            "order by p.createdDate asc")
+    List<Long> findPendingFanOutIds(@Param("before") LocalDateTime before, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update Post p set p.fanOutStatus = :status where p.id = :postId")
+    int changeFanOutStatus(@Param("postId") Long postId, @Param("status") FanOutStatus status);
 
     @Query("select distinct p from Post p " +
             "inner join PostImage pi on pi.post.id = p.id " +
@@ -55,4 +90,39 @@ public interface PostRepository extends JpaRepository<Post, Long> {
 
     @Query("select u.user from Post u where u.id = :postId")
     User getPostOwner(@Param("postId") Long postId);
+
+    @Transactional
+    @Modifying
+    @Query("update Post p set p.likeCount = p.likeCount + :delta where p.id in :postIds")
+    int addLikeCount(@Param("delta") long delta, @Param("postIds") Collection<Long> postIds);
+
+    @Transactional
+    @Modifying
+    @Query("update Post p set p.commentCount = p.commentCount + :delta where p.id in :postIds")
+    int addCommentCount(@Param("delta") long delta, @Param("postIds") Collection<Long> postIds);
+
+    // 원본 테이블 기준으로 어긋난 카운터 (id, 좋아요 수, 댓글 수)
+    @Query(value = "select p.id, coalesce(l.cnt, 0), coalesce(c.cnt, 0) from post p " +
+            "left join (select post_id, count(*) as cnt from post_like group by post_id) l on l.post_id = p.id " +
+            "left join (select post_id, count(*) as cnt from post_comment group by post_id) c on c.post_id = p.id " +
+            "where p.like_count <> coalesce(l.cnt, 0) or p.comment_count <> coalesce(c.cnt, 0)",
+            nativeQuery = true)
+    List<Object[]> findCountMismatches();
+
+    // 보정 트랜잭션 안에서 원본 row 수를 다시 센다. 공유 잠금으로 커밋될 때까지 이 게시글의 좋아요 / 댓글 추가, 삭제를 막는다
+    @Query(value = "select count(*) from post_like where post_id = :postId lock in share mode", nativeQuery = true)
+    long countLikesForUpdate(@Param("postId") Long postId);
+
+    @Query(value = "select count(*) from post_comment where post_id = :postId lock in share mode", nativeQuery = true)
+    long countCommentsForUpdate(@Param("postId") Long postId);
+
+    @Transactional
+    @Modifying
+    @Query("update Post p set p.likeCount = :likeCount, p.commentCount = :commentCount where p.id = :postId")
+    int setCounts(@Param("postId") Long postId, @Param("likeCount") long likeCount, @Param("commentCount") long commentCount);
+
+    // 자식 row 를 모두 지운 뒤 게시글 row 만 삭제 (cascade 로 자식을 하나씩 읽어 지우지 않는다)
+    @Modifying
+    @Query("delete from Post p where p.id = :postId")
+    int deleteRowById(@Param("postId") Long postId);
 }
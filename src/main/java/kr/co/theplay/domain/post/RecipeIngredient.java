@@ -16,7 +16,8 @@ import javax.persistence.*;
 public class RecipeIngredient extends BaseTimeEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "recipe_ingredient_id")
+    @TableGenerator(name = "recipe_ingredient_id", table = "id_generator", pkColumnValue = "recipe_ingredient", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -50,4 +51,11 @@ public class RecipeIngredient extends BaseTimeEntity {
     public void changePost(Post post){
         this.post = post;
     }
+
+    public void update(IconKind iconKind, String name, Integer color, String quantity) {
+        this.iconKind = iconKind;
+        this.name = name;
+        this.color = color;
+        this.quantity = quantity;
+    }
 }
@@ -1,16 +1,27 @@
 package kr.co.theplay.domain.post;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface RecipeIngredientRepository extends JpaRepository<RecipeIngredient, Long> {
 
-    @Query("select r from RecipeIngredient r where r.post.user.email = :email")
-    List<RecipeIngredient> findByUserEmail(@Param("email") String email);
-
     @Query(value = "select ri from RecipeIngredient ri where ri.post.id = :postId")
     List<RecipeIngredient> findByPostId(@Param("postId") Long postId);
+
+    @Modifying
+    @Query("delete from RecipeIngredient ri where ri.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "select ri from RecipeIngredient ri where ri.post.id in :postIds")
+    List<RecipeIngredient> findByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    // 게시글 삭제 (PostDeleter)
+    @Modifying
+    @Query("delete from RecipeIngredient ri where ri.post.id = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
 }
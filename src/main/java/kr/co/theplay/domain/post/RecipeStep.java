@@ -14,7 +14,8 @@ import javax.persistence.*;
 public class RecipeStep extends BaseTimeEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "recipe_step_id")
+    @TableGenerator(name = "recipe_step_id", table = "id_generator", pkColumnValue = "recipe_step", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -38,4 +39,9 @@ public class RecipeStep extends BaseTimeEntity {
     public void changePost(Post post){
         this.post = post;
     }
+
+    public void update(Integer number, String content) {
+        this.number = number;
+        this.content = content;
+    }
 }
@@ -1,14 +1,28 @@
 package kr.co.theplay.domain.post;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.security.core.parameters.P;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface RecipeStepRepository extends JpaRepository<RecipeStep, Long> {
 
     @Query(value = "select rs from RecipeStep rs where rs.post.id = :postId")
     List<RecipeStep> findByPostId(@Param("postId") Long postId);
+
+    @Modifying
+    @Query("delete from RecipeStep rs where rs.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "select rs from RecipeStep rs where rs.post.id in :postIds order by rs.number")
+    List<RecipeStep> findByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    // 게시글 삭제 (PostDeleter)
+    @Modifying
+    @Query("delete from RecipeStep rs where rs.post.id = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
 }
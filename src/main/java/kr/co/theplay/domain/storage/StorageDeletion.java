@@ -0,0 +1,57 @@
+package kr.co.theplay.domain.storage;
+
+import kr.co.theplay.domain.BaseTimeEntity;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/*
+S3 객체 삭제 대기열 (outbox)
+게시글 삭제 트랜잭션 안에서 row 만 쌓고, StorageDeletionQueue 가 모아서 여러 개씩 한번에 지운다.
+삭제에 성공하면 row 를 지운다.
+ */
+@Getter
+@Entity
+@Table(indexes = @Index(name = "idx_storage_deletion_status_next_attempt", columnList = "status, next_attempt_at"))
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class StorageDeletion extends BaseTimeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "storage_deletion_id")
+    @TableGenerator(name = "storage_deletion_id", table = "id_generator", pkColumnValue = "storage_deletion", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String objectKey;
+
+    // ImageBlob 원본이었다면 그 hash, 지우기 전에 같은 이미지가 다시 올라왔는지 확인한다
+    @Column(length = 64)
+    private String blobHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StorageDeletionStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Builder
+    public StorageDeletion(Long id, String objectKey, String blobHash, LocalDateTime nextAttemptAt) {
+        this.id = id;
+        this.objectKey = objectKey;
+        this.blobHash = blobHash;
+        this.status = StorageDeletionStatus.PENDING;
+        this.attempts = 0;
+        this.nextAttemptAt = nextAttemptAt == null ? LocalDateTime.now() : nextAttemptAt;
+    }
+}
@@ -0,0 +1,32 @@
+package kr.co.theplay.domain.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface StorageDeletionRepository extends JpaRepository<StorageDeletion, Long> {
+
+    @Query("select d from StorageDeletion d " +
+            "where d.status = kr.co.theplay.domain.storage.StorageDeletionStatus.PENDING and d.nextAttemptAt <= :now " +
+            "order by d.id")
+    List<StorageDeletion> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from StorageDeletion d where d.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("update StorageDeletion d set d.attempts = d.attempts + 1, d.status = :status, " +
+            "d.nextAttemptAt = :nextAttemptAt, d.lastError = :lastError where d.id = :id")
+    int markFailed(@Param("id") Long id, @Param("status") StorageDeletionStatus status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("lastError") String lastError);
+}
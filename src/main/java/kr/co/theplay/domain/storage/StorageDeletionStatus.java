@@ -0,0 +1,10 @@
+package kr.co.theplay.domain.storage;
+
+/*
+S3 삭제 대기열 상태
+PENDING : 삭제 대기 (실패한 경우 nextAttemptAt 이후 재시도)
+DEAD : 재시도 횟수를 넘겨 더 이상 시도하지 않음, 확인 후 직접 처리
+ */
+public enum StorageDeletionStatus {
+    PENDING, DEAD
+}
@@ -0,0 +1,49 @@
+package kr.co.theplay.domain.timeline;
+
+import kr.co.theplay.domain.post.Post;
+import kr.co.theplay.domain.user.User;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/*
+팔로잉 피드용 타임라인 (fan-out on write)
+게시글이 작성되면 작성자의 팔로워마다 한 row 씩 적재한다. 적재는 TimelineRepository 의 insert ... select 로만 한다.
+정렬 기준인 게시글 작성 시각을 같이 저장해서 post 테이블과 join 없이 (user_id, post_created_date) 인덱스만 읽는다.
+ */
+@Getter
+@Entity
+@Table(
+        uniqueConstraints = @UniqueConstraint(name = "uk_timeline_user_post", columnNames = {"user_id", "post_id"}),
+        indexes = {
+                @Index(name = "idx_timeline_user_created_date", columnList = "user_id, post_created_date, post_id"),
+                @Index(name = "idx_timeline_user_author", columnList = "user_id, author_id"),
+                @Index(name = "idx_timeline_post", columnList = "post_id")
+        })
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class Timeline {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 타임라인 주인 (팔로워)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "post_id", nullable = false)
+    private Post post;
+
+    // 게시글 작성자, 언팔로우 시 해당 작성자 게시글만 지우기 위해 따로 저장
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "author_id", nullable = false)
+    private User author;
+
+    @Column(nullable = false)
+    private LocalDateTime postCreatedDate;
+}
@@ -0,0 +1,70 @@
+package kr.co.theplay.domain.timeline;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TimelineRepository extends JpaRepository<Timeline, Long> {
+
+    // (postCreatedDate, postId) 커서 이후의 타임라인, pageable 은 limit 용도
+    @Query("select t from Timeline t " +
+            "where t.user.id = :userId " +
+            "and (t.postCreatedDate < :createdDate or (t.postCreatedDate = :createdDate and t.post.id < :postId)) " +
+            "order by t.postCreatedDate desc, t.post.id desc")
+    List<Timeline> findByUserIdAfter(@Param("userId") Long userId, @Param("createdDate") LocalDateTime createdDate,
+                                     @Param("postId") Long postId, Pageable pageable);
+
+    // 팔로워들의 타임라인에 게시글 적재, 이미 적재된 (user_id, post_id) 는 무시
+    @Transactional
+    @Modifying
+    @Query(value = "insert ignore into timeline (user_id, post_id, author_id, post_created_date) " +
+            "select u.id, p.id, p.user_id, p.created_date from user u, post p " +
+            "where u.id in :userIds and p.id = :postId",
+            nativeQuery = true)
+    int fanOut(@Param("postId") Long postId, @Param("userIds") Collection<Long> userIds);
+
+    // 새로 팔로우한 작성자의 게시글을 타임라인에 채워 넣는다 (조회 시 직접 읽는 PULLED, PENDING 게시글은 제외)
+    @Transactional
+    @Modifying
+    @Query(value = "insert ignore into timeline (user_id, post_id, author_id, post_created_date) " +
+            "select :userId, p.id, p.user_id, p.created_date from post p " +
+            "where p.user_id = :authorId and p.fan_out_status = 'PUSHED'",
+            nativeQuery = true)
+    int backfill(@Param("userId") Long userId, @Param("authorId") Long authorId);
+
+    // fan-out 도중 팔로우해서 적재되지 않은 팔로워 (backfill 은 PUSHED 게시글만 채운다)
+    @Query(value = "select f.user_id from follow f " +
+            "where f.user_follow_id = :authorId " +
+            "and not exists (select 1 from timeline t where t.user_id = f.user_id and t.post_id = :postId)",
+            nativeQuery = true)
+    List<Long> findFollowerIdsNotFannedOut(@Param("postId") Long postId, @Param("authorId") Long authorId);
+
+    // fan-out 도중 언팔로우해서 prune 이후에 다시 적재된 유저
+    @Query(value = "select t.user_id from timeline t " +
+            "where t.post_id = :postId " +
+            "and not exists (select 1 from follow f where f.user_id = t.user_id and f.user_follow_id = t.author_id)",
+            nativeQuery = true)
+    List<Long> findUnfollowedUserIds(@Param("postId") Long postId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Timeline t where t.post.id = :postId and t.user.id in :userIds")
+    int deleteByPostIdAndUserIds(@Param("postId") Long postId, @Param("userIds") Collection<Long> userIds);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Timeline t where t.user.id = :userId and t.author.id = :authorId")
+    int prune(@Param("userId") Long userId, @Param("authorId") Long authorId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Timeline t where t.post.id = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
+}
@@ -21,7 +21,8 @@ import java.util.List;
 public class User extends BaseTimeEntity implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_id")
+    @TableGenerator(name = "user_id", table = "id_generator", pkColumnValue = "user", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 100)
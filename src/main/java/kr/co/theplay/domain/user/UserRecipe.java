@@ -17,7 +17,8 @@ import javax.persistence.*;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class UserRecipe extends BaseTimeEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_recipe_id")
+    @TableGenerator(name = "user_recipe_id", table = "id_generator", pkColumnValue = "user_recipe", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
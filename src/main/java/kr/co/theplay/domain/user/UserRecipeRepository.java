@@ -4,27 +4,48 @@ import kr.co.theplay.domain.post.AlcoholTag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 public interface UserRecipeRepository extends JpaRepository<UserRecipe, Long> {
     boolean existsByAlcoholTagAndUser(AlcoholTag alcoholTag, User user);
 
     UserRecipe findByAlcoholTagAndUser(AlcoholTag alcoholTag, User user);
 
-    @Query("SELECT ur FROM UserRecipe ur WHERE ur.alcoholTag.post.id = :postId AND ur.user.email = :userEmail")
-    Optional<UserRecipe> findByPostIdAndUserEmail(@Param("postId") Long postId, @Param("userEmail") String userEmail);
+    // 해당 유저가 저장한 레시피(술 태그) 아이디 전체 (ViewerRelationCache 적재용)
+    @Query("SELECT ur.alcoholTag.id FROM UserRecipe ur WHERE ur.user.id = :userId")
+    List<Long> findAlcoholTagIdsByUserId(@Param("userId") Long userId);
+
+    // 게시글의 레시피를 저장한 유저 (태그 여러 개를 저장했으면 그만큼 중복)
+    @Query("SELECT ur.user.id FROM UserRecipe ur WHERE ur.alcoholTag.post.id = :postId")
+    List<Long> findUserIdsByPostId(@Param("postId") Long postId);
+
+    // 게시글 수정으로 빠지는 레시피 태그를 저장한 유저 (저장 수 반영용)
+    @Query("SELECT ur.user.id FROM UserRecipe ur WHERE ur.alcoholTag.id in :alcoholTagIds")
+    List<Long> findUserIdsByAlcoholTagIds(@Param("alcoholTagIds") Collection<Long> alcoholTagIds);
+
+    @Modifying
+    @Query("DELETE FROM UserRecipe ur WHERE ur.alcoholTag.id in :alcoholTagIds")
+    int deleteByAlcoholTagIds(@Param("alcoholTagIds") Collection<Long> alcoholTagIds);
 
     List<UserRecipe> getUserRecipeByUser(User user);
 
+    long countByUserId(Long userId);
+
     Page<UserRecipe> findByUserIdOrderByCreatedDateDesc(Pageable pageable, Long userId);
 
     @Query("SELECT ur FROM UserRecipe ur " +
-            "WHERE ur.user.email =:email " +
+            "WHERE ur.user.id =:userId " +
             "and ur.alcoholTag.name =:recipeName " +
             "ORDER BY ur.createdDate desc ")
-    List<UserRecipe> findByKeyword(@Param("email") String email, @Param("recipeName") String name);
+    List<UserRecipe> findByKeyword(@Param("userId") Long userId, @Param("recipeName") String name);
+
+    // 게시글 삭제 (PostDeleter)
+    @Modifying
+    @Query("DELETE FROM UserRecipe ur WHERE ur.alcoholTag.id in (SELECT t.id FROM AlcoholTag t WHERE t.post.id = :postId)")
+    int deleteByPostId(@Param("postId") Long postId);
 }
@@ -14,7 +14,8 @@ import javax.persistence.*;
 public class UserRole extends BaseTimeEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_role_id")
+    @TableGenerator(name = "user_role_id", table = "id_generator", pkColumnValue = "user_role", allocationSize = 50)
     private Long id;
 
     @OneToOne(fetch = FetchType.LAZY)
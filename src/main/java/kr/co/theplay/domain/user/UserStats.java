@@ -0,0 +1,46 @@
+package kr.co.theplay.domain.user;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/*
+유저 메인 상단 정보 (게시물, 팔로워, 팔로잉, 좋아요, 저장한 레시피 수)
+각 쓰기 트랜잭션 안에서 증감하고 (UserStatsService), 밤마다 원본 테이블 기준으로 보정한다.
+ */
+@Getter
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class UserStats {
+
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long postCount;
+
+    @Column(nullable = false)
+    private Long followerCount;
+
+    @Column(nullable = false)
+    private Long followingCount;
+
+    @Column(nullable = false)
+    private Long likeCount;
+
+    @Column(nullable = false)
+    private Long recipeCount;
+
+    public UserStats(Long userId, long postCount, long followerCount, long followingCount, long likeCount, long recipeCount) {
+        this.userId = userId;
+        this.postCount = postCount;
+        this.followerCount = followerCount;
+        this.followingCount = followingCount;
+        this.likeCount = likeCount;
+        this.recipeCount = recipeCount;
+    }
+}
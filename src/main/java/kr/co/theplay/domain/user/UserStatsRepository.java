@@ -0,0 +1,61 @@
+package kr.co.theplay.domain.user;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+// 증감 쿼리는 호출한 트랜잭션 안에서 실행, row 가 아직 없는 유저는 건너뛴다 (조회 시 count 로 계산)
+public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
+
+    @Modifying
+    @Query("update UserStats s set s.postCount = s.postCount + :delta where s.userId in :userIds")
+    int addPostCount(@Param("userIds") Collection<Long> userIds, @Param("delta") long delta);
+
+    @Modifying
+    @Query("update UserStats s set s.followerCount = s.followerCount + :delta where s.userId in :userIds")
+    int addFollowerCount(@Param("userIds") Collection<Long> userIds, @Param("delta") long delta);
+
+    @Modifying
+    @Query("update UserStats s set s.followingCount = s.followingCount + :delta where s.userId in :userIds")
+    int addFollowingCount(@Param("userIds") Collection<Long> userIds, @Param("delta") long delta);
+
+    @Modifying
+    @Query("update UserStats s set s.likeCount = s.likeCount + :delta where s.userId in :userIds")
+    int addLikeCount(@Param("userIds") Collection<Long> userIds, @Param("delta") long delta);
+
+    @Modifying
+    @Query("update UserStats s set s.recipeCount = s.recipeCount + :delta where s.userId in :userIds")
+    int addRecipeCount(@Param("userIds") Collection<Long> userIds, @Param("delta") long delta);
+
+    // row 가 없는 유저를 원본 테이블 기준으로 채운다
+    @Transactional
+    @Modifying
+    @Query(value = "insert ignore into user_stats (user_id, post_count, follower_count, following_count, like_count, recipe_count) " +
+            "select u.id, " +
+            "(select count(*) from post p where p.user_id = u.id), " +
+            "(select count(*) from follow f where f.user_follow_id = u.id), " +
+            "(select count(*) from follow f where f.user_id = u.id), " +
+            "(select count(*) from post_like pl where pl.user_id = u.id), " +
+            "(select count(*) from user_recipe ur where ur.user_id = u.id) " +
+            "from user u where not exists (select 1 from user_stats s where s.user_id = u.id)", nativeQuery = true)
+    int insertMissing();
+
+    // 어긋난 값 보정
+    @Transactional
+    @Modifying
+    @Query(value = "update user_stats s " +
+            "left join (select user_id, count(*) as cnt from post group by user_id) p on p.user_id = s.user_id " +
+            "left join (select user_follow_id, count(*) as cnt from follow group by user_follow_id) fr on fr.user_follow_id = s.user_id " +
+            "left join (select user_id, count(*) as cnt from follow group by user_id) fg on fg.user_id = s.user_id " +
+            "left join (select user_id, count(*) as cnt from post_like group by user_id) l on l.user_id = s.user_id " +
+            "left join (select user_id, count(*) as cnt from user_recipe group by user_id) r on r.user_id = s.user_id " +
+            "set s.post_count = coalesce(p.cnt, 0), s.follower_count = coalesce(fr.cnt, 0), s.following_count = coalesce(fg.cnt, 0), " +
+            "s.like_count = coalesce(l.cnt, 0), s.recipe_count = coalesce(r.cnt, 0) " +
+            "where s.post_count <> coalesce(p.cnt, 0) or s.follower_count <> coalesce(fr.cnt, 0) or s.following_count <> coalesce(fg.cnt, 0) " +
+            "or s.like_count <> coalesce(l.cnt, 0) or s.recipe_count <> coalesce(r.cnt, 0)", nativeQuery = true)
+    int reconcile();
+}
@@ -0,0 +1,23 @@
+package kr.co.theplay.dto.firebase;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// FCM 메시지 하나의 발송 결과, 성공이면 name (FCM 메시지 아이디), 실패면 status (HTTP 코드, 연결 실패는 0) 와 error
+@Getter
+@AllArgsConstructor
+public class FcmSendResult {
+
+    private boolean success;
+    private int status;
+    private String name;
+    private String error;
+
+    public static FcmSendResult success(String name) {
+        return new FcmSendResult(true, 200, name, null);
+    }
+
+    public static FcmSendResult failure(int status, String error) {
+        return new FcmSendResult(false, status, null, error);
+    }
+}
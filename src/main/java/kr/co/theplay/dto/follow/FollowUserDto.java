@@ -15,9 +15,17 @@ public class FollowUserDto {
     @ApiModelProperty(value = "닉네임", dataType = "String", required = true, example = "우아한보드카")
     private String nickname;
 
+    @ApiModelProperty(value = "로그인한 회원이 팔로우 하는지 여부", dataType = "String", required = true, example = "Y")
+    private String followingYn;
+
+    @ApiModelProperty(value = "로그인한 회원을 팔로우 하는지 여부 (둘 다 Y 면 맞팔로우)", dataType = "String", required = true, example = "N")
+    private String followerYn;
+
     @Builder
-    public FollowUserDto(Long id, String nickname){
+    public FollowUserDto(Long id, String nickname, String followingYn, String followerYn){
         this.id = id;
         this.nickname = nickname;
+        this.followingYn = followingYn;
+        this.followerYn = followerYn;
     }
 }
@@ -0,0 +1,29 @@
+package kr.co.theplay.dto.notice;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@NoArgsConstructor
+public class AlarmCursorResDto {
+
+    @ApiModelProperty(value = "알림 목록", dataType = "List", required = true)
+    private List<AlarmResDto> alarms;
+
+    @ApiModelProperty(value = "다음 페이지 커서 (다음 페이지가 없으면 null)", dataType = "String", required = false, example = "MjAyMS0wNS0wMVQxMjowMDowMCwxMjM")
+    private String nextCursor;
+
+    @ApiModelProperty(value = "다음 페이지 존재 여부", dataType = "String", required = true, example = "Y")
+    private String hasNextYn;
+
+    @Builder
+    public AlarmCursorResDto(List<AlarmResDto> alarms, String nextCursor, String hasNextYn) {
+        this.alarms = alarms;
+        this.nextCursor = nextCursor;
+        this.hasNextYn = hasNextYn;
+    }
+}
@@ -21,12 +21,20 @@ public class AlarmResDto {
     @ApiModelProperty(value = "종류", dataType = "String", required = true, example = "comment/like/follow")
     private String type;
 
+    @ApiModelProperty(value = "게시글 아이디 (좋아요/댓글 알림)", dataType = "Long", required = false, example = "1")
+    private Long postId;
+
+    @ApiModelProperty(value = "묶인 알림 수 (OO님 외 N명)", dataType = "Integer", required = true, example = "1")
+    private Integer actorCount;
+
     @Builder
-    public AlarmResDto(Long id, String content, String readYn, String type) {
+    public AlarmResDto(Long id, String content, String readYn, String type, Long postId, Integer actorCount) {
         this.id = id;
         this.content = content;
         this.readYn = readYn;
         this.type = type;
+        this.postId = postId;
+        this.actorCount = actorCount;
     }
 
     public Alarm toEntity() {
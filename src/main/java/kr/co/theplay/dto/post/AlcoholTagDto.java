@@ -34,9 +34,9 @@ public class AlcoholTagDto {
         this.recipeYn = recipeYn;
     }
 
+    // 새 태그 (아이디는 저장할 때 발급, 요청의 id 로 merge 되지 않도록 넣지 않는다)
     public AlcoholTag toEntity() {
         return AlcoholTag.builder()
-                .id(id)
                 .iconKind(IconKind.enumOf(iconName))
                 .name(name)
                 .color(color)
@@ -0,0 +1,23 @@
+package kr.co.theplay.dto.post;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+public class ImageUploadReqDto {
+
+    @ApiModelProperty(value = "이미지 content type", dataType = "String", required = true, example = "image/jpeg")
+    private String contentType;
+
+    @ApiModelProperty(value = "이미지 크기 (byte)", dataType = "Long", required = true, example = "1048576")
+    private Long size;
+
+    @Builder
+    public ImageUploadReqDto(String contentType, Long size) {
+        this.contentType = contentType;
+        this.size = size;
+    }
+}
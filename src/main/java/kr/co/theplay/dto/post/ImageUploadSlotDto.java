@@ -0,0 +1,34 @@
+package kr.co.theplay.dto.post;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Getter
+@NoArgsConstructor
+public class ImageUploadSlotDto {
+
+    @ApiModelProperty(value = "업로드할 이미지 key (게시글 작성 시 imageKeys 로 넘긴다)", dataType = "String", required = true, example = "upload/1/3f1c...jpg")
+    private String key;
+
+    @ApiModelProperty(value = "PUT 으로 이미지를 올릴 presigned URL", dataType = "String", required = true, example = "https://bucket.s3...")
+    private String uploadUrl;
+
+    @ApiModelProperty(value = "PUT 요청에 그대로 붙여야 하는 헤더", dataType = "Map", required = true)
+    private Map<String, String> headers;
+
+    @ApiModelProperty(value = "presigned URL 만료 시각", dataType = "LocalDateTime", required = true)
+    private LocalDateTime expiresAt;
+
+    @Builder
+    public ImageUploadSlotDto(String key, String uploadUrl, Map<String, String> headers, LocalDateTime expiresAt) {
+        this.key = key;
+        this.uploadUrl = uploadUrl;
+        this.headers = headers;
+        this.expiresAt = expiresAt;
+    }
+}
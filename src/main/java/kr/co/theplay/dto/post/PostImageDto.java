@@ -17,14 +17,24 @@ public class PostImageDto {
     @ApiModelProperty(value = "이미지경로", dataType = "String", required = true, example = "https://cloud~~")
     private String filePath;
 
+    @ApiModelProperty(value = "썸네일 이미지경로 (목록용, 아직 없으면 원본)", dataType = "String", required = true, example = "https://cloud~~")
+    private String thumbnailPath;
+
+    @ApiModelProperty(value = "중간 크기 이미지경로 (피드용, 아직 없으면 원본)", dataType = "String", required = true, example = "https://cloud~~")
+    private String mediumPath;
+
     @Builder
-    public PostImageDto(Integer number, String filePath){
+    public PostImageDto(Integer number, String filePath, String thumbnailPath, String mediumPath){
         this.number = number;
         this.filePath = filePath;
+        this.thumbnailPath = thumbnailPath;
+        this.mediumPath = mediumPath;
     }
 
     public PostImageDto(PostImage postImage){
         this.number = postImage.getNumber();
         this.filePath =  "https://" + S3Service.CLOUD_FRONT_DOMAIN_NAME + "/" + postImage.getFilePath();
+        this.thumbnailPath = "https://" + S3Service.CLOUD_FRONT_DOMAIN_NAME + "/" + postImage.getThumbnailOrOriginalPath();
+        this.mediumPath = "https://" + S3Service.CLOUD_FRONT_DOMAIN_NAME + "/" + postImage.getMediumOrOriginalPath();
     }
 }
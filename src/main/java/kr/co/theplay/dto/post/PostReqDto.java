@@ -27,14 +27,18 @@ public class PostReqDto {
     @ApiModelProperty(value = "레시피 단계들", dataType = "List", required = true)
     private List<RecipeStepDto> steps;
 
+    @ApiModelProperty(value = "직접 업로드한 이미지 key 들 (순서 = 이미지 순서)", dataType = "List", required = false)
+    private List<String> imageKeys;
+
     @Builder
     public PostReqDto(String content, String haveRecipeYn, List<AlcoholTagDto> alcoholTags, List<RecipeIngredientDto> ingredients,
-                      List<RecipeStepDto> steps){
+                      List<RecipeStepDto> steps, List<String> imageKeys){
         this.content = content;
         this.haveRecipeYn = haveRecipeYn;
         this.alcoholTags = alcoholTags;
         this.ingredients = ingredients;
         this.steps = steps;
+        this.imageKeys = imageKeys;
     }
 
     public Post toEntity(){
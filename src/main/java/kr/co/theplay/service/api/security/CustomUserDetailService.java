@@ -11,10 +11,14 @@ import org.springframework.stereotype.Service;
 @Service
 public class CustomUserDetailService implements UserDetailsService {
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
+    // 회원 엔티티 대신 캐시된 UserPrincipal 을 돌려준다 (캐시에 없을 때만 회원 조회)
     @Override
     public UserDetails loadUserByUsername(String userId) {
-        return userRepository.findById(Long.valueOf(userId)).orElseThrow(() -> new UsernameNotFoundException("사용자가 존재하지 않습니다."));
+        return principalCache.getPrincipal(Long.valueOf(userId), id -> userRepository.findById(id)
+                .map(UserPrincipal::of)
+                .orElseThrow(() -> new UsernameNotFoundException("사용자가 존재하지 않습니다.")));
     }
 
     /*@Override
@@ -0,0 +1,86 @@
+package kr.co.theplay.service.api.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static kr.co.theplay.common.TransactionCallbacks.afterCommit;
+
+/*
+인증 캐시
+- 토큰 -> 회원 아이디 : 서명 검증이 끝난 토큰, 토큰 만료 시각과 token-ttl 중 빠른 시각에 만료
+- 회원 아이디 -> UserPrincipal : 비밀번호, 닉네임 변경 시 evict
+ */
+@Component
+public class PrincipalCache {
+
+    private final Cache<String, VerifiedToken> tokens;
+    private final Cache<Long, UserPrincipal> principals;
+
+    public PrincipalCache(@Value("${security.principal-cache.maximum-size:10000}") long maximumSize,
+                          @Value("${security.principal-cache.token-ttl-minutes:10}") long tokenTtlMinutes,
+                          @Value("${security.principal-cache.principal-ttl-minutes:5}") long principalTtlMinutes) {
+        long tokenTtlNanos = TimeUnit.MINUTES.toNanos(tokenTtlMinutes);
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                        long untilExpiration = TimeUnit.MILLISECONDS.toNanos(verified.getExpiresAt() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(tokenTtlNanos, untilExpiration));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+                        return expireAfterCreate(token, verified, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(principalTtlMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    // 검증된 토큰이면 회원 아이디, 아니면 null
+    public String getVerifiedUserId(String token) {
+        VerifiedToken verified = tokens.getIfPresent(token);
+        if (verified == null || verified.getExpiresAt() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return verified.getUserId();
+    }
+
+    public void putVerifiedToken(String token, String userId, Date expiration) {
+        tokens.put(token, new VerifiedToken(userId, expiration.getTime()));
+    }
+
+    public UserPrincipal getPrincipal(Long userId, Function<Long, UserPrincipal> loader) {
+        return principals.get(userId, loader);
+    }
+
+    // 회원 정보 변경 트랜잭션이 커밋된 뒤에 evict (커밋 전에 다시 읽어서 옛 정보가 캐시되지 않도록)
+    public void evict(Long userId) {
+        afterCommit(() -> principals.invalidate(userId));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class VerifiedToken {
+        private final String userId;
+        private final long expiresAt;
+    }
+}
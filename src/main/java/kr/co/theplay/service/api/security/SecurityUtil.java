@@ -0,0 +1,24 @@
+package kr.co.theplay.service.api.security;
+
+import kr.co.theplay.service.api.advice.exception.CommonConflictException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/*
+SecurityContext 에서 로그인한 회원 꺼내기
+JwtTokenProvider 가 넣어둔 UserPrincipal (아이디, 이메일, 닉네임) 을 그대로 돌려주므로 회원 조회 쿼리가 없다.
+ */
+public class SecurityUtil {
+
+    private SecurityUtil() {
+    }
+
+    // 로그인하지 않은 경우 (anonymousUser) accessException
+    public static UserPrincipal getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserPrincipal)) {
+            throw new CommonConflictException("accessException");
+        }
+        return (UserPrincipal) authentication.getPrincipal();
+    }
+}
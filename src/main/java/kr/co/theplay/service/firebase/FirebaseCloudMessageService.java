@@ -1,56 +1,216 @@
 package kr.co.theplay.service.firebase;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.auth.oauth2.AccessToken;
 import com.google.auth.oauth2.GoogleCredentials;
 import kr.co.theplay.dto.firebase.FcmMessage;
-import lombok.RequiredArgsConstructor;
+import kr.co.theplay.dto.firebase.FcmSendResult;
+import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 import org.apache.http.HttpHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import javax.print.attribute.standard.Media;
-import java.io.FileInputStream;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+/*
+FCM HTTP v1 발송
+- OkHttpClient 는 하나만 만들어 커넥션 풀을 같이 쓴다.
+- access token 은 GoogleCredentials 에 캐시해 두고, 만료 refresh-before-expiry-seconds 전부터 스케줄러가 미리 갱신한다.
+  (발송 스레드는 만료된 경우에만 직접 갱신)
+- sendAll 은 메시지를 비동기로 보내되 동시에 max-in-flight 개까지만 보내고, 메시지마다 결과를 돌려준다.
+api-url, key-location 을 바꾸면 로컬 HTTP stub 으로 보낼 수 있다.
+ */
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class FirebaseCloudMessageService {
 
     private static final String MESSAGING_SCOPE = "https://www.googleapis.com/auth/firebase.messaging";
     private static final String[] SCOPES = { MESSAGING_SCOPE };
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
 
-    private final String API_URL = "https://fcm.googleapis.com/v1/projects/today-alcohol/messages:send";
     private final ObjectMapper objectMapper;
+    private final Resource keyLocation;
+    private final String apiUrl;
+    private final int maxInFlight;
+    private final long refreshBeforeExpiryMillis;
+    private final OkHttpClient client;
 
-    private String getAccessToken() throws IOException {
+    private volatile GoogleCredentials credentials;
+
+    public FirebaseCloudMessageService(ObjectMapper objectMapper,
+                                       @Value("${firebase.key-location:classpath:firebase/today-alcohol-firebase-key.json}") Resource keyLocation,
+                                       @Value("${firebase.api-url:https://fcm.googleapis.com/v1/projects/today-alcohol/messages:send}") String apiUrl,
+                                       @Value("${firebase.max-in-flight:64}") int maxInFlight,
+                                       @Value("${firebase.max-idle-connections:8}") int maxIdleConnections,
+                                       @Value("${firebase.timeout-ms:10000}") long timeoutMillis,
+                                       @Value("${firebase.refresh-before-expiry-seconds:300}") long refreshBeforeExpirySeconds) {
+        this.objectMapper = objectMapper;
+        this.keyLocation = keyLocation;
+        this.apiUrl = apiUrl;
+        this.maxInFlight = maxInFlight;
+        this.refreshBeforeExpiryMillis = TimeUnit.SECONDS.toMillis(refreshBeforeExpirySeconds);
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxInFlight);
+        dispatcher.setMaxRequestsPerHost(maxInFlight);
+        this.client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(maxIdleConnections, 5, TimeUnit.MINUTES))
+                .connectTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .readTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .writeTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
 
-        String firebaseConfigPath = "firebase/today-alcohol-firebase-key.json";
-        GoogleCredentials googleCredentials = GoogleCredentials
-                .fromStream(new FileInputStream(firebaseConfigPath))
-                .createScoped(Arrays.asList(SCOPES));
-        googleCredentials.refreshIfExpired();
-        return googleCredentials.getAccessToken().getTokenValue();
+    public FcmSendResult sendMessageTo(String targetToken, String title, String body) throws IOException {
+        Request request = newRequest(makeMessage(targetToken, title, body), getAccessToken());
+        try (Response response = client.newCall(request).execute()) {
+            return toResult(response);
+        }
     }
 
-    public void sendMessageTo(String targetToken, String title, String body) throws IOException{
+    /*
+    여러 메시지를 동시에 max-in-flight 개까지 보내고, 모두 끝날 때까지 기다린다.
+    결과는 messages 와 같은 순서
+     */
+    public List<FcmSendResult> sendAll(List<FcmMessage> messages) {
+        FcmSendResult[] results = new FcmSendResult[messages.size()];
+        if (messages.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String accessToken;
+        try {
+            accessToken = getAccessToken();
+        } catch (IOException e) {
+            log.warn("fcm access token refresh failed : {}", e.getMessage());
+            return Collections.nCopies(messages.size(), FcmSendResult.failure(0, e.getMessage()));
+        }
 
-        String message = makeMessage(targetToken, title, body);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        CountDownLatch done = new CountDownLatch(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            int index = i;
+            Request request;
+            try {
+                request = newRequest(objectMapper.writeValueAsString(messages.get(i)), accessToken);
+            } catch (JsonProcessingException e) {
+                results[index] = FcmSendResult.failure(0, e.getMessage());
+                done.countDown();
+                continue;
+            }
+
+            inFlight.acquireUninterruptibly();
+            client.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try (Response r = response) {
+                        results[index] = toResult(r);
+                    } catch (IOException e) {
+                        results[index] = FcmSendResult.failure(response.code(), e.getMessage());
+                    } finally {
+                        inFlight.release();
+                        done.countDown();
+                    }
+                }
+
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    results[index] = FcmSendResult.failure(0, e.getMessage());
+                    inFlight.release();
+                    done.countDown();
+                }
+            });
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Arrays.asList(results);
+    }
+
+    // 만료가 가까운 토큰을 발송 스레드 밖에서 미리 갱신
+    @Scheduled(fixedDelayString = "${firebase.refresh-check-interval-ms:60000}")
+    public void refreshAccessToken() {
+        if (credentials == null) {
+            return;
+        }
+        try {
+            if (isExpiringSoon(credentials.getAccessToken())) {
+                credentials.refresh();
+            }
+        } catch (IOException e) {
+            log.warn("fcm access token refresh failed : {}", e.getMessage());
+        }
+    }
 
-        OkHttpClient client = new OkHttpClient();
-        RequestBody requestBody = RequestBody.create(message, MediaType.get("application/json; charset=utf-8"));
-        Request request = new Request.Builder()
-                .url(API_URL)
-                .post(requestBody)
-                .addHeader(HttpHeaders.AUTHORIZATION, "Bearer "+getAccessToken())
+    @PreDestroy
+    public void shutdown() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    private String getAccessToken() throws IOException {
+        GoogleCredentials current = loadCredentials();
+        AccessToken token = current.getAccessToken();
+        if (token == null || token.getExpirationTime() == null || token.getExpirationTime().getTime() <= System.currentTimeMillis()) {
+            current.refreshIfExpired();
+            token = current.getAccessToken();
+        }
+        return token.getTokenValue();
+    }
+
+    // 키 파일은 처음 보낼 때 한번만 읽는다
+    private GoogleCredentials loadCredentials() throws IOException {
+        GoogleCredentials current = credentials;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (credentials == null) {
+                try (InputStream in = keyLocation.getInputStream()) {
+                    credentials = GoogleCredentials.fromStream(in).createScoped(Arrays.asList(SCOPES));
+                }
+            }
+            return credentials;
+        }
+    }
+
+    private boolean isExpiringSoon(AccessToken token) {
+        return token == null || token.getExpirationTime() == null
+                || token.getExpirationTime().getTime() - System.currentTimeMillis() <= refreshBeforeExpiryMillis;
+    }
+
+    private Request newRequest(String message, String accessToken) {
+        return new Request.Builder()
+                .url(apiUrl)
+                .post(RequestBody.create(message, JSON))
+                .addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
                 .addHeader(HttpHeaders.CONTENT_TYPE, "application/json; UTF-8")
                 .build();
+    }
 
-        Response response = client.newCall(request)
-                .execute();
-
-        System.out.println(response.body().string());
+    private FcmSendResult toResult(Response response) throws IOException {
+        String body = response.body() == null ? "" : response.body().string();
+        if (!response.isSuccessful()) {
+            log.warn("fcm send failed : {} {}", response.code(), body);
+            return FcmSendResult.failure(response.code(), body);
+        }
+        JsonNode name = objectMapper.readTree(body).get("name");
+        return FcmSendResult.success(name == null ? null : name.asText());
     }
 
     private String makeMessage(String targetToken, String title, String body) throws JsonProcessingException {
@@ -0,0 +1,82 @@
+package kr.co.theplay.service.follow;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kr.co.theplay.common.ExpireAfterLoad;
+import kr.co.theplay.domain.follow.BlockRepository;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static kr.co.theplay.common.TransactionCallbacks.afterCommit;
+
+/*
+유저별 차단 관계 캐시 (내가 차단한 유저 + 나를 차단한 유저)
+피드, 댓글을 조립할 때 작성자가 이 안에 있으면 보여주지 않는다. 쿼리마다 not exists 를 붙이지 않고 조회 후 걸러낸다.
+차단은 커밋 이후 캐시에 올라와 있는 두 유저에게 바로 반영한다.
+다른 서버에서 일어난 차단은 expire-after-load 뒤에 반영된다. (ExpireAfterLoad, 차단이므로 짧게)
+ */
+@Component
+public class BlockCache {
+
+    private final BlockRepository blockRepository;
+    private final Cache<Long, Roaring64NavigableMap> cache;
+
+    public BlockCache(BlockRepository blockRepository,
+                      @Value("${block-cache.maximum-size:10000}") long maximumSize,
+                      @Value("${block-cache.expire-after-load-seconds:60}") long expireAfterLoadSeconds) {
+        this.blockRepository = blockRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireAfterLoad<Long, Roaring64NavigableMap>(expireAfterLoadSeconds, TimeUnit.SECONDS))
+                .build();
+    }
+
+    // 둘 중 한쪽이라도 차단했다면 true
+    public boolean isHidden(Long viewerId, Long userId) {
+        if (viewerId.equals(userId)) {
+            return false;
+        }
+        Roaring64NavigableMap hidden = cache.get(viewerId, this::load);
+        synchronized (hidden) {
+            return hidden.contains(userId);
+        }
+    }
+
+    // 쿼리에서 직접 빼야 할 때 (대표 댓글 등)
+    public List<Long> getHiddenIds(Long viewerId) {
+        Roaring64NavigableMap hidden = cache.get(viewerId, this::load);
+        List<Long> ids = new ArrayList<>();
+        synchronized (hidden) {
+            hidden.forEach(ids::add);
+        }
+        return ids;
+    }
+
+    public void block(Long userId, Long blockedId) {
+        afterCommit(() -> {
+            add(userId, blockedId);
+            add(blockedId, userId);
+        });
+    }
+
+    private void add(Long userId, Long hiddenId) {
+        cache.asMap().computeIfPresent(userId, (id, hidden) -> {
+            synchronized (hidden) {
+                hidden.addLong(hiddenId);
+            }
+            return hidden;
+        });
+    }
+
+    private Roaring64NavigableMap load(Long userId) {
+        Roaring64NavigableMap hidden = new Roaring64NavigableMap();
+        blockRepository.findBlockedIdsByUserId(userId).forEach(hidden::addLong);
+        blockRepository.findBlockerIdsByUserId(userId).forEach(hidden::addLong);
+        return hidden;
+    }
+}
@@ -0,0 +1,160 @@
+package kr.co.theplay.service.follow;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kr.co.theplay.common.ExpireAfterLoad;
+import kr.co.theplay.domain.follow.FollowRepository;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static kr.co.theplay.common.TransactionCallbacks.afterCommit;
+
+/*
+유저별 팔로잉 / 팔로워 아이디 캐시 (압축 비트맵, long 그대로 저장)
+처음 조회할 때 아이디 목록을 한번 읽어 올려두고, 팔로우 / 언팔로우는 커밋 이후 캐시에 올라와 있는 유저만 바로 반영한다.
+팔로우 여부, 맞팔로우 / 나를 팔로우 뱃지, 팔로잉 / 팔로워 목록 (아이디 순 페이지) 을 DB 없이 확인한다.
+캐시 크기는 유저 수가 아니라 담고 있는 아이디 수 (maximum-weight) 로 제한한다.
+다른 서버에서 일어난 팔로우 / 언팔로우는 expire-after-load 뒤에 반영된다. (ExpireAfterLoad)
+ */
+@Component
+public class FollowGraph {
+
+    private final FollowRepository followRepository;
+    private final Cache<Long, Adjacency> cache;
+
+    public FollowGraph(FollowRepository followRepository,
+                       @Value("${follow-graph.maximum-weight:5000000}") long maximumWeight,
+                       @Value("${follow-graph.expire-after-load-minutes:5}") long expireAfterLoadMinutes) {
+        this.followRepository = followRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((Long userId, Adjacency adjacency) -> adjacency.weight())
+                .expireAfter(new ExpireAfterLoad<Long, Adjacency>(expireAfterLoadMinutes, TimeUnit.MINUTES))
+                .build();
+    }
+
+    // userId 가 targetId 를 팔로우 하고 있는지
+    public boolean isFollowing(Long userId, Long targetId) {
+        return get(userId).isFollowing(targetId);
+    }
+
+    // followerId 가 userId 를 팔로우 하고 있는지 (userId 쪽 캐시로 확인, "나를 팔로우" 뱃지)
+    public boolean isFollowedBy(Long userId, Long followerId) {
+        return get(userId).isFollower(followerId);
+    }
+
+    public long getFollowingCount(Long userId) {
+        return get(userId).followingCount();
+    }
+
+    public long getFollowerCount(Long userId) {
+        return get(userId).followerCount();
+    }
+
+    // 아이디 순으로 offset 부터 limit 개
+    public List<Long> getFollowingIds(Long userId, long offset, int limit) {
+        return get(userId).followingIds(offset, limit);
+    }
+
+    public List<Long> getFollowerIds(Long userId, long offset, int limit) {
+        return get(userId).followerIds(offset, limit);
+    }
+
+    public void follow(Long followerId, Long followingId) {
+        afterCommit(() -> {
+            update(followerId, adjacency -> adjacency.setFollowing(followingId, true));
+            update(followingId, adjacency -> adjacency.setFollower(followerId, true));
+        });
+    }
+
+    public void unfollow(Long followerId, Long followingId) {
+        afterCommit(() -> {
+            update(followerId, adjacency -> adjacency.setFollowing(followingId, false));
+            update(followingId, adjacency -> adjacency.setFollower(followerId, false));
+        });
+    }
+
+    private Adjacency get(Long userId) {
+        return cache.get(userId, this::load);
+    }
+
+    private void update(Long userId, Consumer<Adjacency> change) {
+        cache.asMap().computeIfPresent(userId, (id, adjacency) -> {
+            change.accept(adjacency);
+            return adjacency;
+        });
+    }
+
+    private Adjacency load(Long userId) {
+        Adjacency adjacency = new Adjacency();
+        followRepository.findFollowingIdsByUserId(userId).forEach(id -> adjacency.setFollowing(id, true));
+        followRepository.findFollowerIdsByUserId(userId).forEach(id -> adjacency.setFollower(id, true));
+        return adjacency;
+    }
+
+    static class Adjacency {
+
+        private final Roaring64NavigableMap followingIds = new Roaring64NavigableMap();
+        private final Roaring64NavigableMap followerIds = new Roaring64NavigableMap();
+
+        synchronized boolean isFollowing(Long targetId) {
+            return followingIds.contains(targetId);
+        }
+
+        synchronized boolean isFollower(Long followerId) {
+            return followerIds.contains(followerId);
+        }
+
+        synchronized long followingCount() {
+            return followingIds.getLongCardinality();
+        }
+
+        synchronized long followerCount() {
+            return followerIds.getLongCardinality();
+        }
+
+        synchronized List<Long> followingIds(long offset, int limit) {
+            return slice(followingIds, offset, limit);
+        }
+
+        synchronized List<Long> followerIds(long offset, int limit) {
+            return slice(followerIds, offset, limit);
+        }
+
+        synchronized void setFollowing(Long targetId, boolean following) {
+            if (following) {
+                followingIds.addLong(targetId);
+            } else {
+                followingIds.removeLong(targetId);
+            }
+        }
+
+        synchronized void setFollower(Long followerId, boolean follower) {
+            if (follower) {
+                followerIds.addLong(followerId);
+            } else {
+                followerIds.removeLong(followerId);
+            }
+        }
+
+        synchronized int weight() {
+            return (int) Math.min(Integer.MAX_VALUE, 1 + followingIds.getLongCardinality() + followerIds.getLongCardinality());
+        }
+
+        private static List<Long> slice(Roaring64NavigableMap ids, long offset, int limit) {
+            List<Long> result = new ArrayList<>();
+            long end = Math.min(ids.getLongCardinality(), offset + Math.max(limit, 0));
+            // select 는 앞에서부터 순회하지 않고 n 번째 아이디를 바로 찾는다
+            for (long i = Math.max(offset, 0); i < end; i++) {
+                result.add(ids.select(i));
+            }
+            return result;
+        }
+    }
+}
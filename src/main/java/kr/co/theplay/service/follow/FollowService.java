@@ -4,8 +4,6 @@ import kr.co.theplay.domain.follow.Block;
 import kr.co.theplay.domain.follow.BlockRepository;
 import kr.co.theplay.domain.follow.Follow;
 import kr.co.theplay.domain.follow.FollowRepository;
-import kr.co.theplay.domain.notice.Alarm;
-import kr.co.theplay.domain.notice.AlarmRepository;
 import kr.co.theplay.domain.user.User;
 import kr.co.theplay.domain.user.UserRepository;
 import kr.co.theplay.dto.firebase.FcmMessage;
@@ -14,9 +12,16 @@ import kr.co.theplay.dto.follow.FollowUserDto;
 import kr.co.theplay.service.api.advice.exception.CommonBadRequestException;
 import kr.co.theplay.service.api.advice.exception.CommonConflictException;
 import kr.co.theplay.service.api.advice.exception.CommonNotFoundException;
+import kr.co.theplay.service.api.security.UserPrincipal;
 import kr.co.theplay.service.api.common.ResponseService;
-import kr.co.theplay.service.firebase.FirebaseCloudMessageService;
+import kr.co.theplay.service.notice.NotificationDispatcher;
+import kr.co.theplay.service.timeline.TimelineService;
+import kr.co.theplay.service.user.UserStatsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -24,6 +29,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
@@ -34,15 +42,18 @@ public class FollowService {
     private final UserRepository userRepository;
     private final FollowRepository followRepository;
     private final BlockRepository blockRepository;
-    private final AlarmRepository alarmRepository;
+    private final NotificationDispatcher notificationDispatcher;
     private final ResponseService responseService;
 
-    private final FirebaseCloudMessageService fcmService;
+    private final TimelineService timelineService;
+    private final UserStatsService userStatsService;
+    private final FollowGraph followGraph;
+    private final BlockCache blockCache;
 
     @Transactional
-    public void followUser(String email, Long userId) {
+    public void followUser(UserPrincipal principal, Long userId) {
 
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
         if (userId == user.getId()) {
             //본인을 팔로우하려는 경우
             throw new CommonNotFoundException("followedUserNotFound");
@@ -56,106 +67,133 @@ public class FollowService {
 
         Follow follow = Follow.builder().user(user).userFollow(followedUser).build();
         followRepository.save(follow);
+        userStatsService.changeFollow(user.getId(), followedUser.getId(), 1);
+        followGraph.follow(user.getId(), followedUser.getId());
 
-        uploadFollowingAlarm(user, followedUser);
+        // 팔로우한 유저의 게시글을 타임라인에 채워 넣는다
+        timelineService.backfillAfterCommit(user.getId(), followedUser.getId());
+
+        uploadFollowingAlarm(user, followedUser, follow);
     }
 
-    public List<FollowUserDto> getFollowings(String email) {
+    public List<FollowUserDto> getFollowings(UserPrincipal principal) {
+        return toFollowUserDtos(principal, followGraph.getFollowingIds(principal.getId(), 0, Integer.MAX_VALUE));
+    }
 
-        List<Follow> follows = followRepository.findFollowingsByUser(email);
+    public List<FollowUserDto> getFollowers(UserPrincipal principal) {
+        return toFollowUserDtos(principal, followGraph.getFollowerIds(principal.getId(), 0, Integer.MAX_VALUE));
+    }
+
+    public List<FollowUserDto> getOtherUserFollower(UserPrincipal principal, Long userId) {
+        User user = findVisibleUser(userId);
+        return toFollowUserDtos(principal, followGraph.getFollowerIds(user.getId(), 0, Integer.MAX_VALUE));
+    }
 
-        List<FollowUserDto> followUserDtos = new ArrayList<>();
-        follows.forEach(f -> followUserDtos.add(
-                FollowUserDto.builder().id(f.getUserFollow().getId()).nickname(f.getUserFollow().getNickname()).build()
-        ));
+    // 팔로잉 / 팔로워 목록 페이지 (회원 아이디 순)
+    public Page<FollowUserDto> getFollowings(UserPrincipal principal, int number, int size) {
+        Pageable pageable = PageRequest.of(number, size);
+        List<Long> ids = followGraph.getFollowingIds(principal.getId(), pageable.getOffset(), size);
+        return new PageImpl<>(toFollowUserDtos(principal, ids), pageable, followGraph.getFollowingCount(principal.getId()));
+    }
 
-        return followUserDtos;
+    public Page<FollowUserDto> getFollowers(UserPrincipal principal, int number, int size) {
+        Pageable pageable = PageRequest.of(number, size);
+        List<Long> ids = followGraph.getFollowerIds(principal.getId(), pageable.getOffset(), size);
+        return new PageImpl<>(toFollowUserDtos(principal, ids), pageable, followGraph.getFollowerCount(principal.getId()));
     }
 
-    public List<FollowUserDto> getFollowers(String email) {
-        List<Follow> follows = followRepository.findFollowersByUser(email);
-        List<FollowUserDto> followUserDtos = new ArrayList<>();
-        follows.forEach(f -> followUserDtos.add(
-                FollowUserDto.builder()
-                        .id(f.getUser().getId())
-                        .nickname(f.getUser().getNickname())
-                        .build()
-        ));
-        return followUserDtos;
+    public Page<FollowUserDto> getOtherUserFollower(UserPrincipal principal, Long userId, int number, int size) {
+        User user = findVisibleUser(userId);
+        Pageable pageable = PageRequest.of(number, size);
+        List<Long> ids = followGraph.getFollowerIds(user.getId(), pageable.getOffset(), size);
+        return new PageImpl<>(toFollowUserDtos(principal, ids), pageable, followGraph.getFollowerCount(user.getId()));
     }
 
-    public List<FollowUserDto> getOtherUserFollower(Long userId) {
+    private User findVisibleUser(Long userId) {
         User user = userRepository.findById(userId).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
 
         if (user.getPrivacyYn().equals("Y")) {
             throw new CommonBadRequestException("userPrivacyInvaded");
         }
-        List<Follow> follows = followRepository.findFollowersByUser(user.getEmail());
-        List<FollowUserDto> followUserDtos = new ArrayList<>();
-        follows.forEach(f -> followUserDtos.add(
-                FollowUserDto.builder()
-                        .id(f.getUser().getId())
-                        .nickname(f.getUser().getNickname())
-                        .build()
-        ));
-        return followUserDtos;
+        return user;
+    }
+
+    // 닉네임은 해당 페이지 회원만 한번에 조회, 팔로우 / 맞팔로우 여부는 로그인한 회원의 FollowGraph 로 확인
+    private List<FollowUserDto> toFollowUserDtos(UserPrincipal principal, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, User> users = userRepository.findAllById(ids).stream().collect(Collectors.toMap(User::getId, Function.identity()));
+        Long viewerId = principal.getId();
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(u -> FollowUserDto.builder()
+                        .id(u.getId())
+                        .nickname(u.getNickname())
+                        .followingYn(followGraph.isFollowing(viewerId, u.getId()) ? "Y" : "N")
+                        .followerYn(followGraph.isFollowedBy(viewerId, u.getId()) ? "Y" : "N")
+                        .build())
+                .collect(Collectors.toList());
     }
 
     @Transactional
-    public void deleteFollower(String email, Long id) {
-        // email은 로그인 한 사용자꺼, id 삭제하고자 하는 유저
+    public void deleteFollower(UserPrincipal principal, Long id) {
+        // principal은 로그인 한 사용자꺼, id 삭제하고자 하는 유저
 
         // 취소하고자 하는 유저가 존재하지 않을경우
         User user = userRepository.findById(id).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
-        Follow follow = followRepository.findFollowerById(email, id);
+        Follow follow = followRepository.findFollowerById(principal.getId(), id);
 
         // 나를 팔로잉 하고 있지 않은 회원일 경우
         if (follow == null) {
             throw new CommonNotFoundException("followerUserNotFound");
         }
 
+        // 나를 팔로우하던 유저의 타임라인에서 내 게시글 제거
+        timelineService.prune(follow.getUser().getId(), follow.getUserFollow().getId());
+        userStatsService.changeFollow(follow.getUser().getId(), follow.getUserFollow().getId(), -1);
+        followGraph.unfollow(follow.getUser().getId(), follow.getUserFollow().getId());
         followRepository.delete(follow);
     }
 
     @Transactional
-    public void deleteFollowing(String email, Long id) {
+    public void deleteFollowing(UserPrincipal principal, Long id) {
         User user = userRepository.findById(id).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
-        Follow follow = followRepository.findFollowingById(email, id);
+        Follow follow = followRepository.findFollowingById(principal.getId(), id);
 
         if (follow == null) {
             throw new CommonNotFoundException("followingUserNotFound");
         }
 
+        timelineService.prune(follow.getUser().getId(), follow.getUserFollow().getId());
+        userStatsService.changeFollow(follow.getUser().getId(), follow.getUserFollow().getId(), -1);
+        followGraph.unfollow(follow.getUser().getId(), follow.getUserFollow().getId());
         followRepository.delete(follow);
     }
 
     @Transactional
-    public void blockFollower(String email, Long id) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+    public void blockFollower(UserPrincipal principal, Long id) {
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
         User userBlock = userRepository.findById(id).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
-        if (blockRepository.findByUserAndUserBlock(user, userBlock).isPresent()) {
+        if (blockRepository.existsByUserIdAndUserBlockId(user.getId(), userBlock.getId())) {
             throw new CommonConflictException("blockConflict");
         }
 
         Block block = Block.builder().user(user).userBlock(userBlock).build();
         blockRepository.save(block);
-        deleteFollower(user.getEmail(), userBlock.getId());
+        blockCache.block(user.getId(), userBlock.getId());
+        deleteFollower(principal, userBlock.getId());
     }
 
-    @Transactional
-    public void uploadFollowingAlarm(User user, User followedUser) {
-        Alarm alarm = Alarm.builder()
-                .content(
-                        followedUser.getNickname() + "님이 회원님을 팔로잉 합니다."
-                ).user(followedUser).userSend(user).readYn("N").type("follow").build();
-        alarmRepository.save(alarm);
-        
-        //새 알람 존재 여부 변경
-        user.changeNewAlarmYn("Y");
+    // 알림은 이벤트만 쌓고 NotificationDispatcher 가 alarm 으로 옮긴다
+    private void uploadFollowingAlarm(User user, User followedUser, Follow follow) {
+        notificationDispatcher.enqueue("follow:" + follow.getId(), "follow",
+                followedUser.getId(), user.getId(), user.getNickname(), null, null);
     }
 
-    public List<BlockedUserDto> getBlockedUsers(String email) {
-        List<Block> blocks = blockRepository.findAllByEmail(email);
+    public List<BlockedUserDto> getBlockedUsers(UserPrincipal principal) {
+        List<Block> blocks = blockRepository.findAllByUserId(principal.getId());
         List<BlockedUserDto> dtos = blocks.stream().map(
                 b -> BlockedUserDto.builder().blocked_user_name(b.getUserBlock().getNickname()).build()
         ).collect(Collectors.toList());
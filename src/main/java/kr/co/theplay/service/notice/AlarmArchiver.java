@@ -0,0 +1,63 @@
+package kr.co.theplay.service.notice;
+
+import kr.co.theplay.domain.notice.AlarmActorRepository;
+import kr.co.theplay.domain.notice.AlarmRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+알림 보관 정책
+마지막으로 올라온 때 (sortedAt) 부터 retention-days 가 지난 알림을 alarm_archive 로 옮기고 alarm 에서 지운다.
+archive-batch-size 개씩 나눠서 옮기므로 한 트랜잭션이 길어지지 않는다.
+ */
+@Slf4j
+@Component
+public class AlarmArchiver {
+
+    private final AlarmRepository alarmRepository;
+    private final AlarmActorRepository alarmActorRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final long retentionDays;
+    private final int batchSize;
+
+    public AlarmArchiver(AlarmRepository alarmRepository,
+                         AlarmActorRepository alarmActorRepository,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${alarm.retention-days:90}") long retentionDays,
+                         @Value("${alarm.archive-batch-size:1000}") int batchSize) {
+        this.alarmRepository = alarmRepository;
+        this.alarmActorRepository = alarmActorRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${alarm.archive-cron:0 30 4 * * *}")
+    public void archive() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        int archived = 0;
+        List<Long> ids;
+        do {
+            ids = alarmRepository.findIdsSortedBefore(before, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Long> chunk = ids;
+            transactionTemplate.executeWithoutResult(status -> {
+                alarmRepository.archiveByIds(chunk, LocalDateTime.now());
+                alarmRepository.deleteByIds(chunk);
+                alarmActorRepository.deleteByAlarmIds(chunk);
+            });
+            archived += ids.size();
+        } while (ids.size() == batchSize);
+        log.info("alarm archive : {} rows older than {}", archived, before);
+    }
+}
@@ -0,0 +1,51 @@
+package kr.co.theplay.service.notice;
+
+/*
+알림 문구
+others 가 있으면 "OO님 외 N명이 ..." 로 묶어서 보여준다.
+reply (대댓글) 이벤트는 alarm 에는 comment 로 저장한다.
+ */
+final class AlarmContents {
+
+    static final String LIKE = "like";
+    static final String COMMENT = "comment";
+    static final String REPLY = "reply";
+    static final String FOLLOW = "follow";
+
+    private static final int DETAIL_LENGTH = 100;
+
+    private AlarmContents() {
+    }
+
+    static String alarmType(String eventType) {
+        return REPLY.equals(eventType) ? COMMENT : eventType;
+    }
+
+    // 같은 게시글끼리 묶는 알림 (좋아요, 게시글 댓글)
+    static boolean isCoalescible(String eventType) {
+        return LIKE.equals(eventType) || COMMENT.equals(eventType);
+    }
+
+    static String detail(String content) {
+        if (content == null || content.length() <= DETAIL_LENGTH) {
+            return content;
+        }
+        return content.substring(0, DETAIL_LENGTH) + "...";
+    }
+
+    static String format(String eventType, String nickname, int others, String detail) {
+        String actor = others > 0 ? nickname + "님 외 " + others + "명이" : nickname + "님이";
+        switch (eventType) {
+            case LIKE:
+                return actor + " 회원님의 게시글에 좋아요를 눌렀습니다.";
+            case COMMENT:
+                return actor + " 회원님의 게시글에 댓글을 남겼습니다. '" + detail + "'";
+            case REPLY:
+                return actor + " 회원님의 댓글에 댓글을 남겼습니다. '" + detail + "'";
+            case FOLLOW:
+                return actor + " 회원님을 팔로잉 합니다.";
+            default:
+                throw new IllegalArgumentException("unknown notification type : " + eventType);
+        }
+    }
+}
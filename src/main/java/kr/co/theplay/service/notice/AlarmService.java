@@ -4,15 +4,20 @@ import kr.co.theplay.domain.notice.Alarm;
 import kr.co.theplay.domain.notice.AlarmRepository;
 import kr.co.theplay.domain.user.User;
 import kr.co.theplay.domain.user.UserRepository;
+import kr.co.theplay.dto.notice.AlarmCursorResDto;
 import kr.co.theplay.dto.notice.AlarmResDto;
 import kr.co.theplay.service.api.advice.exception.CommonBadRequestException;
 import kr.co.theplay.service.api.advice.exception.CommonNotFoundException;
+import kr.co.theplay.service.api.security.UserPrincipal;
+import kr.co.theplay.service.post.CursorPageSize;
+import kr.co.theplay.service.post.FeedCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
@@ -20,35 +25,50 @@ import java.util.List;
 public class AlarmService {
     private final UserRepository userRepository;
     private final AlarmRepository alarmRepository;
+    private final CursorPageSize cursorPageSize;
 
     @Transactional
-    public List<AlarmResDto> getAlarms(String email) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
-        List<Alarm> alarm = alarmRepository.findByUserOrderByCreatedDateDesc(user);
-        List<AlarmResDto> alarmResDtos = new ArrayList<>();
-        alarm.forEach(a -> alarmResDtos.add(
-                AlarmResDto.builder().id(a.getId()).content(a.getContent()).readYn(a.getReadYn()).type(a.getType()).build()
-        ));
+    public List<AlarmResDto> getAlarms(UserPrincipal principal) {
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+        List<Alarm> alarm = alarmRepository.findByUserOrderBySortedAtDescIdDesc(user);
+        List<AlarmResDto> alarmResDtos = alarm.stream().map(this::toDto).collect(Collectors.toList());
 
         // 만약 읽지 않은 알림들이 있다면 다 읽은걸로
-        for (int i = 0; i < alarm.size(); i++) {
-            if (alarm.get(i).getReadYn().equals("N")) {
-                alarm.get(i).changeReadYn("Y");
-                alarmRepository.save(alarm.get(i));
-            }
-        }
-        //모두 확인했다면 사용자의 new-alarm-yn을 N으로 변경
-        user.changeNewAlarmYn("N");
+        markAllRead(user, alarm.isEmpty() ? null : alarm.get(0));
 
         return alarmResDtos;
     }
 
     @Transactional
-    public AlarmResDto getSingleAlarm(String email, Long alarmId) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+    public AlarmCursorResDto getAlarmsByCursor(UserPrincipal principal, String cursor, int size) {
+        int pageSize = cursorPageSize.check(size);
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+        // 알림은 (sortedAt, id) 순, 커서의 createdDate 자리에 sortedAt 을 담는다
+        FeedCursor feedCursor = FeedCursor.decode(cursor);
+        List<Alarm> alarms = alarmRepository.findByUserIdAfter(user.getId(), feedCursor.getCreatedDate(), feedCursor.getId(), PageRequest.of(0, pageSize + 1));
+
+        boolean hasNext = alarms.size() > pageSize;
+        List<Alarm> page = hasNext ? alarms.subList(0, pageSize) : alarms;
+        String nextCursor = hasNext ? FeedCursor.of(page.get(page.size() - 1).getSortedAt(), page.get(page.size() - 1).getId()).encode() : null;
+        List<AlarmResDto> alarmResDtos = page.stream().map(this::toDto).collect(Collectors.toList());
+
+        // 첫 페이지를 열면 기존 목록 조회처럼 받은 알림을 모두 읽음 처리
+        if (cursor == null || cursor.isEmpty()) {
+            markAllRead(user, alarms.isEmpty() ? null : alarms.get(0));
+        }
+
+        return AlarmCursorResDto.builder()
+                .alarms(alarmResDtos)
+                .nextCursor(nextCursor)
+                .hasNextYn(hasNext ? "Y" : "N")
+                .build();
+    }
+
+    @Transactional
+    public AlarmResDto getSingleAlarm(UserPrincipal principal, Long alarmId) {
         Alarm alarm = alarmRepository.findById(alarmId).orElseThrow(() -> new CommonNotFoundException("alarmNotFound"));
 
-        if (alarm.getUser().getId() != user.getId()) {
+        if (!alarm.getUser().getId().equals(principal.getId())) {
             throw new CommonBadRequestException("alarmNotAllowd"); // 허용되지 않는 알림에 접근할 때
         }
 
@@ -56,7 +76,19 @@ public class AlarmService {
             alarm.changeReadYn("Y");
             alarmRepository.save(alarm);
         }
-        AlarmResDto alarmResDto = AlarmResDto.builder().id(alarm.getId()).content(alarm.getContent()).readYn(alarm.getReadYn()).type(alarm.getType()).build();
-        return alarmResDto;
+        return toDto(alarm);
+    }
+
+    // 알림 row 를 하나씩 저장하지 않고 update 한번으로 읽음 처리, 그 뒤 새 알림 여부를 N 으로 (top : 이번에 내려준 목록의 맨 위 알림)
+    private void markAllRead(User user, Alarm top) {
+        if (top != null) {
+            alarmRepository.markReadUpTo(user.getId(), top.getSortedAt(), top.getId());
+        }
+        user.changeNewAlarmYn("N");
+    }
+
+    private AlarmResDto toDto(Alarm alarm) {
+        return AlarmResDto.builder().id(alarm.getId()).content(alarm.getContent()).readYn(alarm.getReadYn()).type(alarm.getType())
+                .postId(alarm.getPostId()).actorCount(alarm.getActorCountOrOne()).build();
     }
 }
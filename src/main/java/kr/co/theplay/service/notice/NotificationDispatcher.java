@@ -0,0 +1,217 @@
+package kr.co.theplay.service.notice;
+
+import kr.co.theplay.common.OutboxRetry;
+import kr.co.theplay.domain.notice.Alarm;
+import kr.co.theplay.domain.notice.AlarmActorRepository;
+import kr.co.theplay.domain.notice.AlarmRepository;
+import kr.co.theplay.domain.notice.NotificationEvent;
+import kr.co.theplay.domain.notice.NotificationEventRepository;
+import kr.co.theplay.domain.notice.NotificationEventStatus;
+import kr.co.theplay.domain.user.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static kr.co.theplay.common.TransactionCallbacks.afterCommit;
+
+/*
+알림 발송 (좋아요, 댓글, 팔로우)
+enqueue 는 호출한 트랜잭션 안에서 notification_event row 만 쌓고, 커밋 이후 drain 을 깨운다.
+drain 은 notificationExecutor (스레드 1개, 대기 1개) 에서만 돌기 때문에 요청이 몰려도 한번에 batch-size 개씩 모아 처리하고,
+넘치는 깨우기는 버려진다. (남은 이벤트는 스케줄 sweep 에서 처리)
+- 한 트랜잭션에서 이벤트를 잠그고 alarm 저장, 수신자 new_alarm_yn 변경, 이벤트 삭제
+  (먼저 처리한 서버가 지운 이벤트는 잠글 때 빠지므로 alarm 이 두 번 생기지 않는다)
+- 좋아요 / 게시글 댓글은 (수신자, 종류, 게시글) 로 묶어서, coalesce-window-minutes 안에 갱신된 읽지 않은 알림이 있으면
+  새로 만들지 않고 "OO님 외 N명이 ..." 로 갱신한다. 인기 게시글에 좋아요가 몰려도 알림은 하나만 남는다.
+  N 은 이벤트 수가 아니라 서로 다른 보낸 사람 수 (alarm_actor), 묶일 때마다 목록 정렬 시각 (sortedAt) 을 올린다.
+- 실패하면 이벤트 하나씩 다시 시도하고, 그래도 실패한 이벤트는 지수 백오프 후 재시도, max-attempts 를 넘기면 DEAD
+ */
+@Slf4j
+@Component
+public class NotificationDispatcher {
+
+
+    private final NotificationEventRepository notificationEventRepository;
+    private final AlarmRepository alarmRepository;
+    private final AlarmActorRepository alarmActorRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor notificationExecutor;
+
+    private final int batchSize;
+    private final OutboxRetry retry;
+    private final long coalesceWindowMinutes;
+
+    public NotificationDispatcher(NotificationEventRepository notificationEventRepository,
+                                  AlarmRepository alarmRepository,
+                                  AlarmActorRepository alarmActorRepository,
+                                  UserRepository userRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  @Qualifier("notificationExecutor") TaskExecutor notificationExecutor,
+                                  @Value("${notification.batch-size:500}") int batchSize,
+                                  @Value("${notification.max-attempts:8}") int maxAttempts,
+                                  @Value("${notification.backoff-base-seconds:10}") long backoffBaseSeconds,
+                                  @Value("${notification.coalesce-window-minutes:60}") long coalesceWindowMinutes) {
+        this.notificationEventRepository = notificationEventRepository;
+        this.alarmRepository = alarmRepository;
+        this.alarmActorRepository = alarmActorRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.notificationExecutor = notificationExecutor;
+        this.batchSize = batchSize;
+        this.retry = new OutboxRetry(maxAttempts, backoffBaseSeconds);
+        this.coalesceWindowMinutes = coalesceWindowMinutes;
+    }
+
+    /*
+    idempotencyKey 는 이벤트를 만든 row 기준으로 (like:{postLikeId} 등), 본인에게 보내는 알림은 쌓지 않는다
+    type : like, comment (게시글 댓글), reply (대댓글), follow
+    postId : 좋아요 / 댓글이 달린 게시글, detail : 댓글 내용
+     */
+    public void enqueue(String idempotencyKey, String type, Long recipientId, Long senderId, String senderNickname,
+                        Long postId, String detail) {
+        if (recipientId.equals(senderId)) {
+            return;
+        }
+        notificationEventRepository.append(idempotencyKey, type, recipientId, senderId, senderNickname, postId,
+                AlarmContents.detail(detail), LocalDateTime.now());
+        afterCommit(() -> notificationExecutor.execute(this::drain));
+    }
+
+    @Scheduled(fixedDelayString = "${notification.sweep-interval-ms:5000}")
+    public void sweep() {
+        notificationExecutor.execute(this::drain);
+    }
+
+    private void drain() {
+        List<NotificationEvent> due;
+        do {
+            due = notificationEventRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize));
+            if (!due.isEmpty()) {
+                dispatch(due);
+            }
+        } while (due.size() == batchSize);
+    }
+
+    private void dispatch(List<NotificationEvent> events) {
+        try {
+            dispatchInTransaction(events);
+        } catch (RuntimeException e) {
+            if (events.size() == 1) {
+                markFailed(events.get(0), e.getMessage());
+                return;
+            }
+            // 어떤 이벤트 때문에 실패했는지 모르므로 하나씩 다시 시도
+            log.warn("notification batch dispatch failed, retry one by one : {}", e.getMessage());
+            events.forEach(event -> dispatch(Collections.singletonList(event)));
+        }
+    }
+
+    private void dispatchInTransaction(List<NotificationEvent> events) {
+        List<Long> eventIds = events.stream().map(NotificationEvent::getId).collect(Collectors.toList());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<NotificationEvent> locked = notificationEventRepository.lockByIds(eventIds);
+            if (locked.isEmpty()) {
+                return;
+            }
+
+            // 탈퇴한 유저가 보내거나 받는 이벤트는 버린다
+            Set<Long> userIds = new HashSet<>();
+            locked.forEach(e -> {
+                userIds.add(e.getRecipientId());
+                userIds.add(e.getSenderId());
+            });
+            Set<Long> existingIds = new HashSet<>(userRepository.findExistingIds(userIds));
+
+            // 묶을 수 있는 이벤트는 (수신자, 종류, 게시글) 끼리, 나머지는 하나씩
+            Map<String, List<NotificationEvent>> groups = new LinkedHashMap<>();
+            for (NotificationEvent event : locked) {
+                if (!existingIds.contains(event.getRecipientId()) || !existingIds.contains(event.getSenderId())) {
+                    continue;
+                }
+                String groupKey = groupKey(event);
+                String key = groupKey == null ? "event:" + event.getId() : event.getRecipientId() + ":" + groupKey;
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(event);
+            }
+
+            LocalDateTime since = LocalDateTime.now().minusMinutes(coalesceWindowMinutes);
+            Map<Alarm, List<Long>> created = new LinkedHashMap<>();
+            Set<Long> recipientIds = new HashSet<>();
+            for (List<NotificationEvent> group : groups.values()) {
+                NotificationEvent latest = group.get(group.size() - 1);
+                String groupKey = groupKey(latest);
+                recipientIds.add(latest.getRecipientId());
+                List<Long> senderIds = group.stream().map(NotificationEvent::getSenderId).distinct().collect(Collectors.toList());
+
+                Optional<Alarm> unread = groupKey == null ? Optional.empty()
+                        : alarmRepository.findFirstByUserIdAndGroupKeyAndReadYnAndLastModifiedDateAfterOrderBySortedAtDesc(
+                                latest.getRecipientId(), groupKey, "N", since);
+                if (unread.isPresent()) {
+                    Alarm alarm = unread.get();
+                    int added = senderIds.stream().mapToInt(senderId -> alarmActorRepository.add(alarm.getId(), senderId)).sum();
+                    int others = alarm.getActorCountOrOne() + added - 1;
+                    alarm.coalesce(userRepository.getOne(latest.getSenderId()),
+                            AlarmContents.format(latest.getType(), latest.getSenderNickname(), others, latest.getDetail()),
+                            added);
+                } else {
+                    created.put(Alarm.builder()
+                            .user(userRepository.getOne(latest.getRecipientId()))
+                            .userSend(userRepository.getOne(latest.getSenderId()))
+                            .type(AlarmContents.alarmType(latest.getType()))
+                            .content(AlarmContents.format(latest.getType(), latest.getSenderNickname(), senderIds.size() - 1, latest.getDetail()))
+                            .readYn("N")
+                            .eventKey(group.get(0).getIdempotencyKey())
+                            .postId(latest.getPostId())
+                            .groupKey(groupKey)
+                            .actorCount(senderIds.size())
+                            .build(), senderIds);
+                }
+            }
+
+            alarmRepository.saveAll(created.keySet());
+            // 나중에 묶일 수 있는 알림만 보낸 사람을 남긴다
+            created.forEach((alarm, senderIds) -> {
+                if (alarm.getGroupKey() != null) {
+                    senderIds.forEach(senderId -> alarmActorRepository.add(alarm.getId(), senderId));
+                }
+            });
+            if (!recipientIds.isEmpty()) {
+                userRepository.markNewAlarm(recipientIds);
+            }
+            notificationEventRepository.deleteByIds(locked.stream().map(NotificationEvent::getId).collect(Collectors.toList()));
+        });
+    }
+
+    private String groupKey(NotificationEvent event) {
+        if (event.getPostId() == null || !AlarmContents.isCoalescible(event.getType())) {
+            return null;
+        }
+        return event.getType() + ":" + event.getPostId();
+    }
+
+    private void markFailed(NotificationEvent event, String error) {
+        int attempts = event.getAttempts() + 1;
+        NotificationEventStatus status = retry.isDead(attempts) ? NotificationEventStatus.DEAD : NotificationEventStatus.PENDING;
+        String lastError = retry.lastError(error);
+
+        try {
+            notificationEventRepository.markFailed(event.getId(), status, retry.nextAttemptAt(attempts), lastError);
+        } catch (RuntimeException e) {
+            log.warn("notification event {} mark failed error : {}", event.getId(), e.getMessage());
+            return;
+        }
+        if (status == NotificationEventStatus.DEAD) {
+            log.error("notification event dead : {} ({})", event.getIdempotencyKey(), lastError);
+        }
+    }
+}
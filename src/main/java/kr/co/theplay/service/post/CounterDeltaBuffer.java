@@ -0,0 +1,72 @@
+package kr.co.theplay.service.post;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+아이디별 카운터 증감값을 메모리에 모아두는 버퍼.
+락 하나에 모든 요청이 몰리지 않도록 아이디 해시로 stripe 를 나눠서 각 stripe 만 잠근다.
+drain() 은 stripe 의 map 을 통째로 새 map 으로 바꿔치기 하므로 flush 중에도 add 는 막히지 않는다.
+ */
+public class CounterDeltaBuffer {
+
+    private final Stripe[] stripes;
+
+    public CounterDeltaBuffer(int stripeCount) {
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void add(Long id, long delta) {
+        if (delta != 0) {
+            stripeOf(id).add(id, delta);
+        }
+    }
+
+    // 아직 DB에 반영되지 않은 증감값
+    public long pending(Long id) {
+        return stripeOf(id).get(id);
+    }
+
+    public Map<Long, Long> drain() {
+        Map<Long, Long> drained = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            drained.putAll(stripe.drain());
+        }
+        return drained;
+    }
+
+    // flush 실패 시 꺼냈던 증감값을 되돌려 놓는다
+    public void restore(Map<Long, Long> deltas) {
+        deltas.forEach(this::add);
+    }
+
+    private Stripe stripeOf(Long id) {
+        int h = id.hashCode();
+        h ^= (h >>> 16);
+        return stripes[(h & 0x7fffffff) % stripes.length];
+    }
+
+    private static class Stripe {
+        private Map<Long, Long> deltas = new HashMap<>();
+
+        synchronized void add(Long id, long delta) {
+            Long merged = deltas.merge(id, delta, Long::sum);
+            if (merged == 0) {
+                deltas.remove(id);
+            }
+        }
+
+        synchronized long get(Long id) {
+            return deltas.getOrDefault(id, 0L);
+        }
+
+        synchronized Map<Long, Long> drain() {
+            Map<Long, Long> drained = deltas;
+            deltas = new HashMap<>();
+            return drained;
+        }
+    }
+}
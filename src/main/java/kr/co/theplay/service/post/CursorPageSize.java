@@ -0,0 +1,26 @@
+package kr.co.theplay.service.post;
+
+import kr.co.theplay.service.api.advice.exception.CommonBadRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+커서 방식 목록 (피드, 알림) 의 한 페이지 크기
+0 이하는 invalidPageRequest, max-size 보다 크면 max-size 로 줄인다. (한 요청으로 목록 전체를 읽지 못하게)
+ */
+@Component
+public class CursorPageSize {
+
+    private final int maxSize;
+
+    public CursorPageSize(@Value("${cursor-page.max-size:50}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int check(int size) {
+        if (size <= 0) {
+            throw new CommonBadRequestException("invalidPageRequest");
+        }
+        return Math.min(size, maxSize);
+    }
+}
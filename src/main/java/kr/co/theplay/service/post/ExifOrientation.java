@@ -0,0 +1,134 @@
+package kr.co.theplay.service.post;
+
+import java.awt.geom.AffineTransform;
+import java.nio.charset.StandardCharsets;
+
+/*
+JPEG EXIF 의 Orientation (0x0112) 값 읽기
+ImageIO 는 EXIF 회전을 적용하지 않으므로 리사이즈할 때 직접 돌린다. (APP1 의 IFD0 만 본다)
+1 : 그대로, 2 : 좌우 반전, 3 : 180도, 4 : 상하 반전, 5 : 대각 반전, 6 : 시계 방향 90도, 7 : 반대 대각 반전, 8 : 반시계 방향 90도
+ */
+final class ExifOrientation {
+
+    static final int NORMAL = 1;
+
+    private static final int TAG_ORIENTATION = 0x0112;
+    private static final byte[] EXIF_HEADER = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+
+    private ExifOrientation() {
+    }
+
+    // JPEG 가 아니거나 값이 없으면 NORMAL
+    static int read(byte[] jpeg) {
+        if (jpeg.length < 4 || (jpeg[0] & 0xFF) != 0xFF || (jpeg[1] & 0xFF) != 0xD8) {
+            return NORMAL;
+        }
+        int offset = 2;
+        while (offset + 4 <= jpeg.length) {
+            if ((jpeg[offset] & 0xFF) != 0xFF) {
+                return NORMAL;
+            }
+            int marker = jpeg[offset + 1] & 0xFF;
+            if (marker == 0xFF) {
+                // 채움 바이트
+                offset++;
+                continue;
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                // EOI, SOS 이후에는 메타데이터가 없다
+                return NORMAL;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                offset += 2;
+                continue;
+            }
+            int length = readUnsignedShort(jpeg, offset + 2, false);
+            if (length < 2 || offset + 2 + length > jpeg.length) {
+                return NORMAL;
+            }
+            if (marker == 0xE1 && startsWith(jpeg, offset + 4, EXIF_HEADER)) {
+                return readTiff(jpeg, offset + 4 + EXIF_HEADER.length, offset + 2 + length);
+            }
+            offset += 2 + length;
+        }
+        return NORMAL;
+    }
+
+    // 저장된 픽셀 좌표 -> 화면에 보이는 방향 좌표
+    static AffineTransform transform(int orientation, int width, int height) {
+        switch (orientation) {
+            case 2:
+                return new AffineTransform(-1, 0, 0, 1, width, 0);
+            case 3:
+                return new AffineTransform(-1, 0, 0, -1, width, height);
+            case 4:
+                return new AffineTransform(1, 0, 0, -1, 0, height);
+            case 5:
+                return new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6:
+                return new AffineTransform(0, 1, -1, 0, height, 0);
+            case 7:
+                return new AffineTransform(0, -1, -1, 0, height, width);
+            case 8:
+                return new AffineTransform(0, -1, 1, 0, 0, width);
+            default:
+                return new AffineTransform();
+        }
+    }
+
+    private static int readTiff(byte[] data, int tiff, int end) {
+        if (tiff + 8 > end) {
+            return NORMAL;
+        }
+        boolean littleEndian;
+        if (data[tiff] == 'I' && data[tiff + 1] == 'I') {
+            littleEndian = true;
+        } else if (data[tiff] == 'M' && data[tiff + 1] == 'M') {
+            littleEndian = false;
+        } else {
+            return NORMAL;
+        }
+        long ifdOffset = readInt(data, tiff + 4, littleEndian) & 0xFFFFFFFFL;
+        int ifd = tiff + (int) Math.min(ifdOffset, end);
+        if (ifd + 2 > end) {
+            return NORMAL;
+        }
+        int entries = readUnsignedShort(data, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                return NORMAL;
+            }
+            if (readUnsignedShort(data, entry, littleEndian) == TAG_ORIENTATION) {
+                // SHORT 1개, 값 영역의 앞 2바이트
+                int value = readUnsignedShort(data, entry + 8, littleEndian);
+                return value >= 1 && value <= 8 ? value : NORMAL;
+            }
+        }
+        return NORMAL;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, byte[] prefix) {
+        if (offset + prefix.length > data.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readUnsignedShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static int readInt(byte[] data, int offset, boolean littleEndian) {
+        int high = readUnsignedShort(data, offset, littleEndian);
+        int low = readUnsignedShort(data, offset + 2, littleEndian);
+        return littleEndian ? (low << 16) | high : (high << 16) | low;
+    }
+}
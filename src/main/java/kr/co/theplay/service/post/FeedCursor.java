@@ -0,0 +1,64 @@
+package kr.co.theplay.service.post;
+
+import kr.co.theplay.domain.post.Post;
+import kr.co.theplay.service.api.advice.exception.CommonBadRequestException;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/*
+피드 커서 (createdDate, id).
+정렬 기준이 createdDate desc, id desc 이므로 (createdDate, id) 보다 작은 게시글부터 이어서 조회한다.
+클라이언트에는 "createdDate,id" 를 Base64(URL safe) 로 감싼 문자열로 내려준다.
+ */
+@Getter
+public class FeedCursor {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    // 첫 페이지 : 모든 게시글보다 뒤에 있는 가상의 위치
+    private static final FeedCursor FIRST = new FeedCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+
+    private final LocalDateTime createdDate;
+    private final Long id;
+
+    private FeedCursor(LocalDateTime createdDate, Long id) {
+        this.createdDate = createdDate;
+        this.id = id;
+    }
+
+    public static FeedCursor of(Post post) {
+        return new FeedCursor(post.getCreatedDate(), post.getId());
+    }
+
+    // 게시글이 아닌 목록 (알림 등) 도 같은 (createdDate, id) 정렬이면 그대로 쓴다
+    public static FeedCursor of(LocalDateTime createdDate, Long id) {
+        return new FeedCursor(createdDate, id);
+    }
+
+    // 커서가 없으면 첫 페이지
+    public static FeedCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(",");
+            if (parts.length != 2) {
+                throw new CommonBadRequestException("invalidCursor");
+            }
+            return new FeedCursor(LocalDateTime.parse(parts[0], FORMATTER), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new CommonBadRequestException("invalidCursor");
+        }
+    }
+
+    public String encode() {
+        String raw = createdDate.format(FORMATTER) + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
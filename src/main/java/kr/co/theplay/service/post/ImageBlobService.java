@@ -0,0 +1,63 @@
+package kr.co.theplay.service.post;
+
+import kr.co.theplay.domain.post.ImageBlob;
+import kr.co.theplay.domain.post.ImageBlobRepository;
+import kr.co.theplay.domain.post.PostImage;
+import kr.co.theplay.service.api.advice.exception.CommonBadRequestException;
+import kr.co.theplay.service.api.advice.exception.CommonNotFoundException;
+import kr.co.theplay.service.storage.StorageDeletionQueue;
+import kr.co.theplay.service.zzz.S3Service;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ImageBlob 참조 수 관리. 호출한 트랜잭션 안에서 실행된다.
+마지막 참조가 삭제되면 S3 원본과 리사이즈 이미지를 삭제 대기열 (StorageDeletionQueue) 에 넣는다.
+row 를 새로 만든 경우에는 (업로드할 때 확인한 blob 이 그 사이 지워졌을 수 있으므로) S3 에 원본이 있는지 HEAD 로 다시 확인한다.
+삭제 대기열은 hash 를 잠근 채로 지우므로 insert 는 삭제가 끝난 뒤에 실행되고, 여기서 없는 원본을 잡아낸다.
+ */
+@RequiredArgsConstructor
+@Component
+public class ImageBlobService {
+
+    private final ImageBlobRepository imageBlobRepository;
+    private final StorageDeletionQueue storageDeletionQueue;
+    private final S3Service s3Service;
+
+    public ImageBlob acquire(String hash, String key) {
+        boolean inserted = imageBlobRepository.acquire(hash, key) == 1;
+        if (inserted && s3Service.headObject(key) == null) {
+            // 트랜잭션이 롤백되고 blob 이 없으니 다시 시도하면 새로 올린다
+            throw new CommonBadRequestException("imageUploadFailed");
+        }
+        return imageBlobRepository.findByHash(hash).orElseThrow(() -> new CommonNotFoundException("imageNotFound"));
+    }
+
+    public void release(PostImage postImage) {
+        ImageBlob imageBlob = postImage.getImageBlob();
+        if (imageBlob == null) {
+            // 내용 기준 저장 이전에 올린 이미지는 게시글과 같이 지운다
+            storageDeletionQueue.enqueue(objectKeysOf(postImage), null);
+            return;
+        }
+
+        imageBlobRepository.release(imageBlob.getId());
+        if (imageBlobRepository.deleteIfUnreferenced(imageBlob.getId()) > 0) {
+            storageDeletionQueue.enqueue(objectKeysOf(postImage), imageBlob.getHash());
+        }
+    }
+
+    private List<String> objectKeysOf(PostImage postImage) {
+        List<String> keys = new ArrayList<>();
+        keys.add(postImage.getFilePath());
+        // 리사이즈 이미지 (만들지 못한 경우 원본 key 가 들어있다)
+        if (postImage.getThumbnailPath() != null && !postImage.getThumbnailPath().equals(postImage.getFilePath())) {
+            keys.add(postImage.getThumbnailPath());
+            keys.add(postImage.getMediumPath());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,191 @@
+package kr.co.theplay.service.post;
+
+import kr.co.theplay.domain.post.PostImage;
+import kr.co.theplay.domain.post.PostImageRepository;
+import kr.co.theplay.service.zzz.S3Service;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static kr.co.theplay.common.TransactionCallbacks.afterCommit;
+
+/*
+게시글 이미지 리사이즈 (썸네일, 중간 크기)
+커밋 이후 imageRenditionExecutor 에서 원본을 S3 에서 읽어 고정 너비 JPEG 로 다시 인코딩하고 key 를 PostImage 에 저장한다.
+다시 인코딩할 때 메타데이터를 쓰지 않으므로 EXIF (위치 정보 등) 는 남지 않는다. 대신 EXIF 회전 값은 픽셀에 미리 적용한다.
+원본보다 작게만 줄이고, 읽을 수 없거나 max-pixels 를 넘는 이미지는 원본 key 를 그대로 저장해서 다시 시도하지 않는다.
+(디코딩 전에 헤더의 가로, 세로만 먼저 읽어서 확인한다)
+누락된 이미지는 sweep 에서 다시 만든다.
+ */
+@Slf4j
+@Component
+public class ImageRenditionService {
+
+    private static final String CONTENT_TYPE = "image/jpeg";
+
+    private final PostImageRepository postImageRepository;
+    private final S3Service s3Service;
+    private final TaskExecutor imageRenditionExecutor;
+
+    private final int thumbnailWidth;
+    private final int mediumWidth;
+    private final float quality;
+    private final long maxPixels;
+    private final int sweepBatchSize;
+
+    public ImageRenditionService(PostImageRepository postImageRepository,
+                                 S3Service s3Service,
+                                 @Qualifier("imageRenditionExecutor") TaskExecutor imageRenditionExecutor,
+                                 @Value("${image-rendition.thumbnail-width:320}") int thumbnailWidth,
+                                 @Value("${image-rendition.medium-width:1080}") int mediumWidth,
+                                 @Value("${image-rendition.quality:0.8}") float quality,
+                                 @Value("${image-rendition.max-pixels:25000000}") long maxPixels,
+                                 @Value("${image-rendition.sweep-batch-size:50}") int sweepBatchSize) {
+        this.postImageRepository = postImageRepository;
+        this.s3Service = s3Service;
+        this.imageRenditionExecutor = imageRenditionExecutor;
+        this.thumbnailWidth = thumbnailWidth;
+        this.mediumWidth = mediumWidth;
+        this.quality = quality;
+        this.maxPixels = maxPixels;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    public void renderAfterCommit(Long postId) {
+        afterCommit(() -> imageRenditionExecutor.execute(() ->
+                postImageRepository.findIdsByPostId(postId).forEach(this::render)));
+    }
+
+    @Scheduled(fixedDelayString = "${image-rendition.sweep-interval-ms:300000}")
+    public void sweep() {
+        List<Long> ids = postImageRepository.findIdsWithoutRenditions(LocalDateTime.now().minusMinutes(5), PageRequest.of(0, sweepBatchSize));
+        ids.forEach(id -> imageRenditionExecutor.execute(() -> render(id)));
+    }
+
+    private void render(Long postImageId) {
+        try {
+            Optional<PostImage> found = postImageRepository.findById(postImageId);
+            if (!found.isPresent() || found.get().getThumbnailPath() != null) {
+                return;
+            }
+            String key = found.get().getFilePath();
+
+            // 같은 원본 (ImageBlob) 으로 이미 만들어둔 리사이즈 이미지가 있으면 그대로 쓴다
+            Optional<PostImage> rendered = postImageRepository.findFirstByFilePathAndThumbnailPathIsNotNull(key);
+            if (rendered.isPresent()) {
+                postImageRepository.changeRenditions(postImageId, rendered.get().getThumbnailPath(), rendered.get().getMediumPath());
+                return;
+            }
+
+            // 원본은 최대 5MB (S3Service.MAXIMUM_FILE_SIZE), EXIF 와 픽셀을 따로 읽으려고 메모리에 올린다
+            byte[] bytes;
+            try (InputStream inputStream = s3Service.openObject(key)) {
+                bytes = StreamUtils.copyToByteArray(inputStream);
+            }
+            BufferedImage original = decode(bytes);
+            if (original == null) {
+                // 지원하지 않는 형식이거나 너무 큰 이미지, 원본을 그대로 쓴다
+                postImageRepository.changeRenditions(postImageId, key, key);
+                return;
+            }
+            int orientation = ExifOrientation.read(bytes);
+
+            String thumbnailKey = key + "-w" + thumbnailWidth + ".jpg";
+            String mediumKey = key + "-w" + mediumWidth + ".jpg";
+            s3Service.putObject(thumbnailKey, encode(resize(original, orientation, thumbnailWidth)), CONTENT_TYPE);
+            s3Service.putObject(mediumKey, encode(resize(original, orientation, mediumWidth)), CONTENT_TYPE);
+            postImageRepository.changeRenditions(postImageId, thumbnailKey, mediumKey);
+        } catch (IOException | RuntimeException e) {
+            log.warn("image rendition failed, retry on sweep : post_image {}", postImageId, e);
+        }
+    }
+
+    // 헤더에서 가로, 세로를 먼저 읽고 max-pixels 이하일 때만 디코딩한다. 읽을 수 없거나 너무 크면 null
+    private BufferedImage decode(byte[] bytes) throws IOException {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = imageInputStream == null ? null : ImageIO.getImageReaders(imageInputStream);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.info("image rendition skipped, too many pixels : {}x{}", reader.getWidth(0), reader.getHeight(0));
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /*
+    EXIF 회전 값을 적용한 (화면에 보이는) 방향으로 maxWidth 까지 줄인다.
+    알파 채널은 흰 배경으로 (JPEG 는 투명도를 지원하지 않음)
+     */
+    private BufferedImage resize(BufferedImage original, int orientation, int maxWidth) {
+        boolean swapped = orientation >= 5;
+        int orientedWidth = swapped ? original.getHeight() : original.getWidth();
+        int orientedHeight = swapped ? original.getWidth() : original.getHeight();
+
+        int width = Math.min(maxWidth, orientedWidth);
+        int height = Math.max(1, (int) Math.round((double) orientedHeight * width / orientedWidth));
+
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.scale((double) width / orientedWidth, (double) height / orientedHeight);
+            graphics.transform(ExifOrientation.transform(orientation, original.getWidth(), original.getHeight()));
+            graphics.drawImage(original, 0, 0, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,234 @@
+package kr.co.theplay.service.post;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import kr.co.theplay.domain.post.ImageUploadSlot;
+import kr.co.theplay.domain.post.ImageUploadSlotRepository;
+import kr.co.theplay.dto.post.ImageUploadReqDto;
+import kr.co.theplay.dto.post.ImageUploadSlotDto;
+import kr.co.theplay.service.api.advice.exception.CommonBadRequestException;
+import kr.co.theplay.service.storage.StorageDeletionQueue;
+import kr.co.theplay.service.zzz.S3Service;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+게시글 이미지 직접 업로드 (presigned PUT)
+1. issue : 이미지마다 key 와 presigned URL 을 내주고 ImageUploadSlot 에 기록한다. 이미지는 서버를 거치지 않고 S3 로 바로 올라간다.
+2. verify : 게시글 작성 요청의 key 들을 클라이언트가 쓸 수 없는 서버 key (post/{uuid}) 로 복사하고, 복사본을 HEAD 로 확인 (크기, content type) 한다.
+   presigned URL 이 살아있는 동안은 업로드 key 에 다른 내용을 다시 올릴 수 있으므로 확인한 복사본만 게시글에 쓴다.
+   내용 기준으로 합치지 않고 slot 마다 ImageBlob 을 만든다.
+3. claim : 게시글 저장 트랜잭션 안에서 slot 을 지우고 업로드 key 를 삭제 대기열에 넣는다.
+   저장이 실패하면 slot 이 남아있으므로 같은 key 로 다시 작성할 수 있다. (같은 서버 key 로 다시 복사)
+expiresAt 까지 쓰이지 않은 slot 은 sweepExpired 에서 업로드 key, 서버 key 와 같이 지운다.
+ */
+@Slf4j
+@Component
+public class ImageUploadSlotService {
+
+    private static final String KEY_PREFIX = "upload/";
+    private static final String SERVER_KEY_PREFIX = "post/";
+    private static final String BLOB_HASH_PREFIX = "upload:";
+    private static final Map<String, String> EXTENSIONS;
+
+    static {
+        Map<String, String> extensions = new HashMap<>();
+        extensions.put("image/jpeg", ".jpg");
+        extensions.put("image/png", ".png");
+        extensions.put("image/gif", ".gif");
+        extensions.put("image/webp", ".webp");
+        EXTENSIONS = Collections.unmodifiableMap(extensions);
+    }
+
+    private final ImageUploadSlotRepository imageUploadSlotRepository;
+    private final StorageDeletionQueue storageDeletionQueue;
+    private final S3Service s3Service;
+    private final TransactionTemplate transactionTemplate;
+
+    private final long presignExpireMinutes;
+    private final long slotExpireMinutes;
+    private final int maxImages;
+    private final int sweepBatchSize;
+
+    public ImageUploadSlotService(ImageUploadSlotRepository imageUploadSlotRepository,
+                                  StorageDeletionQueue storageDeletionQueue,
+                                  S3Service s3Service,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${image-upload.presign-expire-minutes:10}") long presignExpireMinutes,
+                                  @Value("${image-upload.slot-expire-minutes:60}") long slotExpireMinutes,
+                                  @Value("${image-upload.max-images:10}") int maxImages,
+                                  @Value("${image-upload.slot-sweep-batch-size:500}") int sweepBatchSize) {
+        this.imageUploadSlotRepository = imageUploadSlotRepository;
+        this.storageDeletionQueue = storageDeletionQueue;
+        this.s3Service = s3Service;
+        this.transactionTemplate = transactionTemplate;
+        this.presignExpireMinutes = presignExpireMinutes;
+        this.slotExpireMinutes = slotExpireMinutes;
+        this.maxImages = maxImages;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    public List<ImageUploadSlotDto> issue(Long userId, List<ImageUploadReqDto> images) {
+        if (images == null || images.isEmpty() || images.size() > maxImages) {
+            throw new CommonBadRequestException("imageCountExceed");
+        }
+        for (ImageUploadReqDto image : images) {
+            if (!EXTENSIONS.containsKey(image.getContentType())) {
+                throw new CommonBadRequestException("imageTypeNotAllowed");
+            }
+            if (image.getSize() == null || image.getSize() > S3Service.MAXIMUM_FILE_SIZE) {
+                throw new CommonBadRequestException("imageSizeExcessLimit");
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime urlExpiresAt = now.plusMinutes(presignExpireMinutes);
+        List<ImageUploadSlot> slots = new ArrayList<>();
+        List<ImageUploadSlotDto> dtos = new ArrayList<>();
+        for (ImageUploadReqDto image : images) {
+            String key = KEY_PREFIX + userId + "/" + UUID.randomUUID() + EXTENSIONS.get(image.getContentType());
+            slots.add(ImageUploadSlot.builder()
+                    .userId(userId)
+                    .objectKey(key)
+                    .contentType(image.getContentType())
+                    .expiresAt(now.plusMinutes(slotExpireMinutes))
+                    .build());
+
+            Map<String, String> headers = new LinkedHashMap<>();
+            headers.put("Content-Type", image.getContentType());
+            headers.put("x-amz-acl", "public-read");
+            dtos.add(ImageUploadSlotDto.builder()
+                    .key(key)
+                    .uploadUrl(s3Service.presignPut(key, image.getContentType(), Timestamp.valueOf(urlExpiresAt)).toString())
+                    .headers(headers)
+                    .expiresAt(urlExpiresAt)
+                    .build());
+        }
+        imageUploadSlotRepository.saveAll(slots);
+        return dtos;
+    }
+
+    // 트랜잭션 밖에서 호출 (HEAD 요청 동안 DB 커넥션을 잡지 않도록)
+    public List<PostImageUploader.UploadedImage> verify(Long userId, List<String> keys) {
+        if (keys.size() > maxImages) {
+            throw new CommonBadRequestException("imageCountExceed");
+        }
+        if (new HashSet<>(keys).size() != keys.size()) {
+            throw new CommonBadRequestException("imageNotUploaded");
+        }
+
+        Map<String, ImageUploadSlot> slots = imageUploadSlotRepository.findByObjectKeyIn(keys).stream()
+                .filter(slot -> slot.getUserId().equals(userId))
+                .collect(Collectors.toMap(ImageUploadSlot::getObjectKey, Function.identity()));
+
+        List<PostImageUploader.UploadedImage> images = new ArrayList<>();
+        for (String key : keys) {
+            ImageUploadSlot slot = slots.get(key);
+            if (slot == null) {
+                throw new CommonBadRequestException("imageNotUploaded");
+            }
+            // 너무 크거나 다른 타입이면 복사하지 않고 거절
+            checkUploaded(slot, s3Service.headObject(key));
+            String serverKey = serverKeyOf(key);
+            if (!s3Service.copyObject(key, serverKey)) {
+                throw new CommonBadRequestException("imageNotUploaded");
+            }
+            // HEAD 이후 복사 전에 다시 올린 객체일 수 있으므로 복사본도 확인한다
+            try {
+                checkUploaded(slot, s3Service.headObject(serverKey));
+            } catch (CommonBadRequestException e) {
+                discardCopy(serverKey);
+                throw e;
+            }
+            images.add(new PostImageUploader.UploadedImage(blobHashOf(key), serverKey, true));
+        }
+        return images;
+    }
+
+    // 게시글 저장 트랜잭션 안에서 호출
+    public void claim(Long userId, List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (imageUploadSlotRepository.claim(userId, keys) != keys.size()) {
+            throw new CommonBadRequestException("imageNotUploaded");
+        }
+        // 게시글은 서버 key 를 쓰므로 업로드 key 는 커밋되면 지운다
+        storageDeletionQueue.enqueue(keys, null);
+    }
+
+    private void checkUploaded(ImageUploadSlot slot, ObjectMetadata metadata) {
+        if (metadata == null) {
+            throw new CommonBadRequestException("imageNotUploaded");
+        }
+        if (metadata.getContentLength() > S3Service.MAXIMUM_FILE_SIZE) {
+            throw new CommonBadRequestException("imageSizeExcessLimit");
+        }
+        if (!slot.getContentType().equals(metadata.getContentType())) {
+            throw new CommonBadRequestException("imageTypeNotAllowed");
+        }
+    }
+
+    // key 의 UUID 부분 (ImageBlob.hash 는 64자까지)
+    private String blobHashOf(String key) {
+        return BLOB_HASH_PREFIX + key.substring(key.lastIndexOf('/') + 1, key.lastIndexOf('.'));
+    }
+
+    // upload/{userId}/{uuid}.ext -> post/{uuid}.ext
+    private String serverKeyOf(String key) {
+        return SERVER_KEY_PREFIX + key.substring(key.lastIndexOf('/') + 1);
+    }
+
+    private void discardCopy(String serverKey) {
+        try {
+            s3Service.delete(serverKey);
+        } catch (IOException | RuntimeException e) {
+            log.warn("image copy delete failed : {}", serverKey, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${image-upload.slot-sweep-interval-ms:600000}")
+    public void sweepExpired() {
+        int swept = 0;
+        List<ImageUploadSlot> expired;
+        do {
+            expired = imageUploadSlotRepository.findExpired(LocalDateTime.now(), PageRequest.of(0, sweepBatchSize));
+            if (expired.isEmpty()) {
+                break;
+            }
+            List<ImageUploadSlot> chunk = expired;
+            Boolean done = transactionTemplate.execute(status -> {
+                // 그 사이 게시글 작성에 쓰인 slot 이 있으면 이번에는 건너뛰고 다음에 다시 읽는다
+                List<Long> ids = chunk.stream().map(ImageUploadSlot::getId).collect(Collectors.toList());
+                if (imageUploadSlotRepository.deleteByIds(ids) != ids.size()) {
+                    status.setRollbackOnly();
+                    return false;
+                }
+                List<String> keys = new ArrayList<>();
+                chunk.forEach(slot -> {
+                    keys.add(slot.getObjectKey());
+                    keys.add(serverKeyOf(slot.getObjectKey()));
+                });
+                storageDeletionQueue.enqueue(keys, null);
+                return true;
+            });
+            if (!Boolean.TRUE.equals(done)) {
+                break;
+            }
+            swept += chunk.size();
+        } while (expired.size() == sweepBatchSize);
+        if (swept > 0) {
+            log.info("image upload slot sweep : {} expired slots", swept);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package kr.co.theplay.service.post;
+
+import kr.co.theplay.common.IconKind;
+import kr.co.theplay.domain.post.*;
+import kr.co.theplay.domain.user.UserRecipeRepository;
+import kr.co.theplay.dto.post.AlcoholTagDto;
+import kr.co.theplay.dto.post.RecipeIngredientDto;
+import kr.co.theplay.dto.post.RecipeStepDto;
+import kr.co.theplay.service.user.UserStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+게시글 수정 시 술 태그, 재료, 레시피 단계 갱신. 호출한 트랜잭션 안에서 실행된다.
+전부 지우고 다시 넣지 않고 기존 row 와 비교해서
+- 남는 row 는 값이 바뀐 것만 update (dirty checking)
+- 빠진 row 는 delete ... where id in (...) 한번
+- 늘어난 row 만 insert
+술 태그는 아이디 (없으면 이름 + 레시피 여부) 로 맞춰서 태그 아이디와 그 태그를 저장한 레시피 (user_recipe) 를 유지한다.
+레시피 태그가 빠지거나 레시피가 아니게 되면 저장한 레시피도 같이 지운다.
+재료, 단계는 순서대로 맞춘다.
+ */
+@RequiredArgsConstructor
+@Component
+public class PostChildrenUpdater {
+
+    private final AlcoholTagRepository alcoholTagRepository;
+    private final RecipeIngredientRepository recipeIngredientRepository;
+    private final RecipeStepRepository recipeStepRepository;
+    private final UserRecipeRepository userRecipeRepository;
+    private final UserStatsService userStatsService;
+
+    public void update(Post post, List<AlcoholTagDto> tags, List<RecipeIngredientDto> ingredients, List<RecipeStepDto> steps) {
+        updateAlcoholTags(post, tags == null ? new ArrayList<>() : tags);
+        updateIngredients(post, ingredients == null ? new ArrayList<>() : ingredients);
+        updateSteps(post, steps == null ? new ArrayList<>() : steps);
+    }
+
+    private void updateAlcoholTags(Post post, List<AlcoholTagDto> dtos) {
+        List<AlcoholTag> existing = alcoholTagRepository.findByPost(post);
+        Map<Long, AlcoholTag> remaining = existing.stream()
+                .collect(Collectors.toMap(AlcoholTag::getId, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+
+        // 1. 아이디가 같은 태그
+        Map<AlcoholTagDto, AlcoholTag> matched = new IdentityHashMap<>();
+        for (AlcoholTagDto dto : dtos) {
+            if (dto.getId() != null && remaining.containsKey(dto.getId())) {
+                matched.put(dto, remaining.remove(dto.getId()));
+            }
+        }
+        // 2. 아이디 없이 온 태그는 이름과 레시피 여부가 같은 태그
+        for (AlcoholTagDto dto : dtos) {
+            if (matched.containsKey(dto)) {
+                continue;
+            }
+            remaining.values().stream()
+                    .filter(tag -> Objects.equals(tag.getName(), dto.getName()) && Objects.equals(tag.getRecipeYn(), dto.getRecipeYn()))
+                    .findFirst()
+                    .ifPresent(tag -> matched.put(dto, remaining.remove(tag.getId())));
+        }
+
+        List<Long> droppedRecipeTagIds = new ArrayList<>();
+        List<AlcoholTag> inserts = new ArrayList<>();
+        for (AlcoholTagDto dto : dtos) {
+            AlcoholTag tag = matched.get(dto);
+            if (tag == null) {
+                AlcoholTag created = AlcoholTag.builder()
+                        .iconKind(IconKind.enumOf(dto.getIconName()))
+                        .name(dto.getName())
+                        .color(dto.getColor())
+                        .recipeYn(dto.getRecipeYn())
+                        .build();
+                created.changePost(post);
+                inserts.add(created);
+                continue;
+            }
+            if ("Y".equals(tag.getRecipeYn()) && !"Y".equals(dto.getRecipeYn())) {
+                droppedRecipeTagIds.add(tag.getId());
+            }
+            tag.update(IconKind.enumOf(dto.getIconName()), dto.getName(), dto.getColor(), dto.getRecipeYn());
+        }
+
+        List<Long> deletedIds = new ArrayList<>(remaining.keySet());
+        List<Long> userRecipeTagIds = new ArrayList<>(droppedRecipeTagIds);
+        userRecipeTagIds.addAll(deletedIds);
+        if (!userRecipeTagIds.isEmpty()) {
+            userStatsService.changeRecipeCounts(userRecipeRepository.findUserIdsByAlcoholTagIds(userRecipeTagIds), -1);
+            userRecipeRepository.deleteByAlcoholTagIds(userRecipeTagIds);
+        }
+        if (!deletedIds.isEmpty()) {
+            alcoholTagRepository.deleteByIds(deletedIds);
+        }
+        if (!inserts.isEmpty()) {
+            alcoholTagRepository.saveAll(inserts);
+        }
+    }
+
+    private void updateIngredients(Post post, List<RecipeIngredientDto> dtos) {
+        List<RecipeIngredient> existing = new ArrayList<>(recipeIngredientRepository.findByPostId(post.getId()));
+        existing.sort(Comparator.comparing(RecipeIngredient::getId));
+
+        int common = Math.min(existing.size(), dtos.size());
+        for (int i = 0; i < common; i++) {
+            RecipeIngredientDto dto = dtos.get(i);
+            existing.get(i).update(IconKind.enumOf(dto.getIconName()), dto.getName(), dto.getColor(), dto.getQuantity());
+        }
+
+        if (existing.size() > common) {
+            recipeIngredientRepository.deleteByIds(existing.subList(common, existing.size()).stream()
+                    .map(RecipeIngredient::getId).collect(Collectors.toList()));
+        }
+        if (dtos.size() > common) {
+            List<RecipeIngredient> inserts = dtos.subList(common, dtos.size()).stream()
+                    .map(RecipeIngredientDto::toEntity).collect(Collectors.toList());
+            inserts.forEach(e -> e.changePost(post));
+            recipeIngredientRepository.saveAll(inserts);
+        }
+    }
+
+    private void updateSteps(Post post, List<RecipeStepDto> dtos) {
+        List<RecipeStep> existing = new ArrayList<>(recipeStepRepository.findByPostId(post.getId()));
+        existing.sort(Comparator.comparing(RecipeStep::getId));
+
+        int common = Math.min(existing.size(), dtos.size());
+        for (int i = 0; i < common; i++) {
+            existing.get(i).update(dtos.get(i).getNumber(), dtos.get(i).getContent());
+        }
+
+        if (existing.size() > common) {
+            recipeStepRepository.deleteByIds(existing.subList(common, existing.size()).stream()
+                    .map(RecipeStep::getId).collect(Collectors.toList()));
+        }
+        if (dtos.size() > common) {
+            List<RecipeStep> inserts = dtos.subList(common, dtos.size()).stream()
+                    .map(RecipeStepDto::toEntity).collect(Collectors.toList());
+            inserts.forEach(e -> e.changePost(post));
+            recipeStepRepository.saveAll(inserts);
+        }
+    }
+}
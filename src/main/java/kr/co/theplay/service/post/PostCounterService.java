@@ -0,0 +1,125 @@
+package kr.co.theplay.service.post;
+
+import kr.co.theplay.domain.post.PostCommentRepository;
+import kr.co.theplay.domain.post.PostRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.function.BiFunction;
+
+import static kr.co.theplay.common.TransactionCallbacks.afterCommit;
+
+/*
+게시글 좋아요/댓글 수, 댓글 좋아요 수 write-behind.
+요청 트랜잭션이 커밋되면 증감값을 버퍼에 쌓고, 주기적으로 같은 증감값끼리 묶어
+update ... where id in (...) 한번으로 반영한다. 인기 게시글도 요청마다 같은 row 락을 잡지 않는다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class PostCounterService {
+
+    private static final int STRIPES = 16;
+    private static final int UPDATE_CHUNK_SIZE = 500;
+
+    private final PostRepository postRepository;
+    private final PostCommentRepository postCommentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final CounterDeltaBuffer postLikes = new CounterDeltaBuffer(STRIPES);
+    private final CounterDeltaBuffer postComments = new CounterDeltaBuffer(STRIPES);
+    private final CounterDeltaBuffer commentLikes = new CounterDeltaBuffer(STRIPES);
+
+    public void changePostLikeCount(Long postId, long delta) {
+        afterCommit(() -> postLikes.add(postId, delta));
+    }
+
+    public void changePostCommentCount(Long postId, long delta) {
+        afterCommit(() -> postComments.add(postId, delta));
+    }
+
+    public void changeCommentLikeCount(Long postCommentId, long delta) {
+        afterCommit(() -> commentLikes.add(postCommentId, delta));
+    }
+
+    // DB 값 + 아직 반영되지 않은 증감값
+    public long getPostLikeCount(Long postId, Long persisted) {
+        return persisted + postLikes.pending(postId);
+    }
+
+    public long getPostCommentCount(Long postId, Long persisted) {
+        return persisted + postComments.pending(postId);
+    }
+
+    public long getCommentLikeCount(Long postCommentId, Long persisted) {
+        return persisted + commentLikes.pending(postCommentId);
+    }
+
+    @Scheduled(fixedDelayString = "${counter.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        flush(postLikes, postRepository::addLikeCount);
+        flush(postComments, postRepository::addCommentCount);
+        flush(commentLikes, postCommentRepository::addLikeCount);
+    }
+
+    /*
+    버퍼를 비운 뒤 원본 테이블 (post_like, post_comment, comment_like) 기준으로 어긋난 값 보정
+    원본 row 수에는 이미 커밋되었지만 아직 flush 되지 않은 증감값이 들어있으므로 (다음 flush 에서 더해진다)
+    보정 값에서 버퍼에 남은 증감값을 빼고 맞춘다.
+    어긋난 row 목록은 후보로만 쓰고, row 마다 트랜잭션 안에서 원본 row 를 공유 잠금으로 다시 센 뒤 버퍼 값을 읽는다.
+    잠금 동안에는 좋아요 / 댓글이 커밋되지 않으므로 세는 값과 버퍼 값 사이에 새 증감이 끼어들지 않는다.
+     */
+    @Scheduled(cron = "${counter.reconcile-cron:0 0 4 * * *}")
+    public void reconcile() {
+        flush();
+        int posts = 0;
+        for (Object[] row : postRepository.findCountMismatches()) {
+            Long postId = ((Number) row[0]).longValue();
+            Integer updated = transactionTemplate.execute(status -> {
+                long likeCount = postRepository.countLikesForUpdate(postId) - postLikes.pending(postId);
+                long commentCount = postRepository.countCommentsForUpdate(postId) - postComments.pending(postId);
+                return postRepository.setCounts(postId, likeCount, commentCount);
+            });
+            posts += updated == null ? 0 : updated;
+        }
+        int comments = 0;
+        for (Object[] row : postCommentRepository.findLikeCountMismatches()) {
+            Long commentId = ((Number) row[0]).longValue();
+            Integer updated = transactionTemplate.execute(status -> postCommentRepository.setLikeCount(commentId,
+                    postCommentRepository.countLikesForUpdate(commentId) - commentLikes.pending(commentId)));
+            comments += updated == null ? 0 : updated;
+        }
+        log.info("counter reconcile : post {} rows, post_comment {} rows", posts, comments);
+    }
+
+    private void flush(CounterDeltaBuffer buffer, BiFunction<Long, Collection<Long>, Integer> updater) {
+        Map<Long, Long> deltas = buffer.drain();
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // 같은 증감값을 가진 아이디끼리 묶는다. (대부분 +1, -1 이므로 update 문 몇 개로 끝남)
+        Map<Long, List<Long>> idsByDelta = new HashMap<>();
+        deltas.forEach((id, delta) -> idsByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(id));
+
+        Map<Long, Long> failed = new HashMap<>();
+        idsByDelta.forEach((delta, ids) -> {
+            for (int from = 0; from < ids.size(); from += UPDATE_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + UPDATE_CHUNK_SIZE, ids.size()));
+                try {
+                    updater.apply(delta, chunk);
+                } catch (RuntimeException e) {
+                    log.warn("counter flush failed, retry next time : {}", e.getMessage());
+                    chunk.forEach(id -> failed.put(id, delta));
+                }
+            }
+        });
+        buffer.restore(failed);
+    }
+}
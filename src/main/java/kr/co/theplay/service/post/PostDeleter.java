@@ -0,0 +1,66 @@
+package kr.co.theplay.service.post;
+
+import kr.co.theplay.domain.post.*;
+import kr.co.theplay.domain.user.UserRecipeRepository;
+import kr.co.theplay.service.recipe.PopularRecipeRanking;
+import kr.co.theplay.service.timeline.TimelineService;
+import kr.co.theplay.service.user.UserStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+
+/*
+게시글 삭제. 호출한 트랜잭션 안에서 실행된다.
+postRepository.delete 는 cascade 로 댓글, 좋아요 ... 를 전부 읽어와 한 row 씩 지우므로
+참조하는 쪽부터 delete ... where post_id = ? 로 테이블마다 한번씩 지우고 마지막에 게시글 row 를 지운다.
+(댓글 좋아요 -> 댓글, 저장한 레시피 -> 술 태그, 재료, 단계, 좋아요, 신고, 이미지 -> 게시글)
+지우기 전에 이미지 참조 해제, 인기 레시피 랭킹, 타임라인, 유저 통계를 먼저 반영한다.
+ */
+@RequiredArgsConstructor
+@Component
+public class PostDeleter {
+
+    private final PostRepository postRepository;
+    private final PostCommentRepository postCommentRepository;
+    private final CommentLikeRepository commentLikeRepository;
+    private final PostLikeRepository postLikeRepository;
+    private final PostReportRepository postReportRepository;
+    private final PostImageRepository postImageRepository;
+    private final AlcoholTagRepository alcoholTagRepository;
+    private final RecipeIngredientRepository recipeIngredientRepository;
+    private final RecipeStepRepository recipeStepRepository;
+    private final UserRecipeRepository userRecipeRepository;
+    private final ImageBlobService imageBlobService;
+    private final PostCounterService postCounterService;
+    private final PopularRecipeRanking popularRecipeRanking;
+    private final TimelineService timelineService;
+    private final UserStatsService userStatsService;
+
+    public void delete(Post post) {
+        Long postId = post.getId();
+
+        // 이미지 참조 해제, 마지막 참조였던 이미지는 커밋 이후 S3 에서 삭제
+        post.getImages().forEach(imageBlobService::release);
+
+        popularRecipeRanking.changePostTags(postId, postCounterService.getPostLikeCount(postId, post.getLikeCount()),
+                alcoholTagRepository.findRecipeNamesByPostId(postId), new ArrayList<>());
+        timelineService.deletePost(postId);
+
+        // 게시글과 같이 지워지는 좋아요, 레시피 저장 수 반영
+        userStatsService.changePostCount(post.getUser().getId(), -1);
+        userStatsService.changeLikeCounts(postLikeRepository.findUserIdsByPostId(postId), -1);
+        userStatsService.changeRecipeCounts(userRecipeRepository.findUserIdsByPostId(postId), -1);
+
+        commentLikeRepository.deleteByPostId(postId);
+        postCommentRepository.deleteByPostId(postId);
+        userRecipeRepository.deleteByPostId(postId);
+        alcoholTagRepository.deleteByPostId(postId);
+        recipeIngredientRepository.deleteByPostId(postId);
+        recipeStepRepository.deleteByPostId(postId);
+        postLikeRepository.deleteByPostId(postId);
+        postReportRepository.deleteByPostId(postId);
+        postImageRepository.deleteByPostId(postId);
+        postRepository.deleteRowById(postId);
+    }
+}
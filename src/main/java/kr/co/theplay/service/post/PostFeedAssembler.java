@@ -0,0 +1,139 @@
+package kr.co.theplay.service.post;
+
+import kr.co.theplay.domain.post.*;
+import kr.co.theplay.domain.user.UserRepository;
+import kr.co.theplay.dto.post.*;
+import kr.co.theplay.service.follow.BlockCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+피드용 PostResDto 조립기.
+게시글마다 좋아요 여부, 좋아요 수, 댓글 수 ... 를 하나씩 조회하면 페이지 크기에 비례해 쿼리가 늘어나므로
+페이지의 postId 목록으로 IN 쿼리를 한번씩만 날리고 메모리에서 게시글별로 매칭한다.
+좋아요 수, 댓글 수는 Post 의 카운터 컬럼을, 좋아요/레시피 저장 여부는 ViewerRelationCache 를 사용한다.
+페이지 크기와 상관없이 쿼리 수는 고정 (최대 8개, 대표 댓글 작성자가 차단 관계인 게시글이 있으면 댓글을 한번 더 읽는다)
+ */
+@RequiredArgsConstructor
+@Component
+public class PostFeedAssembler {
+
+    private final UserRepository userRepository;
+    private final PostImageRepository postImageRepository;
+    private final AlcoholTagRepository alcoholTagRepository;
+    private final RecipeIngredientRepository recipeIngredientRepository;
+    private final RecipeStepRepository recipeStepRepository;
+    private final PostCommentRepository postCommentRepository;
+    private final PostCounterService postCounterService;
+    private final ViewerRelationCache viewerRelationCache;
+    private final BlockCache blockCache;
+
+    // 페이지 번호 방식은 차단 관계인 작성자의 게시글만 빼고 돌려준다 (커서 방식은 PostService 에서 더 읽어 채운다)
+    public Page<PostResDto> assemble(Long viewerId, Page<Post> posts) {
+        List<Post> visible = posts.getContent().stream()
+                .filter(p -> !blockCache.isHidden(viewerId, p.getUser().getId()))
+                .collect(Collectors.toList());
+        List<PostResDto> dtos = assemble(viewerId, visible);
+        return new PageImpl<>(dtos, posts.getPageable(), posts.getTotalElements());
+    }
+
+    public List<PostResDto> assemble(Long viewerId, List<Post> posts) {
+        if (posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> postIds = posts.stream().map(Post::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+        Set<Long> recipePostIds = posts.stream()
+                .filter(p -> "Y".equals(p.getHaveRecipeYn()))
+                .map(Post::getId)
+                .collect(Collectors.toSet());
+
+        // 작성자들을 한번에 영속성 컨텍스트에 올려둔다. (post.getUser() 프록시 초기화 시 추가 쿼리 X)
+        Set<Long> userIds = posts.stream().map(p -> p.getUser().getId()).collect(Collectors.toSet());
+        userRepository.findAllById(userIds);
+
+        Map<Long, List<PostImageDto>> images = postImageRepository.findByPostIds(postIds).stream()
+                .collect(Collectors.groupingBy(e -> e.getPost().getId(),
+                        Collectors.mapping(PostImageDto::new, Collectors.toList())));
+
+        Map<Long, List<AlcoholTagDto>> alcoholTags = alcoholTagRepository.findByPostIds(postIds).stream()
+                .collect(Collectors.groupingBy(e -> e.getPost().getId(),
+                        Collectors.mapping(AlcoholTagDto::new, Collectors.toList())));
+
+        Map<Long, List<RecipeIngredientDto>> ingredients = new HashMap<>();
+        Map<Long, List<RecipeStepDto>> steps = new HashMap<>();
+        if (!recipePostIds.isEmpty()) {
+            ingredients = recipeIngredientRepository.findByPostIds(recipePostIds).stream()
+                    .collect(Collectors.groupingBy(e -> e.getPost().getId(),
+                            Collectors.mapping(RecipeIngredientDto::new, Collectors.toList())));
+            steps = recipeStepRepository.findByPostIds(recipePostIds).stream()
+                    .collect(Collectors.groupingBy(e -> e.getPost().getId(),
+                            Collectors.mapping(RecipeStepDto::new, Collectors.toList())));
+        }
+
+        ViewerRelationCache.ViewerRelations relations = viewerRelationCache.get(viewerId);
+
+        // 같은 시각에 작성된 댓글이 여러개면 id가 큰 (나중에 저장된) 댓글을 대표 댓글로, 차단 관계인 작성자의 댓글은 건너뛴다
+        Map<Long, PostComment> latestComments = new HashMap<>();
+        Set<Long> hiddenLatest = new HashSet<>();
+        for (PostComment c : postCommentRepository.findLatestCommentsByPostIds(postIds)) {
+            if (blockCache.isHidden(viewerId, c.getUser().getId())) {
+                hiddenLatest.add(c.getPost().getId());
+            } else {
+                latestComments.putIfAbsent(c.getPost().getId(), c);
+            }
+        }
+        hiddenLatest.removeAll(latestComments.keySet());
+        List<Long> hiddenIds = hiddenLatest.isEmpty() ? Collections.emptyList() : blockCache.getHiddenIds(viewerId);
+        if (!hiddenIds.isEmpty()) {
+            postCommentRepository.findLatestCommentsByPostIdsExcluding(hiddenLatest, hiddenIds)
+                    .forEach(c -> latestComments.putIfAbsent(c.getPost().getId(), c));
+        }
+
+        List<PostResDto> dtos = new ArrayList<>();
+        for (Post post : posts) {
+            Long postId = post.getId();
+            PostResDto dto = new PostResDto(post);
+
+            dto.setImages(images.getOrDefault(postId, new ArrayList<>()));
+            dto.setAlcoholTags(alcoholTags.getOrDefault(postId, new ArrayList<>()));
+
+            // 게시물 좋아요 여부 및 개수
+            dto.setPostLikeYn(relations.isPostLiked(postId) ? "Y" : "N");
+            dto.setPostLikeCnt((int) postCounterService.getPostLikeCount(postId, post.getLikeCount()));
+
+            // 게시글의 레시피 저장 여부, 레시피가 존재하면서 저장 했다면
+            boolean saved = recipePostIds.contains(postId) && dto.getAlcoholTags().stream()
+                    .anyMatch(tag -> relations.isRecipeSaved(tag.getId()));
+            dto.setSaveRecipeYn(saved ? "Y" : "N");
+
+            //댓글 개수 및 대표 댓글 작성자, 내용 세팅
+            dto.setCommentCnt(postCounterService.getPostCommentCount(postId, post.getCommentCount()));
+            PostComment comment = latestComments.get(postId);
+            if (comment != null) {
+                dto.setCommentNickname(comment.getUser().getNickname());
+                dto.setComment(comment.getContent());
+            } else {
+                dto.setComment("N");
+                dto.setCommentNickname("N");
+            }
+
+            //레시피가 있는 경우만 재료, 단계 세팅
+            if (recipePostIds.contains(postId)) {
+                dto.setIngredients(ingredients.getOrDefault(postId, new ArrayList<>()));
+                dto.setSteps(steps.getOrDefault(postId, new ArrayList<>()));
+            } else {
+                dto.setIngredients(new ArrayList<>());
+                dto.setSteps(new ArrayList<>());
+            }
+
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,163 @@
+package kr.co.theplay.service.post;
+
+import kr.co.theplay.domain.post.ImageBlobRepository;
+import kr.co.theplay.service.api.advice.exception.CommonBadRequestException;
+import kr.co.theplay.service.storage.StorageDeletionQueue;
+import kr.co.theplay.service.zzz.S3Service;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/*
+게시글 이미지 업로드
+트랜잭션 밖에서 (DB 커넥션을 잡지 않은 상태로) 이미지들을 imageUploadExecutor 에서 동시에 올리고, 올린 결과를 순서대로 돌려준다.
+S3 key 는 내용의 SHA-256 이므로 이미 저장된 이미지 (ImageBlob 존재) 는 다시 올리지 않는다.
+하나라도 실패하면 이번에 새로 올린 이미지는 지우고 imageUploadFailed.
+DB 저장이 실패했을 때는 호출한 쪽에서 discard 로 새로 올린 이미지를 지운다.
+같은 내용을 동시에 올린 다른 요청이 같은 key 를 쓰고 있을 수 있으므로 바로 지우지 않고 삭제 대기열에 hash 와 같이 넣는다.
+(유예 시간이 지난 뒤에도 ImageBlob 이 없을 때만 지워진다)
+ */
+@Slf4j
+@Component
+public class PostImageUploader {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final S3Service s3Service;
+    private final ImageBlobRepository imageBlobRepository;
+    private final StorageDeletionQueue storageDeletionQueue;
+    private final TaskExecutor imageUploadExecutor;
+    private final long timeoutSeconds;
+
+    public PostImageUploader(S3Service s3Service,
+                             ImageBlobRepository imageBlobRepository,
+                             StorageDeletionQueue storageDeletionQueue,
+                             @Qualifier("imageUploadExecutor") TaskExecutor imageUploadExecutor,
+                             @Value("${image-upload.timeout-seconds:60}") long timeoutSeconds) {
+        this.s3Service = s3Service;
+        this.imageBlobRepository = imageBlobRepository;
+        this.storageDeletionQueue = storageDeletionQueue;
+        this.imageUploadExecutor = imageUploadExecutor;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    public List<UploadedImage> uploadAll(List<MultipartFile> files) {
+        // 용량 초과는 하나도 올리기 전에 확인
+        for (MultipartFile file : files) {
+            if (file.getSize() > S3Service.MAXIMUM_FILE_SIZE) {
+                throw new CommonBadRequestException("imageSizeExcessLimit");
+            }
+        }
+
+        List<CompletableFuture<UploadedImage>> uploads = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> upload(file), imageUploadExecutor))
+                .collect(Collectors.toList());
+
+        try {
+            CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).get(timeoutSeconds, TimeUnit.SECONDS);
+            return uploads.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failed(uploads, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw failed(uploads, e);
+        }
+    }
+
+    // 보상 삭제 : 이번 요청에서 직접 PUT 한 key 만 삭제 대기열에 넣는다 (이미 저장돼 있어서 건너뛴 이미지는 건드리지 않는다)
+    public void discard(List<UploadedImage> images) {
+        for (UploadedImage image : images) {
+            if (!image.isUploaded()) {
+                continue;
+            }
+            try {
+                storageDeletionQueue.enqueue(Collections.singletonList(image.getKey()), image.getHash());
+            } catch (RuntimeException e) {
+                log.warn("image delete enqueue failed : {}", image.getKey(), e);
+            }
+        }
+    }
+
+    private UploadedImage upload(MultipartFile file) {
+        try {
+            String hash = hash(file);
+            String key = hash + extensionOf(file.getOriginalFilename());
+            if (imageBlobRepository.existsByHash(hash)) {
+                return new UploadedImage(hash, key, false);
+            }
+            s3Service.putObject(key, file);
+            return new UploadedImage(hash, key, true);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    // 요청에서 받은 파일을 한번 읽으면서 SHA-256 계산 (메모리에 전부 올리지 않음)
+    private String hash(MultipartFile file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = file.getInputStream()) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private String extensionOf(String originalFilename) {
+        if (originalFilename == null) {
+            return "";
+        }
+        int dot = originalFilename.lastIndexOf('.');
+        if (dot < 0 || originalFilename.length() - dot > 6) {
+            return "";
+        }
+        return originalFilename.substring(dot).toLowerCase();
+    }
+
+    // 진행 중인 업로드는 끝난 뒤에 지워야 지운 다음에 올라가는 파일이 생기지 않는다 (끝난 업로드는 바로 지워진다)
+    private CommonBadRequestException failed(List<CompletableFuture<UploadedImage>> uploads, Exception cause) {
+        log.warn("post image upload failed", cause);
+        uploads.forEach(upload -> upload.thenAccept(image -> discard(Collections.singletonList(image))));
+        return new CommonBadRequestException("imageUploadFailed");
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class UploadedImage {
+        private final String hash;
+        private final String key;
+        // 이번 요청에서 새로 올렸는지 (이미 저장된 이미지면 false)
+        private final boolean uploaded;
+    }
+}
@@ -1,7 +1,5 @@
 package kr.co.theplay.service.post;
 
-import kr.co.theplay.domain.notice.Alarm;
-import kr.co.theplay.domain.notice.AlarmRepository;
 import kr.co.theplay.domain.post.*;
 import kr.co.theplay.domain.user.User;
 import kr.co.theplay.domain.user.UserRecipe;
@@ -11,19 +9,24 @@ import kr.co.theplay.dto.post.*;
 import kr.co.theplay.dto.recipe.RecipeSaveResDto;
 import kr.co.theplay.service.api.advice.exception.CommonBadRequestException;
 import kr.co.theplay.service.api.advice.exception.CommonNotFoundException;
-import kr.co.theplay.service.zzz.S3Service;
+import kr.co.theplay.service.api.security.UserPrincipal;
+import kr.co.theplay.service.follow.BlockCache;
+import kr.co.theplay.service.notice.NotificationDispatcher;
+import kr.co.theplay.service.recipe.PopularRecipeRanking;
+import kr.co.theplay.service.timeline.TimelineService;
+import kr.co.theplay.service.user.UserStatsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
@@ -31,35 +34,94 @@ import java.util.stream.Collectors;
 @Service
 public class PostService {
 
+    // 차단 필터링 후 모자란 게시글을 채우기 위한 추가 조회 개수, 최대 조회 횟수
+    private static final int BLOCK_OVER_FETCH = 5;
+    private static final int BLOCK_FETCH_ROUNDS = 3;
+
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final AlcoholTagRepository alcoholTagRepository;
     private final RecipeIngredientRepository recipeIngredientRepository;
     private final RecipeStepRepository recipeStepRepository;
     private final PostImageRepository postImageRepository;
-    private final S3Service s3Service;
+    private final PostImageUploader postImageUploader;
+    private final ImageBlobService imageBlobService;
+    private final ImageRenditionService imageRenditionService;
+    private final TransactionTemplate transactionTemplate;
     private final PostReportRepository postReportRepository;
     private final PostLikeRepository postLikeRepository;
     private final PostCommentRepository postCommentRepository;
     private final CommentLikeRepository commentLikeRepository;
     private final UserRecipeRepository userRecipeRepository;
-    private final AlarmRepository alarmRepository;
+    private final NotificationDispatcher notificationDispatcher;
+    private final PostFeedAssembler postFeedAssembler;
+    private final PostCounterService postCounterService;
+    private final ViewerRelationCache viewerRelationCache;
+    private final TimelineService timelineService;
+    private final PopularRecipeRanking popularRecipeRanking;
+    private final UserStatsService userStatsService;
+    private final BlockCache blockCache;
+    private final ImageUploadSlotService imageUploadSlotService;
+    private final PostChildrenUpdater postChildrenUpdater;
+    private final PostDeleter postDeleter;
+    private final CursorPageSize cursorPageSize;
+
+    /*
+    이미지는 트랜잭션 밖에서 먼저 동시에 업로드하고, 게시글과 이미지 정보는 한 트랜잭션에서 저장한다.
+    (업로드하는 동안 DB 커넥션을 잡고 있지 않도록) 저장이나 커밋이 실패하면 올린 이미지를 지운다.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void create(UserPrincipal principal, PostReqDto postReqDto, List<MultipartFile> files) {
+
+        // Validation <1> 해당 사용자가 신고를 5회이상 받았다 그럼 작성 불가로 Exception (업로드 전에 확인)
+        int cnt = postReportRepository.findCountReportByUserId(principal.getId());
+        if (cnt >= 5) { // 5회 이상 신고를 받았다
+            throw new CommonBadRequestException("postUserReportExceed");
+        }
 
-    @Transactional
-    public void create(String email, PostReqDto postReqDto, List<MultipartFile> files) {
+        List<PostImageUploader.UploadedImage> images = postImageUploader.uploadAll(files);
+        try {
+            transactionTemplate.executeWithoutResult(status -> savePost(principal, postReqDto, images));
+        } catch (RuntimeException e) {
+            postImageUploader.discard(images);
+            throw e;
+        }
+    }
 
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+    /*
+    presigned URL 로 직접 올린 이미지로 게시글 작성
+    올라온 이미지는 S3 안에서 서버 key 로 복사한 뒤 HEAD 로 확인하므로 이미지 바이트가 서버를 거치지 않는다.
+    저장이 실패해도 이미지는 지우지 않는다. (slot 이 남아있으니 같은 key 로 다시 작성할 수 있고, 안 쓰이면 만료 정리에서 지운다)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void createWithUploadedImages(UserPrincipal principal, PostReqDto postReqDto) {
 
-        // Validation <1> 해당 사용자가 신고를 5회이상 받았다 그럼 작성 불가로 Exception
-        int cnt = postReportRepository.findCountReportByUser(user.getEmail());
-        if (cnt >= 5) { // 5회 이상 신고를 받았다
+        int cnt = postReportRepository.findCountReportByUserId(principal.getId());
+        if (cnt >= 5) {
             throw new CommonBadRequestException("postUserReportExceed");
         }
 
+        List<String> imageKeys = postReqDto.getImageKeys() == null ? new ArrayList<>() : postReqDto.getImageKeys();
+        List<PostImageUploader.UploadedImage> images = imageUploadSlotService.verify(principal.getId(), imageKeys);
+        transactionTemplate.executeWithoutResult(status -> {
+            imageUploadSlotService.claim(principal.getId(), imageKeys);
+            savePost(principal, postReqDto, images);
+        });
+    }
+
+    public List<ImageUploadSlotDto> issueImageUploadSlots(UserPrincipal principal, List<ImageUploadReqDto> images) {
+        return imageUploadSlotService.issue(principal.getId(), images);
+    }
+
+    private void savePost(UserPrincipal principal, PostReqDto postReqDto, List<PostImageUploader.UploadedImage> images) {
+
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+
         //Post 생성, post의 user 세팅, 저장
         Post post = postReqDto.toEntity();
         post.changeUser(user);
         postRepository.save(post);
+        userStatsService.changePostCount(user.getId(), 1);
 
         //AlcoholTag list 생성, 각 alcoholTag의 post 세팅, 저장
         if (postReqDto.getAlcoholTags() != null && postReqDto.getAlcoholTags().size() > 0) {
@@ -82,28 +144,25 @@ public class PostService {
             recipeStepRepository.saveAll(steps);
         }
 
-        //file 저장
-        for (int i = 0; i < files.size(); i++) {
-
-            String filePath = null;
-            try {
-                filePath = s3Service.upload(files.get(i));
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-
-            if (filePath == "EXCEED") {
-                throw new CommonBadRequestException("imageSizeExcessLimit");
-            }
-            PostImage postImage = PostImage.builder().post(post).number(i).filePath(filePath).build();
-            postImageRepository.save(postImage);
+        //업로드한 이미지 정보 한번에 저장 (업로드 순서 = 이미지 순서), 같은 내용의 이미지는 ImageBlob 하나를 같이 참조
+        List<PostImage> postImages = new ArrayList<>();
+        for (int i = 0; i < images.size(); i++) {
+            PostImageUploader.UploadedImage image = images.get(i);
+            ImageBlob imageBlob = imageBlobService.acquire(image.getHash(), image.getKey());
+            postImages.add(PostImage.builder().post(post).number(i).filePath(imageBlob.getFilePath()).imageBlob(imageBlob).build());
         }
+        postImageRepository.saveAll(postImages);
+
+        // 커밋 이후 썸네일 생성, 팔로워들의 타임라인에 적재, 인기 레시피 랭킹 반영
+        imageRenditionService.renderAfterCommit(post.getId());
+        timelineService.fanOutAfterCommit(post.getId());
+        popularRecipeRanking.changePostTags(post.getId(), 0, new ArrayList<>(), recipeNamesOf(postReqDto));
 
     }
 
     @Transactional
-    public void reportPost(String email, PostReportReqDto postReportReqDto) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+    public void reportPost(UserPrincipal principal, PostReportReqDto postReportReqDto) {
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
         Post post = postRepository.findById(postReportReqDto.getPostId()).orElseThrow(() -> new CommonNotFoundException("postNotFound"));
 
         if (postReportRepository.findByUserAndPost(user, post).isPresent()) {
@@ -119,264 +178,107 @@ public class PostService {
         postReportRepository.save(postReport);
     }
 
-    public Page<PostResDto> getPostsForMain(String email, int number, int size) {
+    public Page<PostResDto> getPostsForMain(UserPrincipal principal, int number, int size) {
 
-        // 현재 토큰의 회원 정보가 필요해서 email을 추가로 받아옵니다.
+        // 현재 토큰의 회원 정보가 필요해서 principal을 추가로 받아옵니다.
 
         Pageable pageable = PageRequest.of(number, size);
         Page<Post> posts = postRepository.getLatestPostsForMain(pageable);
-        List<Post> postList = posts.getContent();
-        List<PostResDto> dtos = posts.stream().map(PostResDto::new).collect(Collectors.toList());
-
-        for (int i = 0; i < dtos.size(); i++) {
-            //image 매칭
-            List<PostImage> images = postList.get(i).getImages();
-            List<PostImageDto> imageDtos = images.stream().map(PostImageDto::new).collect(Collectors.toList());
-            dtos.get(i).setImages(imageDtos);
-
-            //alcoholTag 매칭
-            List<AlcoholTag> alcoholTags = postList.get(i).getAlcoholTags();
-            List<AlcoholTagDto> alcoholTagDtos = alcoholTags.stream().map(AlcoholTagDto::new).collect(Collectors.toList());
-            dtos.get(i).setAlcoholTags(alcoholTagDtos);
-
-            // 게시물 좋아요 여부 확인
-            if (postLikeRepository.findByPostIdAndUserEmail(postList.get(i).getId(), email).isPresent())
-                dtos.get(i).setPostLikeYn("Y");
-            else
-                dtos.get(i).setPostLikeYn("N");
-
-            // 좋아요 개수 확인
-            Integer postLikeCnt = postLikeRepository.countPostLikeByPostId(dtos.get(i).getPostId());
-            dtos.get(i).setPostLikeCnt(postLikeCnt);
-
-            // 게시글의 레시피 저장 여부, 레시피가 존재하면서 저장 했다면
-            if (dtos.get(i).getHaveRecipeYn().equals("Y") &&
-                    userRecipeRepository.findByPostIdAndUserEmail(postList.get(i).getId(), email).isPresent())
-                dtos.get(i).setSaveRecipeYn("Y");
-            else
-                dtos.get(i).setSaveRecipeYn("N");
-
-            //댓글 개수 세팅
-            Long commentCnt = postCommentRepository.getCountOfPostComment(postList.get(i).getId());
-            dtos.get(i).setCommentCnt(commentCnt);
-
-            //대표 댓글 작성자 및 내용 세팅
-            if (commentCnt != 0) {
-                PostComment comment = postCommentRepository.findFirstByPostIdAndPostCommentParentIdOrderByCreatedDateDesc(postList.get(i).getId(), (long) 0);
-                dtos.get(i).setCommentNickname(comment.getUser().getNickname());
-                dtos.get(i).setComment(comment.getContent());
-            } else {
-                dtos.get(i).setComment("N");
-                dtos.get(i).setCommentNickname("N");
-            }
-
-            //레시피가 있는 경우 검색
-            if (dtos.get(i).getHaveRecipeYn().equals("Y")) {
-                //ingredient 검색 후 매칭
-                List<RecipeIngredient> ingredients = recipeIngredientRepository.findByPostId(dtos.get(i).getPostId());
-                List<RecipeIngredientDto> ingredientDtos = ingredients.stream().map(RecipeIngredientDto::new).collect(Collectors.toList());
-                dtos.get(i).setIngredients(ingredientDtos);
-
-                //step 검색 후 매칭
-                List<RecipeStep> steps = recipeStepRepository.findByPostId(dtos.get(i).getPostId());
-                List<RecipeStepDto> stepDtos = steps.stream().map(RecipeStepDto::new).collect(Collectors.toList());
-                dtos.get(i).setSteps(stepDtos);
-            } else {
-                dtos.get(i).setIngredients(new ArrayList<>());
-                dtos.get(i).setSteps(new ArrayList<>());
-            }
-        }
+        return postFeedAssembler.assemble(principal.getId(), posts);
+    }
 
-        return new PageImpl<>(dtos, pageable, posts.getTotalElements());
+    public PostCursorResDto getPostsForMainByCursor(UserPrincipal principal, String cursor, int size) {
+        FeedCursor feedCursor = FeedCursor.decode(cursor);
+        return toVisibleCursorResult(principal.getId(), feedCursor, cursorPageSize.check(size),
+                (c, limit) -> postRepository.getLatestPostsForMainAfter(c.getCreatedDate(), c.getId(), PageRequest.of(0, limit)));
     }
 
     @Transactional
-    public Page<PostResDto> getUserPosts(String email, int number, int size) {
+    public Page<PostResDto> getUserPosts(UserPrincipal principal, int number, int size) {
 
         // Service에서 pageNumber와 size로 pageRequest를 생성 Pageable로 ? PageRequest는 Pageable의 구현채
         Pageable pageable = PageRequest.of(number, size);
 
         // Page 형식으로 해당 유저의 최신 게시물 들을 가져온다 ! Page형식으로 가져오면, total 개수, 각 contents, pageable 속성을 알 수 있다.
-        Page<Post> posts = postRepository.getUserLastestPosts(email, pageable);
-
-        // 각 posts (contents 개수 만큼)을 하나하나 List 형식으로 가져온다. 즉, Contents만 가져온다. .toList() 도 가능
-        List<Post> postList = posts.getContent();
-
-        // return 할 dto 형식 PostResDto로 Mapping ? 한다.
-        List<PostResDto> dtos = posts.stream().map(PostResDto::new).collect(Collectors.toList());
-
-        // List 안에 dto의 개수만큼 for 문
-        for (int i = 0; i < dtos.size(); i++) {
-            //image 매칭
-            // i번 째 postList 안에 이미지들을 가져온다.
-            List<PostImage> images = postList.get(i).getImages();
-            List<PostImageDto> imageDtos = images.stream().map(PostImageDto::new).collect(Collectors.toList());
-            dtos.get(i).setImages(imageDtos);
-
-            //alcoholTag 매칭
-            List<AlcoholTag> alcoholTags = postList.get(i).getAlcoholTags();
-            List<AlcoholTagDto> alcoholTagDtos = alcoholTags.stream().map(AlcoholTagDto::new).collect(Collectors.toList());
-            dtos.get(i).setAlcoholTags(alcoholTagDtos);
-
-            // 게시물 좋아요 여부
-            if (postLikeRepository.findByPostIdAndUserEmail(postList.get(i).getId(), email).isPresent())
-                dtos.get(i).setPostLikeYn("Y");
-            else
-                dtos.get(i).setPostLikeYn("N");
-
-            Integer postLikeCnt = postLikeRepository.countPostLikeByPostId(dtos.get(i).getPostId());
-            dtos.get(i).setPostLikeCnt(postLikeCnt);
-
-            // 게시글의 레시피 저장 여부, 레시피가 존재하면서 저장 했다면
-            if (dtos.get(i).getHaveRecipeYn().equals("Y") &&
-                    userRecipeRepository.findByPostIdAndUserEmail(postList.get(i).getId(), email).isPresent())
-                dtos.get(i).setSaveRecipeYn("Y");
-            else
-                dtos.get(i).setSaveRecipeYn("N");
-
-            Long commentCnt = postCommentRepository.getCountOfPostComment(postList.get(i).getId());
-            dtos.get(i).setCommentCnt(commentCnt);
-
-            //대표 댓글 작성자 및 내용 세팅
-            if (commentCnt != 0) {
-                PostComment comment = postCommentRepository.findFirstByPostIdAndPostCommentParentIdOrderByCreatedDateDesc(postList.get(i).getId(), (long) 0);
-                dtos.get(i).setCommentNickname(comment.getUser().getNickname());
-                dtos.get(i).setComment(comment.getContent());
-            } else {
-                dtos.get(i).setComment("N");
-                dtos.get(i).setCommentNickname("N");
-            }
+        Page<Post> posts = postRepository.getUserLastestPosts(principal.getId(), pageable);
+        return postFeedAssembler.assemble(principal.getId(), posts);
+    }
 
-            //레시피가 있는 경우 검색
-            if (dtos.get(i).getHaveRecipeYn().equals("Y")) {
-
-                //ingredient 검색 후 매칭
-                List<RecipeIngredient> ingredients = recipeIngredientRepository.findByPostId(dtos.get(i).getPostId());
-                List<RecipeIngredientDto> ingredientDtos = ingredients.stream().map(RecipeIngredientDto::new).collect(Collectors.toList());
-                dtos.get(i).setIngredients(ingredientDtos);
-
-                //step 검색 후 매칭
-                List<RecipeStep> steps = recipeStepRepository.findByPostId(dtos.get(i).getPostId());
-                List<RecipeStepDto> stepDtos = steps.stream().map(RecipeStepDto::new).collect(Collectors.toList());
-                dtos.get(i).setSteps(stepDtos);
-            } else {
-                dtos.get(i).setIngredients(new ArrayList<>());
-                dtos.get(i).setSteps(new ArrayList<>());
-            }
-        }
-        return new PageImpl<>(dtos, pageable, posts.getTotalElements());
+    public PostCursorResDto getUserPostsByCursor(UserPrincipal principal, String cursor, int size) {
+        int pageSize = cursorPageSize.check(size);
+        FeedCursor feedCursor = FeedCursor.decode(cursor);
+        List<Post> posts = postRepository.getUserLatestPostsAfter(principal.getId(), feedCursor.getCreatedDate(), feedCursor.getId(), PageRequest.of(0, pageSize + 1));
+        return toCursorResult(principal.getId(), posts, pageSize);
     }
 
-    public List<PostCommentDto> getComments(String email, Long postId) {
+    public List<PostCommentDto> getComments(UserPrincipal principal, Long postId) {
 
         if (!postRepository.existsById(postId)) {
             throw new CommonNotFoundException("postNotFound");
         }
 
-        if (!postCommentRepository.existsByPostId(postId)) {
+        // 댓글, 대댓글 전체와 좋아요 누른 댓글 아이디를 한번씩만 조회해서 메모리에서 트리로 조립한다
+        List<PostComment> comments = postCommentRepository.findAllByPostIdWithUser(postId);
+        if (comments.isEmpty()) {
             throw new CommonNotFoundException("commentNotFound");
         }
-
-        List<PostComment> comments = postCommentRepository.findCommentsByPostId(postId);
-        List<PostCommentDto> postCommentDtos = comments.stream().map(PostCommentDto::new).collect(Collectors.toList());
-
-        for (int i = 0; i < postCommentDtos.size(); i++) {
-            // 대댓글이 존재 한다면
-            if (postCommentRepository.existsByPostCommentParentId(postCommentDtos.get(i).getPostCommentId())) {
-                List<PostComment> secondComments = postCommentRepository
-                        .findSecondCommentsByCommentId(
-                                postId, postCommentDtos.get(i).getPostCommentId());
-
-                List<PostSecondCommentDto> secondCommentDtos = secondComments.stream().map(PostSecondCommentDto::new).collect(Collectors.toList());
-
-                // 대댓글 좋아요 여부 및 개수
-                for (int j = 0; j < secondCommentDtos.size(); j++) {
-                    if (commentLikeRepository.existsByPostCommentIdAndUserEmail(secondCommentDtos.get(j).getPostCommentId(), email)) {
-                        secondCommentDtos.get(j).setCommentLikeYn("Y");
-                    } else {
-                        secondCommentDtos.get(j).setCommentLikeYn("N");
-                    }
-
-                    Long likeCount = commentLikeRepository.countAllByPostCommentId(secondCommentDtos.get(j).getPostCommentId());
-                    secondCommentDtos.get(j).setCommentLikeCount(likeCount);
-                }
-
-                postCommentDtos.get(i).setSecondComments(secondCommentDtos);
-            } else { // 대댓글 존재 X
-                postCommentDtos.get(i).setSecondComments(new ArrayList<>());
+        Set<Long> likedCommentIds = new HashSet<>(commentLikeRepository.findLikedCommentIds(principal.getId(), postId));
+
+        List<PostCommentDto> postCommentDtos = new ArrayList<>();
+        Map<Long, PostCommentDto> parents = new HashMap<>();
+        for (PostComment comment : comments) {
+            // 차단 관계인 유저의 댓글은 (밑에 달린 대댓글까지) 보여주지 않는다
+            if (blockCache.isHidden(principal.getId(), comment.getUser().getId())) {
+                continue;
             }
+            if (isTopLevel(comment)) {
+                PostCommentDto dto = new PostCommentDto(comment);
+                dto.setCommentLikeYn(likedCommentIds.contains(comment.getId()) ? "Y" : "N");
+                dto.setCommentLikeCount(postCounterService.getCommentLikeCount(comment.getId(), comment.getLikeCount()));
+                dto.setSecondComments(new ArrayList<>());
+                postCommentDtos.add(dto);
+                parents.put(comment.getId(), dto);
+            }
+        }
 
-            // 댓글 좋아요 여부 및 개수
-            if (commentLikeRepository.existsByPostCommentIdAndUserEmail(postCommentDtos.get(i).getPostCommentId(), email)) {
-                postCommentDtos.get(i).setCommentLikeYn("Y");
-            } else {
-                postCommentDtos.get(i).setCommentLikeYn("N");
+        // 대댓글은 부모 댓글 밑으로 (부모가 없는 대댓글은 보여주지 않는다)
+        for (PostComment comment : comments) {
+            PostCommentDto parent = isTopLevel(comment) ? null : parents.get(comment.getPostCommentParentId());
+            if (parent != null && !blockCache.isHidden(principal.getId(), comment.getUser().getId())) {
+                PostSecondCommentDto dto = new PostSecondCommentDto(comment);
+                dto.setCommentLikeYn(likedCommentIds.contains(comment.getId()) ? "Y" : "N");
+                dto.setCommentLikeCount(postCounterService.getCommentLikeCount(comment.getId(), comment.getLikeCount()));
+                parent.getSecondComments().add(dto);
             }
-            Long likeCount = commentLikeRepository.countAllByPostCommentId(postCommentDtos.get(i).getPostCommentId());
-            postCommentDtos.get(i).setCommentLikeCount(likeCount);
         }
         return postCommentDtos;
     }
 
     @Transactional
-    public void updatePost(String email, Long postId, PostReqDto postReqDto) {
+    public void updatePost(UserPrincipal principal, Long postId, PostReqDto postReqDto) {
 
         Post post = postRepository.findById(postId).orElseThrow(() -> new CommonNotFoundException("postNotFound"));
 
         //로그인한 사용자가 작성한 글이 맞는 지 확인 후 예외처리
-        if (!post.getUser().getEmail().equals(email)) {
+        if (!post.getUser().getId().equals(principal.getId())) {
             throw new CommonBadRequestException("accessException");
         }
 
         //post 내용 update
         post.updatePost(postReqDto.getContent(), postReqDto.getHaveRecipeYn());
 
-        //기존 내용들 삭제
-        deleteForUpdate(post);
-
-        //AlcoholTag list 생성, 각각에 post 세팅, 저장
-        if (postReqDto.getAlcoholTags() != null && postReqDto.getAlcoholTags().size() > 0) {
-            List<AlcoholTag> updatedAlcoholTags = postReqDto.getAlcoholTags().stream().map(AlcoholTagDto::toEntity).collect(Collectors.toList());
-            updatedAlcoholTags.forEach(e -> e.changePost(post));
-            alcoholTagRepository.saveAll(updatedAlcoholTags);
-        }
-
-        //RecipeIngredient list 생성, 각각에 post 세팅, 저장
-        if (postReqDto.getIngredients() != null && postReqDto.getIngredients().size() > 0) {
-            List<RecipeIngredient> updatedIngredients = postReqDto.getIngredients().stream().map(RecipeIngredientDto::toEntity).collect(Collectors.toList());
-            updatedIngredients.forEach(e -> e.changePost(post));
-            recipeIngredientRepository.saveAll(updatedIngredients);
-        }
-
-        //RecipeStep list 생성, 각 post 세팅, 저장
-        if (postReqDto.getSteps() != null && postReqDto.getSteps().size() > 0) {
-            List<RecipeStep> updatedSteps = postReqDto.getSteps().stream().map(RecipeStepDto::toEntity).collect(Collectors.toList());
-            updatedSteps.forEach(e -> e.changePost(post));
-            recipeStepRepository.saveAll(updatedSteps);
-        }
+        // 레시피 태그가 바뀌면 인기 레시피 랭킹에 반영
+        List<String> previousRecipeNames = alcoholTagRepository.findRecipeNamesByPostId(post.getId());
+        popularRecipeRanking.changePostTags(post.getId(), postCounterService.getPostLikeCount(post.getId(), post.getLikeCount()),
+                previousRecipeNames, recipeNamesOf(postReqDto));
 
-    }
-
-    //flush를 통해 삭제 쿼리를 먼저 실행하도록 함.
-    public void deleteForUpdate(Post post) {
-        //alcoholTags, ingredients, steps는 갯수도 변경될 수 있으므로 데이터 삭제 후 삽입으로 update 구현
-        List<AlcoholTag> alcoholTags = alcoholTagRepository.findByPost(post);
-        List<RecipeIngredient> ingredients = recipeIngredientRepository.findByPostId(post.getId());
-        List<RecipeStep> steps = recipeStepRepository.findByPostId(post.getId());
-
-        //TODO : 쿼리실행이 하나씩 되고 있음. 성능 개선 필요.
-        alcoholTagRepository.deleteAll(alcoholTags);
-        recipeIngredientRepository.deleteAll(ingredients);
-        recipeStepRepository.deleteAll(steps);
-
-        alcoholTagRepository.flush();
-        recipeIngredientRepository.flush();
-        recipeStepRepository.flush();
+        // 술 태그, 재료, 레시피 단계는 바뀐 것만 반영 (태그 아이디와 저장한 레시피 유지)
+        postChildrenUpdater.update(post, postReqDto.getAlcoholTags(), postReqDto.getIngredients(), postReqDto.getSteps());
     }
 
     @Transactional
-    public void createComment(String email, Long postId, PostCommentReqDto postCommentReqDto) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+    public void createComment(UserPrincipal principal, Long postId, PostCommentReqDto postCommentReqDto) {
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
         Post post = postRepository.findById(postId).orElseThrow(() -> new CommonNotFoundException("postNotFound"));
 
         // 부모 댓글 존재하지 않을때
@@ -401,85 +303,31 @@ public class PostService {
                 .content(postCommentReqDto.getContent())
                 .build();
         postCommentRepository.save(postComment); // 댓글 저장
+        postCounterService.changePostCommentCount(post.getId(), 1);
 
         // 알림 추가
-        // 게시글, user (댓글 작성자), dto
-        uploadCommentAlarm(post, user, postCommentReqDto);
+        // 게시글, user (댓글 작성자), 댓글
+        uploadCommentAlarm(post, user, postComment);
     }
 
-    public Page<PostResDto> getFollowingPosts(String email, int number, int size) {
+    public Page<PostResDto> getFollowingPosts(UserPrincipal principal, int number, int size) {
 
         Pageable pageable = PageRequest.of(number, size);
-        Page<Post> posts = postRepository.getFollowingPosts(pageable, email);
-        List<Post> postList = posts.getContent();
-        List<PostResDto> dtos = posts.stream().map(PostResDto::new).collect(Collectors.toList());
-
-        for (int i = 0; i < dtos.size(); i++) {
-
-            //image 매칭
-            List<PostImage> images = postList.get(i).getImages();
-            List<PostImageDto> imageDtos = images.stream().map(PostImageDto::new).collect(Collectors.toList());
-            dtos.get(i).setImages(imageDtos);
-
-            //alcoholTag 매칭
-            List<AlcoholTag> alcoholTags = postList.get(i).getAlcoholTags();
-            List<AlcoholTagDto> alcoholTagDtos = alcoholTags.stream().map(AlcoholTagDto::new).collect(Collectors.toList());
-            dtos.get(i).setAlcoholTags(alcoholTagDtos);
-
-            //게시글 좋아요여부 확인
-            if (postLikeRepository.findByPostIdAndUserEmail(postList.get(i).getId(), email).isPresent()) {
-                dtos.get(i).setPostLikeYn("Y");
-            } else {
-                dtos.get(i).setPostLikeYn("N");
-            }
-
-            Integer postLikeCnt = postLikeRepository.countPostLikeByPostId(dtos.get(i).getPostId());
-            dtos.get(i).setPostLikeCnt(postLikeCnt);
-
-            // 게시글의 레시피 저장 여부, 레시피가 존재하면서 저장 했다면
-            if (dtos.get(i).getHaveRecipeYn().equals("Y") &&
-                    userRecipeRepository.findByPostIdAndUserEmail(postList.get(i).getId(), email).isPresent())
-                dtos.get(i).setSaveRecipeYn("Y");
-            else
-                dtos.get(i).setSaveRecipeYn("N");
-
-            //댓글 수 세팅
-            Long commentCnt = postCommentRepository.getCountOfPostComment(postList.get(i).getId());
-            dtos.get(i).setCommentCnt(commentCnt);
-
-            //대표 댓글 작성자 및 내용 세팅
-            if (commentCnt != 0) {
-                PostComment comment = postCommentRepository.findFirstByPostIdAndPostCommentParentIdOrderByCreatedDateDesc(postList.get(i).getId(), (long) 0);
-                dtos.get(i).setCommentNickname(comment.getUser().getNickname());
-                dtos.get(i).setComment(comment.getContent());
-            } else {
-                dtos.get(i).setComment("N");
-                dtos.get(i).setCommentNickname("N");
-            }
+        Page<Post> posts = postRepository.getFollowingPosts(pageable, principal.getId());
+        return postFeedAssembler.assemble(principal.getId(), posts);
+    }
 
-            //레시피가 있는 경우 검색
-            if (dtos.get(i).getHaveRecipeYn().equals("Y")) {
-                //ingredient 검색 후 매칭
-                List<RecipeIngredient> ingredients = recipeIngredientRepository.findByPostId(dtos.get(i).getPostId());
-                List<RecipeIngredientDto> ingredientDtos = ingredients.stream().map(RecipeIngredientDto::new).collect(Collectors.toList());
-                dtos.get(i).setIngredients(ingredientDtos);
-
-                //step 검색 후 매칭
-                List<RecipeStep> steps = recipeStepRepository.findByPostId(dtos.get(i).getPostId());
-                List<RecipeStepDto> stepDtos = steps.stream().map(RecipeStepDto::new).collect(Collectors.toList());
-                dtos.get(i).setSteps(stepDtos);
-            } else {
-                dtos.get(i).setIngredients(new ArrayList<>());
-                dtos.get(i).setSteps(new ArrayList<>());
-            }
-        }
+    public PostCursorResDto getFollowingPostsByCursor(UserPrincipal principal, String cursor, int size) {
+        FeedCursor feedCursor = FeedCursor.decode(cursor);
 
-        return new PageImpl<>(dtos, pageable, posts.getTotalElements());
+        // 미리 적재해둔 타임라인에서 읽는다
+        return toVisibleCursorResult(principal.getId(), feedCursor, cursorPageSize.check(size),
+                (c, limit) -> timelineService.getFollowingPosts(principal.getId(), c, limit));
     }
 
     @Transactional
-    public RecipeSaveResDto changeSaveRecipe(String email, Long alcoholTagId) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+    public RecipeSaveResDto changeSaveRecipe(UserPrincipal principal, Long alcoholTagId) {
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
         AlcoholTag alcoholTag = alcoholTagRepository.findById(alcoholTagId).orElseThrow(() -> new CommonNotFoundException("alcoholTagNotFound"));
 
         if (alcoholTag.getRecipeYn().equals("N")) {
@@ -497,18 +345,22 @@ public class PostService {
                     .build();
             recipeSaveResDto = RecipeSaveResDto.builder().saveYn("Y").build();
             userRecipeRepository.save(userRecipe);
+            userStatsService.changeRecipeCounts(Collections.singletonList(user.getId()), 1);
+            viewerRelationCache.changeRecipeSave(user.getId(), alcoholTag.getId(), true);
         } else {
             // 이미 저장된 레시피일경우 삭제하자
             UserRecipe userRecipe = userRecipeRepository.findByAlcoholTagAndUser(alcoholTag, user);
             recipeSaveResDto = RecipeSaveResDto.builder().saveYn("N").build();
             userRecipeRepository.delete(userRecipe);
+            userStatsService.changeRecipeCounts(Collections.singletonList(user.getId()), -1);
+            viewerRelationCache.changeRecipeSave(user.getId(), alcoholTag.getId(), false);
         }
         return recipeSaveResDto;
     }
 
     @Transactional
-    public PostLikeChangeResDto changeLikePost(String email, Long postId) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+    public PostLikeChangeResDto changeLikePost(UserPrincipal principal, Long postId) {
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
         Post post = postRepository.findById(postId).orElseThrow(() -> new CommonNotFoundException("postNotFound"));
         PostLikeChangeResDto postLikeChangeResDto = new PostLikeChangeResDto();
         // 만약 해당 게시물에 좋아요를 누르지 않았다면
@@ -521,406 +373,195 @@ public class PostService {
                     .build();
             postLikeChangeResDto = PostLikeChangeResDto.builder().likeYn("Y").build();
 
-            // alarm 추가, (게시글 주인, 좋아요 누른사람)
-            uploadLikeAlarm(post, user);
-
             postLikeRepository.save(postLike);
+
+            // alarm 추가, (게시글 주인, 좋아요 누른사람)
+            uploadLikeAlarm(post, user, postLike);
+            postCounterService.changePostLikeCount(post.getId(), 1);
+            userStatsService.changeLikeCounts(Collections.singletonList(user.getId()), 1);
+            popularRecipeRanking.changePostLike(post.getId(), alcoholTagRepository.findRecipeNamesByPostId(post.getId()), 1);
+            viewerRelationCache.changePostLike(user.getId(), post.getId(), true);
         } else {
             // 이미 저장된 레시피일경우 삭제하자
             PostLike postLike = postLikeRepository.findByPostAndUser(post, user);
             postLikeRepository.delete(postLike);
+            postCounterService.changePostLikeCount(post.getId(), -1);
+            userStatsService.changeLikeCounts(Collections.singletonList(user.getId()), -1);
+            popularRecipeRanking.changePostLike(post.getId(), alcoholTagRepository.findRecipeNamesByPostId(post.getId()), -1);
+            viewerRelationCache.changePostLike(user.getId(), post.getId(), false);
             postLikeChangeResDto = PostLikeChangeResDto.builder().likeYn("N").build();
         }
 
         return postLikeChangeResDto;
     }
 
-    public Page<PostResDto> getUserLikedPosts(String email, int number, int size) {
+    public Page<PostResDto> getUserLikedPosts(UserPrincipal principal, int number, int size) {
 
         Pageable pageable = PageRequest.of(number, size);
 
         // 좋아요 누른 게시글들 최신순으로 가져온다, Paging 처리
-        Page<Post> posts = postLikeRepository.findPostLikeByUserEmail(pageable, email);
-        List<Post> postList = posts.getContent();
-        List<PostResDto> dtos = posts.stream().map(PostResDto::new).collect(Collectors.toList());
-
-        for (int i = 0; i < dtos.size(); i++) {
-            //image 매칭
-            List<PostImage> images = postList.get(i).getImages();
-            List<PostImageDto> imageDtos = images.stream().map(PostImageDto::new).collect(Collectors.toList());
-            dtos.get(i).setImages(imageDtos);
-
-            //alcoholTag 매칭
-            List<AlcoholTag> alcoholTags = postList.get(i).getAlcoholTags();
-            List<AlcoholTagDto> alcoholTagDtos = alcoholTags.stream().map(AlcoholTagDto::new).collect(Collectors.toList());
-            dtos.get(i).setAlcoholTags(alcoholTagDtos);
-
-            //게시글 좋아요여부 확인
-            if (postLikeRepository.findByPostIdAndUserEmail(postList.get(i).getId(), email).isPresent()) {
-                dtos.get(i).setPostLikeYn("Y");
-            } else {
-                dtos.get(i).setPostLikeYn("N");
-            }
-
-            // 게시글의 레시피 저장 여부, 레시피가 존재하면서 저장 했다면
-            if (dtos.get(i).getHaveRecipeYn().equals("Y") &&
-                    userRecipeRepository.findByPostIdAndUserEmail(postList.get(i).getId(), email).isPresent())
-                dtos.get(i).setSaveRecipeYn("Y");
-            else
-                dtos.get(i).setSaveRecipeYn("N");
-
-            Integer postLikeCnt = postLikeRepository.countPostLikeByPostId(dtos.get(i).getPostId());
-            dtos.get(i).setPostLikeCnt(postLikeCnt);
-
-            //댓글 수 세팅
-            Long commentCnt = postCommentRepository.getCountOfPostComment(postList.get(i).getId());
-            dtos.get(i).setCommentCnt(commentCnt);
-
-            //대표 댓글 작성자 및 내용 세팅
-            if (commentCnt != 0) {
-                PostComment comment = postCommentRepository.findFirstByPostIdAndPostCommentParentIdOrderByCreatedDateDesc(postList.get(i).getId(), (long) 0);
-                dtos.get(i).setCommentNickname(comment.getUser().getNickname());
-                dtos.get(i).setComment(comment.getContent());
-            } else {
-                dtos.get(i).setComment("N");
-                dtos.get(i).setCommentNickname("N");
-            }
-
-            //레시피가 있는 경우 검색
-            if (dtos.get(i).getHaveRecipeYn().equals("Y")) {
-                //ingredient 검색 후 매칭
-                List<RecipeIngredient> ingredients = recipeIngredientRepository.findByPostId(dtos.get(i).getPostId());
-                List<RecipeIngredientDto> ingredientDtos = ingredients.stream().map(RecipeIngredientDto::new).collect(Collectors.toList());
-                dtos.get(i).setIngredients(ingredientDtos);
-
-                //step 검색 후 매칭
-                List<RecipeStep> steps = recipeStepRepository.findByPostId(dtos.get(i).getPostId());
-                List<RecipeStepDto> stepDtos = steps.stream().map(RecipeStepDto::new).collect(Collectors.toList());
-                dtos.get(i).setSteps(stepDtos);
-            } else {
-                dtos.get(i).setIngredients(new ArrayList<>());
-                dtos.get(i).setSteps(new ArrayList<>());
-            }
-        }
-
-        return new PageImpl<>(dtos, pageable, posts.getTotalElements());
+        Page<Post> posts = postLikeRepository.findPostLikeByUserId(pageable, principal.getId());
+        return postFeedAssembler.assemble(principal.getId(), posts);
     }
 
-    public Page<PostResDto> getOtherUserPosts(String email, Long userId, int number, int size) {
+    public Page<PostResDto> getOtherUserPosts(UserPrincipal principal, Long userId, int number, int size) {
         // 다른 사람의 메인 게시물들을 가져온다 /user/{userId}/posts
         User user = userRepository.findById(userId).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
 
         // Service에서 pageNumber와 size로 pageRequest를 생성 Pageable로 ? PageRequest는 Pageable의 구현채
         Pageable pageable = PageRequest.of(number, size);
-        Page<Post> posts = postRepository.getUserLastestPosts(user.getEmail(), pageable);
-        List<Post> postList = posts.getContent();
-
-        // return 할 dto 형식 PostResDto로 Mapping ? 한다.
-        List<PostResDto> dtos = posts.stream().map(PostResDto::new).collect(Collectors.toList());
-
-        // List 안에 dto의 개수만큼 for 문
-        for (int i = 0; i < dtos.size(); i++) {
-            //image 매칭
-            // i번 째 postList 안에 이미지들을 가져온다.
-            List<PostImage> images = postList.get(i).getImages();
-            List<PostImageDto> imageDtos = images.stream().map(PostImageDto::new).collect(Collectors.toList());
-            dtos.get(i).setImages(imageDtos);
-
-            //alcoholTag 매칭
-            List<AlcoholTag> alcoholTags = postList.get(i).getAlcoholTags();
-            List<AlcoholTagDto> alcoholTagDtos = alcoholTags.stream().map(AlcoholTagDto::new).collect(Collectors.toList());
-            dtos.get(i).setAlcoholTags(alcoholTagDtos);
-
-            // 게시물 좋아요 여부
-            if (postLikeRepository.findByPostIdAndUserEmail(postList.get(i).getId(), email).isPresent())
-                dtos.get(i).setPostLikeYn("Y");
-            else
-                dtos.get(i).setPostLikeYn("N");
-
-            Integer postLikeCnt = postLikeRepository.countPostLikeByPostId(dtos.get(i).getPostId());
-            dtos.get(i).setPostLikeCnt(postLikeCnt);
-
-            // 게시글의 레시피 저장 여부, 레시피가 존재하면서 저장 했다면
-            if (dtos.get(i).getHaveRecipeYn().equals("Y") &&
-                    userRecipeRepository.findByPostIdAndUserEmail(postList.get(i).getId(), email).isPresent())
-                dtos.get(i).setSaveRecipeYn("Y");
-            else
-                dtos.get(i).setSaveRecipeYn("N");
-
-            Long commentCnt = postCommentRepository.getCountOfPostComment(postList.get(i).getId());
-            dtos.get(i).setCommentCnt(commentCnt);
-
-            //대표 댓글 작성자 및 내용 세팅
-            if (commentCnt != 0) {
-                PostComment comment = postCommentRepository.findFirstByPostIdAndPostCommentParentIdOrderByCreatedDateDesc(postList.get(i).getId(), (long) 0);
-                dtos.get(i).setCommentNickname(comment.getUser().getNickname());
-                dtos.get(i).setComment(comment.getContent());
-            } else {
-                dtos.get(i).setComment("N");
-                dtos.get(i).setCommentNickname("N");
-            }
+        Page<Post> posts = postRepository.getUserLastestPosts(user.getId(), pageable);
+        return postFeedAssembler.assemble(principal.getId(), posts);
+    }
+
+    public PostCursorResDto getOtherUserPostsByCursor(UserPrincipal principal, Long userId, String cursor, int size) {
+        int pageSize = cursorPageSize.check(size);
+        User user = userRepository.findById(userId).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+        FeedCursor feedCursor = FeedCursor.decode(cursor);
 
-            //레시피가 있는 경우 검색
-            if (dtos.get(i).getHaveRecipeYn().equals("Y")) {
-
-                //ingredient 검색 후 매칭
-                List<RecipeIngredient> ingredients = recipeIngredientRepository.findByPostId(dtos.get(i).getPostId());
-                List<RecipeIngredientDto> ingredientDtos = ingredients.stream().map(RecipeIngredientDto::new).collect(Collectors.toList());
-                dtos.get(i).setIngredients(ingredientDtos);
-
-                //step 검색 후 매칭
-                List<RecipeStep> steps = recipeStepRepository.findByPostId(dtos.get(i).getPostId());
-                List<RecipeStepDto> stepDtos = steps.stream().map(RecipeStepDto::new).collect(Collectors.toList());
-                dtos.get(i).setSteps(stepDtos);
-            } else {
-                dtos.get(i).setIngredients(new ArrayList<>());
-                dtos.get(i).setSteps(new ArrayList<>());
+        // 차단 관계면 게시글을 하나도 보여주지 않는다
+        if (blockCache.isHidden(principal.getId(), user.getId())) {
+            return toCursorResult(principal.getId(), new ArrayList<>(), pageSize);
+        }
+        List<Post> posts = postRepository.getUserLatestPostsAfter(user.getId(), feedCursor.getCreatedDate(), feedCursor.getId(), PageRequest.of(0, pageSize + 1));
+        return toCursorResult(principal.getId(), posts, pageSize);
+    }
+
+    private boolean isTopLevel(PostComment comment) {
+        return comment.getPostCommentParentId() == null || comment.getPostCommentParentId() == 0;
+    }
+
+    private List<String> recipeNamesOf(PostReqDto postReqDto) {
+        if (postReqDto.getAlcoholTags() == null) {
+            return new ArrayList<>();
+        }
+        return postReqDto.getAlcoholTags().stream()
+                .filter(tag -> "Y".equals(tag.getRecipeYn()))
+                .map(AlcoholTagDto::getName)
+                .collect(Collectors.toList());
+    }
+
+    /*
+    차단 관계인 작성자의 게시글을 걸러내면서 한 페이지 (size + 1 개) 를 채울 때까지 이어서 읽는다.
+    한번에 모자란 개수 + BLOCK_OVER_FETCH 개씩, 최대 BLOCK_FETCH_ROUNDS 번까지 읽고
+    그래도 못 채우면 읽은 곳까지를 다음 커서로 돌려준다. (페이지가 덜 차도 hasNextYn 은 Y)
+     */
+    private PostCursorResDto toVisibleCursorResult(Long viewerId, FeedCursor cursor, int size,
+                                                   BiFunction<FeedCursor, Integer, List<Post>> fetcher) {
+        List<Post> visible = new ArrayList<>();
+        FeedCursor scanned = cursor;
+        boolean exhausted = false;
+        for (int round = 0; round < BLOCK_FETCH_ROUNDS && visible.size() <= size; round++) {
+            int limit = size + 1 - visible.size() + BLOCK_OVER_FETCH;
+            List<Post> fetched = fetcher.apply(scanned, limit);
+            fetched.stream()
+                    .filter(post -> !blockCache.isHidden(viewerId, post.getUser().getId()))
+                    .forEach(visible::add);
+            if (fetched.size() < limit) {
+                exhausted = true;
+                break;
             }
+            scanned = FeedCursor.of(fetched.get(fetched.size() - 1));
+        }
+
+        if (visible.size() > size || exhausted) {
+            return toCursorResult(viewerId, visible, size);
         }
-        return new PageImpl<>(dtos, pageable, posts.getTotalElements());
+        return PostCursorResDto.builder()
+                .posts(postFeedAssembler.assemble(viewerId, visible))
+                .nextCursor(scanned.encode())
+                .hasNextYn("Y")
+                .build();
+    }
+
+    // size + 1 개를 조회했으므로 넘치는 한개로 다음 페이지 여부를 판단한다
+    private PostCursorResDto toCursorResult(Long viewerId, List<Post> posts, int size) {
+        boolean hasNext = size > 0 && posts.size() > size;
+        List<Post> page = posts.size() > size ? posts.subList(0, Math.max(size, 0)) : posts;
+        String nextCursor = hasNext ? FeedCursor.of(page.get(page.size() - 1)).encode() : null;
+
+        return PostCursorResDto.builder()
+                .posts(postFeedAssembler.assemble(viewerId, page))
+                .nextCursor(nextCursor)
+                .hasNextYn(hasNext ? "Y" : "N")
+                .build();
     }
 
-    public Page<PostResDto> getOtherUsersLikedPosts(String email, Long userId, int number, int size) {
+    public Page<PostResDto> getOtherUsersLikedPosts(UserPrincipal principal, Long userId, int number, int size) {
         // 다른 사람의 메인 게시물들을 가져온다 /user/{userId}/posts
         User user = userRepository.findById(userId).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
 
         // 만약 비공개 계정인데 해당 정보를 가져올려고 한다면
-        if (user.getPrivacyYn().equals("Y") && !user.getEmail().equals(email)) {
+        if (user.getPrivacyYn().equals("Y") && !user.getId().equals(principal.getId())) {
             throw new CommonBadRequestException("userPrivacyInvaded");
         }
         // Service에서 pageNumber와 size로 pageRequest를 생성 Pageable로 ? PageRequest는 Pageable의 구현채
         Pageable pageable = PageRequest.of(number, size);
 
         // 다른 유저 (user)가 좋아요를 누른 게시물들을 가져온다
-        Page<Post> posts = postLikeRepository.findPostLikeByUserEmail(pageable, user.getEmail());
-        List<Post> postList = posts.getContent();
-
-        // return 할 dto 형식 PostResDto로 Mapping ? 한다.
-        List<PostResDto> dtos = posts.stream().map(PostResDto::new).collect(Collectors.toList());
-
-        // List 안에 dto의 개수만큼 for 문
-        for (int i = 0; i < dtos.size(); i++) {
-            //image 매칭
-            // i번 째 postList 안에 이미지들을 가져온다.
-            List<PostImage> images = postList.get(i).getImages();
-            List<PostImageDto> imageDtos = images.stream().map(PostImageDto::new).collect(Collectors.toList());
-            dtos.get(i).setImages(imageDtos);
-
-            //alcoholTag 매칭
-            List<AlcoholTag> alcoholTags = postList.get(i).getAlcoholTags();
-            List<AlcoholTagDto> alcoholTagDtos = alcoholTags.stream().map(AlcoholTagDto::new).collect(Collectors.toList());
-            dtos.get(i).setAlcoholTags(alcoholTagDtos);
-
-            // 게시물 좋아요 여부
-            if (postLikeRepository.findByPostIdAndUserEmail(postList.get(i).getId(), email).isPresent())
-                dtos.get(i).setPostLikeYn("Y");
-            else
-                dtos.get(i).setPostLikeYn("N");
-
-            Integer postLikeCnt = postLikeRepository.countPostLikeByPostId(dtos.get(i).getPostId());
-            dtos.get(i).setPostLikeCnt(postLikeCnt);
-
-            // 게시글의 레시피 저장 여부, 레시피가 존재하면서 저장 했다면
-            if (dtos.get(i).getHaveRecipeYn().equals("Y") &&
-                    userRecipeRepository.findByPostIdAndUserEmail(postList.get(i).getId(), email).isPresent())
-                dtos.get(i).setSaveRecipeYn("Y");
-            else
-                dtos.get(i).setSaveRecipeYn("N");
-
-            Long commentCnt = postCommentRepository.getCountOfPostComment(postList.get(i).getId());
-            dtos.get(i).setCommentCnt(commentCnt);
-
-            //대표 댓글 작성자 및 내용 세팅
-            if (commentCnt != 0) {
-                PostComment comment = postCommentRepository.findFirstByPostIdAndPostCommentParentIdOrderByCreatedDateDesc(postList.get(i).getId(), (long) 0);
-                dtos.get(i).setCommentNickname(comment.getUser().getNickname());
-                dtos.get(i).setComment(comment.getContent());
-            } else {
-                dtos.get(i).setComment("N");
-                dtos.get(i).setCommentNickname("N");
-            }
-
-            //레시피가 있는 경우 검색
-            if (dtos.get(i).getHaveRecipeYn().equals("Y")) {
-
-                //ingredient 검색 후 매칭
-                List<RecipeIngredient> ingredients = recipeIngredientRepository.findByPostId(dtos.get(i).getPostId());
-                List<RecipeIngredientDto> ingredientDtos = ingredients.stream().map(RecipeIngredientDto::new).collect(Collectors.toList());
-                dtos.get(i).setIngredients(ingredientDtos);
-
-                //step 검색 후 매칭
-                List<RecipeStep> steps = recipeStepRepository.findByPostId(dtos.get(i).getPostId());
-                List<RecipeStepDto> stepDtos = steps.stream().map(RecipeStepDto::new).collect(Collectors.toList());
-                dtos.get(i).setSteps(stepDtos);
-            } else {
-                dtos.get(i).setIngredients(new ArrayList<>());
-                dtos.get(i).setSteps(new ArrayList<>());
-            }
-        }
-        return new PageImpl<>(dtos, pageable, posts.getTotalElements());
+        Page<Post> posts = postLikeRepository.findPostLikeByUserId(pageable, user.getId());
+        return postFeedAssembler.assemble(principal.getId(), posts);
     }
 
-    public Page<PostResDto> getSearchPosts(String email, String recipeName, int number, int size) {
+    public Page<PostResDto> getSearchPosts(UserPrincipal principal, String recipeName, int number, int size) {
         Pageable pageable = PageRequest.of(number, size);
 
         Page<Post> posts = postRepository.getSearchPosts(recipeName, pageable);
-        List<Post> postList = posts.getContent();
-        List<PostResDto> dtos = postList.stream().map(PostResDto::new).collect(Collectors.toList());
-
-        for (int i = 0; i < dtos.size(); i++) {
-            //image 매칭
-            List<PostImage> images = postList.get(i).getImages();
-            List<PostImageDto> imageDtos = images.stream().map(PostImageDto::new).collect(Collectors.toList());
-            dtos.get(i).setImages(imageDtos);
-
-            //alcoholTag 매칭
-            List<AlcoholTag> alcoholTags = postList.get(i).getAlcoholTags();
-            List<AlcoholTagDto> alcoholTagDtos = alcoholTags.stream().map(AlcoholTagDto::new).collect(Collectors.toList());
-            dtos.get(i).setAlcoholTags(alcoholTagDtos);
-
-            //게시글 좋아요여부 확인
-            if (postLikeRepository.findByPostIdAndUserEmail(postList.get(i).getId(), email).isPresent()) {
-                dtos.get(i).setPostLikeYn("Y");
-            } else {
-                dtos.get(i).setPostLikeYn("N");
-            }
-
-            // 게시글의 레시피 저장 여부, 레시피가 존재하면서 저장 했다면
-            if (dtos.get(i).getHaveRecipeYn().equals("Y") &&
-                    userRecipeRepository.findByPostIdAndUserEmail(postList.get(i).getId(), email).isPresent())
-                dtos.get(i).setSaveRecipeYn("Y");
-            else
-                dtos.get(i).setSaveRecipeYn("N");
-
-            Integer postLikeCnt = postLikeRepository.countPostLikeByPostId(dtos.get(i).getPostId());
-            dtos.get(i).setPostLikeCnt(postLikeCnt);
-
-            //댓글 수 세팅
-            Long commentCnt = postCommentRepository.getCountOfPostComment(postList.get(i).getId());
-            dtos.get(i).setCommentCnt(commentCnt);
-
-            //대표 댓글 작성자 및 내용 세팅
-            if (commentCnt != 0) {
-                PostComment comment = postCommentRepository.findFirstByPostIdAndPostCommentParentIdOrderByCreatedDateDesc(postList.get(i).getId(), (long) 0);
-                dtos.get(i).setCommentNickname(comment.getUser().getNickname());
-                dtos.get(i).setComment(comment.getContent());
-            } else {
-                dtos.get(i).setComment("N");
-                dtos.get(i).setCommentNickname("N");
-            }
-
-            //레시피가 있는 경우 검색
-            if (dtos.get(i).getHaveRecipeYn().equals("Y")) {
-                //ingredient 검색 후 매칭
-                List<RecipeIngredient> ingredients = recipeIngredientRepository.findByPostId(dtos.get(i).getPostId());
-                List<RecipeIngredientDto> ingredientDtos = ingredients.stream().map(RecipeIngredientDto::new).collect(Collectors.toList());
-                dtos.get(i).setIngredients(ingredientDtos);
-
-                //step 검색 후 매칭
-                List<RecipeStep> steps = recipeStepRepository.findByPostId(dtos.get(i).getPostId());
-                List<RecipeStepDto> stepDtos = steps.stream().map(RecipeStepDto::new).collect(Collectors.toList());
-                dtos.get(i).setSteps(stepDtos);
-            } else {
-                dtos.get(i).setIngredients(new ArrayList<>());
-                dtos.get(i).setSteps(new ArrayList<>());
-            }
-        }
-        return new PageImpl<>(dtos, pageable, posts.getTotalElements());
+        return postFeedAssembler.assemble(principal.getId(), posts);
     }
 
     @Transactional
-    public void deletePostById(String email, Long postId) {
+    public void deletePostById(UserPrincipal principal, Long postId) {
 
         Post post = postRepository.findById(postId).orElseThrow(() -> new CommonNotFoundException("postNotFound"));
-        if (!post.getUser().getEmail().equals(email)) {
+        if (!post.getUser().getId().equals(principal.getId())) {
             throw new CommonBadRequestException("accessException");
         }
 
-        List<PostImage> images = post.getImages();
-        images.forEach(e -> {
-            try {
-                s3Service.delete(e.getFilePath());
-            } catch (IOException ioException) {
-                ioException.printStackTrace();
-            }
-        });
-
-        postRepository.delete(post);
+        // 댓글, 좋아요 ... 는 테이블마다 한번씩 한꺼번에 지운다
+        postDeleter.delete(post);
     }
 
     @Transactional
-    public CommentLikeResDto createCommentLike(String email, Long postCommentId) {
+    public CommentLikeResDto createCommentLike(UserPrincipal principal, Long postCommentId) {
 
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
         PostComment postComment = postCommentRepository.findById(postCommentId).orElseThrow(() -> new CommonNotFoundException("commentNotFound"));
 
         CommentLike commentLike = commentLikeRepository.findByPostCommentAndUser(postComment, user).orElse(null);
         CommentLikeResDto commentLikeResDto = new CommentLikeResDto();
         if (commentLike != null) {
             commentLikeRepository.delete(commentLike);
+            postCounterService.changeCommentLikeCount(postComment.getId(), -1);
             commentLikeResDto = CommentLikeResDto.builder().likeYn("N").build();
         } else {
             CommentLike createdCommentLike = CommentLike.builder().postComment(postComment).user(user).build();
             commentLikeRepository.save(createdCommentLike);
+            postCounterService.changeCommentLikeCount(postComment.getId(), 1);
             commentLikeResDto = CommentLikeResDto.builder().likeYn("Y").build();
         }
         return commentLikeResDto;
     }
 
-    @Transactional
-    public void uploadCommentAlarm(Post post, User user, PostCommentReqDto postCommentReqDto) {
-        // 댓글 작성자 (user), 게시글 주인, 대댓글이면 댓글 주인
-        if (post.getUser().getId() != user.getId()) { // 게시글 작성자와 댓글 작성자가 다르다면, 게시글 작성자에게 알림.
-            if (postCommentReqDto.getPostCommentParentId() != 0) { // 대댓글 이라면 댓글 주인에게도 알림
-                PostComment parentComment = postCommentRepository
-                        .findById(postCommentReqDto.getPostCommentParentId())
-                        .orElseThrow(() -> new CommonNotFoundException("parentCommentNotFound"));
-
-                if (parentComment.getUser().getId() != user.getId()) { // 대댓글이고 작성자와 다르다면
-                    Alarm alarm = Alarm.builder().user(parentComment.getUser()).userSend(user).type("comment").content(
-                            user.getNickname() + "님이 회원님의 댓글에 댓글을 남겼습니다." + postCommentReqDto.getContent() + "'"
-                    ).readYn("N").build();
-                    alarmRepository.save(alarm);
-                }
-            }
+    // 알림은 이벤트만 쌓고 NotificationDispatcher 가 alarm 으로 옮긴다
+    private void uploadCommentAlarm(Post post, User user, PostComment postComment) {
+        // 댓글 작성자 (user), 게시글 주인, 대댓글이면 댓글 주인 (본인에게는 보내지 않는다)
+        String key = "comment:" + postComment.getId() + ":";
+        if (postComment.getPostCommentParentId() != 0) { // 대댓글 이라면 댓글 주인에게도 알림
+            PostComment parentComment = postCommentRepository
+                    .findById(postComment.getPostCommentParentId())
+                    .orElseThrow(() -> new CommonNotFoundException("parentCommentNotFound"));
 
-            Alarm alarm = Alarm.builder().user(post.getUser()).userSend(user).type("comment").content(
-                    user.getNickname() + "님이 회원님의 게시글에 댓글을 남겼습니다. '" + postCommentReqDto.getContent() + "'"
-            ).readYn("N").build();
-            alarmRepository.save(alarm);
-        } else {
-            if (postCommentReqDto.getPostCommentParentId() != 0) { // 대댓글 이라면 댓글 주인에게도 알림
-                PostComment parentComment = postCommentRepository
-                        .findById(postCommentReqDto.getPostCommentParentId())
-                        .orElseThrow(() -> new CommonNotFoundException("parentCommentNotFound"));
-
-                if (parentComment.getUser().getId() != user.getId()) { // 대댓글이고 작성자와 다르다면
-                    Alarm alarm = Alarm.builder().user(parentComment.getUser()).userSend(user).type("comment").content(
-                            user.getNickname() + "님이 회원님의 댓글에 댓글을 남겼습니다." + postCommentReqDto.getContent() + "'"
-                    ).readYn("N").build();
-                    alarmRepository.save(alarm);
-                }
-            }
+            notificationDispatcher.enqueue(key + parentComment.getUser().getId(), "reply",
+                    parentComment.getUser().getId(), user.getId(), user.getNickname(), post.getId(), postComment.getContent());
         }
-        
-        //새 알람 존재 여부 변경
-        user.changeNewAlarmYn("Y");
-    }
 
-    @Transactional
-    public void uploadLikeAlarm(Post post, User user) {
-        if (post.getUser() != user) { // 게시글 주인과 좋아요 누른 사용자가 다른 사람이라면 알림
-            Alarm alarm = Alarm.builder()
-                    .content(user.getNickname() + "님이 회원님의 게시글에 좋아요를 눌렀습니다.")
-                    .user(post.getUser())
-                    .userSend(user)
-                    .type("like")
-                    .readYn("N")
-                    .build();
-            alarmRepository.save(alarm);
-        }
+        notificationDispatcher.enqueue(key + post.getUser().getId(), "comment",
+                post.getUser().getId(), user.getId(), user.getNickname(), post.getId(), postComment.getContent());
+    }
 
-        //새 알람 존재 여부 변경
-        user.changeNewAlarmYn("Y");
+    private void uploadLikeAlarm(Post post, User user, PostLike postLike) {
+        notificationDispatcher.enqueue("like:" + postLike.getId(), "like",
+                post.getUser().getId(), user.getId(), user.getNickname(), post.getId(), null);
     }
 }
@@ -0,0 +1,95 @@
+package kr.co.theplay.service.post;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kr.co.theplay.common.ExpireAfterLoad;
+import kr.co.theplay.domain.post.PostLikeRepository;
+import kr.co.theplay.domain.user.UserRecipeRepository;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+import static kr.co.theplay.common.TransactionCallbacks.afterCommit;
+
+/*
+유저별 좋아요 누른 게시글 아이디, 저장한 레시피(술 태그) 아이디 캐시.
+피드 조회 시 처음 한번만 아이디 목록을 읽어 압축 비트맵에 올려두고, 이후 좋아요/저장 여부는 메모리에서 확인한다.
+좋아요/레시피 저장 변경은 커밋 이후 캐시에 올라와 있는 유저만 바로 반영하고, 오래 안쓰이거나 개수를 넘으면 내보낸다.
+다른 서버에서 일어난 변경은 expire-after-load 뒤에 반영된다. (ExpireAfterLoad)
+ */
+@Component
+public class ViewerRelationCache {
+
+    private final PostLikeRepository postLikeRepository;
+    private final UserRecipeRepository userRecipeRepository;
+    private final Cache<Long, ViewerRelations> cache;
+
+    public ViewerRelationCache(PostLikeRepository postLikeRepository,
+                               UserRecipeRepository userRecipeRepository,
+                               @Value("${viewer-relation-cache.maximum-size:10000}") long maximumSize,
+                               @Value("${viewer-relation-cache.expire-after-load-minutes:5}") long expireAfterLoadMinutes) {
+        this.postLikeRepository = postLikeRepository;
+        this.userRecipeRepository = userRecipeRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireAfterLoad<Long, ViewerRelations>(expireAfterLoadMinutes, TimeUnit.MINUTES))
+                .build();
+    }
+
+    public ViewerRelations get(Long userId) {
+        return cache.get(userId, this::load);
+    }
+
+    public void changePostLike(Long userId, Long postId, boolean liked) {
+        afterCommit(() -> cache.asMap().computeIfPresent(userId, (id, relations) -> {
+            relations.setPostLiked(postId, liked);
+            return relations;
+        }));
+    }
+
+    public void changeRecipeSave(Long userId, Long alcoholTagId, boolean saved) {
+        afterCommit(() -> cache.asMap().computeIfPresent(userId, (id, relations) -> {
+            relations.setRecipeSaved(alcoholTagId, saved);
+            return relations;
+        }));
+    }
+
+    private ViewerRelations load(Long userId) {
+        ViewerRelations relations = new ViewerRelations();
+        postLikeRepository.findPostIdsByUserId(userId).forEach(postId -> relations.setPostLiked(postId, true));
+        userRecipeRepository.findAlcoholTagIdsByUserId(userId).forEach(tagId -> relations.setRecipeSaved(tagId, true));
+        return relations;
+    }
+
+    public static class ViewerRelations {
+
+        private final Roaring64NavigableMap likedPostIds = new Roaring64NavigableMap();
+        private final Roaring64NavigableMap savedAlcoholTagIds = new Roaring64NavigableMap();
+
+        public synchronized boolean isPostLiked(Long postId) {
+            return likedPostIds.contains(postId);
+        }
+
+        public synchronized boolean isRecipeSaved(Long alcoholTagId) {
+            return savedAlcoholTagIds.contains(alcoholTagId);
+        }
+
+        synchronized void setPostLiked(Long postId, boolean liked) {
+            if (liked) {
+                likedPostIds.addLong(postId);
+            } else {
+                likedPostIds.removeLong(postId);
+            }
+        }
+
+        synchronized void setRecipeSaved(Long alcoholTagId, boolean saved) {
+            if (saved) {
+                savedAlcoholTagIds.addLong(alcoholTagId);
+            } else {
+                savedAlcoholTagIds.removeLong(alcoholTagId);
+            }
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package kr.co.theplay.service.recipe;
+
+import kr.co.theplay.domain.post.*;
+import kr.co.theplay.dto.post.RecipeIngredientDto;
+import kr.co.theplay.dto.recipe.PopularRecipeDto;
+import kr.co.theplay.service.api.advice.exception.CommonBadRequestException;
+import kr.co.theplay.service.post.PostCounterService;
+import kr.co.theplay.service.zzz.S3Service;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static kr.co.theplay.common.TransactionCallbacks.afterCommit;
+
+/*
+인기 레시피 랭킹 (레시피 태그명 -> 좋아요 수 합, 상위 10개 게시글 이미지, 최고 인기 게시글 재료)
+조회는 정렬된 스냅샷을 잘라서 내려주기만 한다.
+- 좋아요 / 취소 : 점수와 상위 게시글 좋아요 수를 바로 반영, 상위 10개에 새로 들어올 수 있는 경우 태그를 dirty 로 표시
+- 게시글 작성 / 수정 / 삭제 : 점수 반영 후 태그를 dirty 로 표시
+- dirty 태그는 refresh-interval 마다 상위 게시글, 재료를 다시 읽고, rebuild-cron 마다 전체를 다시 계산해서 popular_recipe 테이블에 저장한다.
+- 재계산은 서버마다 하지만 popular_recipe 테이블은 DB 잠금을 잡은 한 서버만 덮어쓴다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class PopularRecipeRanking {
+
+    private static final int TOP_POST_COUNT = 10;
+    // like_count 에 아직 반영되지 않은 좋아요가 있을 수 있으므로 여유있게 읽어서 다시 정렬
+    private static final int TOP_POST_CANDIDATES = 20;
+    private static final String SAVE_LOCK = "popular_recipe_save";
+
+    private final AlcoholTagRepository alcoholTagRepository;
+    private final RecipeIngredientRepository recipeIngredientRepository;
+    private final PostImageRepository postImageRepository;
+    private final PostRepository postRepository;
+    private final PopularRecipeRepository popularRecipeRepository;
+    private final PostCounterService postCounterService;
+    private final TransactionTemplate transactionTemplate;
+
+    // 이 시간 안에 다른 서버가 저장한 스냅샷이 있으면 덮어쓰지 않는다
+    @Value("${popular-recipe.save-min-interval-ms:60000}")
+    private long saveMinIntervalMillis;
+
+    // lock : this
+    private final Map<String, TagRanking> tags = new HashMap<>();
+    private volatile List<TagRanking> ranked = new ArrayList<>();
+    private final Set<String> dirtyTags = ConcurrentHashMap.newKeySet();
+
+    public Page<PopularRecipeDto> getPopularRecipes(int number, int size) {
+        if (number < 0 || size <= 0) {
+            throw new CommonBadRequestException("invalidPageRequest");
+        }
+        List<TagRanking> snapshot = ranked;
+        int from = (int) Math.min((long) number * size, snapshot.size());
+        int to = Math.min(from + size, snapshot.size());
+
+        List<PopularRecipeDto> dtos = snapshot.subList(from, to).stream()
+                .map(TagRanking::toDto)
+                .collect(Collectors.toList());
+        return new PageImpl<>(dtos, PageRequest.of(number, size), snapshot.size());
+    }
+
+    public void changePostLike(Long postId, Collection<String> tagNames, long delta) {
+        if (tagNames.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> applyPostLike(postId, tagNames, delta));
+    }
+
+    // 게시글의 레시피 태그가 바뀐 경우 (작성 : removed 없음, 삭제 : added 없음)
+    public void changePostTags(Long postId, long likeCount, Collection<String> removed, Collection<String> added) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> applyPostTags(postId, likeCount, removed, added));
+    }
+
+    @Scheduled(fixedDelayString = "${popular-recipe.refresh-interval-ms:10000}")
+    public void refreshDirty() {
+        if (dirtyTags.isEmpty()) {
+            return;
+        }
+        List<String> names = new ArrayList<>(dirtyTags);
+        dirtyTags.removeAll(names);
+
+        Map<String, List<TopPost>> topPosts = new HashMap<>();
+        names.forEach(name -> topPosts.put(name, loadTopPosts(name)));
+        Map<Long, List<RecipeIngredientDto>> ingredients = loadIngredients(topPosts.values());
+
+        synchronized (this) {
+            topPosts.forEach((name, posts) -> {
+                TagRanking tag = tags.get(name);
+                if (tag != null) {
+                    tags.put(name, tag.withTopPosts(posts, ingredientsOf(posts, ingredients)));
+                }
+            });
+            sort();
+        }
+    }
+
+    /*
+    전체 재계산. 버퍼에 남은 좋아요 수를 먼저 반영한 뒤 읽는다.
+    재계산 중에 들어온 좋아요는 스냅샷을 바꿔치기 하면서 빠질 수 있는데, 다음 재계산 때 다시 맞춰진다.
+     */
+    @Scheduled(cron = "${popular-recipe.rebuild-cron:0 */10 * * * *}")
+    public void rebuild() {
+        postCounterService.flush();
+
+        Map<String, TagRanking> rebuilt = new HashMap<>();
+        Map<String, List<TopPost>> topPosts = new HashMap<>();
+        Map<String, Long> scores = new LinkedHashMap<>();
+        for (Object[] row : alcoholTagRepository.findRecipeTagScores()) {
+            String name = (String) row[0];
+            scores.put(name, ((Number) row[1]).longValue());
+            topPosts.put(name, loadTopPosts(name));
+        }
+        Map<Long, List<RecipeIngredientDto>> ingredients = loadIngredients(topPosts.values());
+        scores.forEach((name, score) -> {
+            List<TopPost> posts = topPosts.get(name);
+            rebuilt.put(name, new TagRanking(name, score, posts, ingredientsOf(posts, ingredients)));
+        });
+
+        replace(rebuilt);
+        save(rebuilt.values());
+        log.info("popular recipe ranking rebuilt : {} tags", rebuilt.size());
+    }
+
+    // 서버 시작 시 저장해둔 스냅샷으로 랭킹을 올린다. 스냅샷이 없으면 전체 재계산
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        List<PopularRecipe> saved = popularRecipeRepository.findAll();
+        if (saved.isEmpty()) {
+            rebuild();
+            return;
+        }
+
+        Map<String, List<Long>> topPostIds = new HashMap<>();
+        Set<Long> postIds = new HashSet<>();
+        saved.forEach(p -> {
+            List<Long> ids = parseIds(p.getTopPostIds());
+            topPostIds.put(p.getAlcoholTagName(), ids);
+            postIds.addAll(ids);
+        });
+
+        Map<Long, String> firstImages = new HashMap<>();
+        Map<Long, Long> likeCounts = new HashMap<>();
+        if (!postIds.isEmpty()) {
+            postImageRepository.findByPostIds(postIds).stream()
+                    .filter(pi -> pi.getNumber() == 0)
+                    .forEach(pi -> firstImages.put(pi.getPost().getId(), pi.getThumbnailOrOriginalPath()));
+            postRepository.findAllById(postIds)
+                    .forEach(p -> likeCounts.put(p.getId(), postCounterService.getPostLikeCount(p.getId(), p.getLikeCount())));
+        }
+
+        Map<String, List<TopPost>> topPosts = new HashMap<>();
+        topPostIds.forEach((name, ids) -> topPosts.put(name, ids.stream()
+                .filter(id -> firstImages.containsKey(id) && likeCounts.containsKey(id))
+                .map(id -> new TopPost(id, likeCounts.get(id), firstImages.get(id)))
+                .collect(Collectors.toList())));
+        Map<Long, List<RecipeIngredientDto>> ingredients = loadIngredients(topPosts.values());
+
+        Map<String, TagRanking> loaded = new HashMap<>();
+        saved.forEach(p -> {
+            List<TopPost> posts = topPosts.get(p.getAlcoholTagName());
+            loaded.put(p.getAlcoholTagName(), new TagRanking(p.getAlcoholTagName(), p.getScore(), posts, ingredientsOf(posts, ingredients)));
+        });
+        replace(loaded);
+    }
+
+    private synchronized void applyPostLike(Long postId, Collection<String> tagNames, long delta) {
+        for (String name : tagNames) {
+            TagRanking tag = tags.get(name);
+            if (tag == null) {
+                tag = new TagRanking(name, 0L, new ArrayList<>(), new ArrayList<>());
+            }
+            Optional<TopPost> top = tag.getTopPosts().stream().filter(p -> p.getPostId().equals(postId)).findFirst();
+            if (top.isPresent()) {
+                Long previousFirst = tag.getTopPosts().get(0).getPostId();
+                List<TopPost> posts = tag.getTopPosts().stream()
+                        .map(p -> p.getPostId().equals(postId) ? new TopPost(postId, p.getLikeCount() + delta, p.getFilePath()) : p)
+                        .sorted(TopPost.ORDER)
+                        .collect(Collectors.toList());
+                tag = tag.withTopPosts(posts, tag.getIngredients());
+                // 최고 인기 게시글이 바뀌었거나 상위 10개에서 밀려날 수 있는 경우
+                if (!posts.get(0).getPostId().equals(previousFirst) || delta < 0) {
+                    dirtyTags.add(name);
+                }
+            } else if (delta > 0) {
+                dirtyTags.add(name);
+            }
+            tags.put(name, tag.withScore(tag.getScore() + delta));
+        }
+        sort();
+    }
+
+    private synchronized void applyPostTags(Long postId, long likeCount, Collection<String> removed, Collection<String> added) {
+        for (String name : removed) {
+            TagRanking tag = tags.get(name);
+            if (tag != null) {
+                List<TopPost> posts = tag.getTopPosts().stream()
+                        .filter(p -> !p.getPostId().equals(postId))
+                        .collect(Collectors.toList());
+                tags.put(name, tag.withTopPosts(posts, tag.getIngredients()).withScore(tag.getScore() - likeCount));
+            }
+            dirtyTags.add(name);
+        }
+        for (String name : added) {
+            TagRanking tag = tags.get(name);
+            if (tag == null) {
+                tag = new TagRanking(name, 0L, new ArrayList<>(), new ArrayList<>());
+            }
+            tags.put(name, tag.withScore(tag.getScore() + likeCount));
+            dirtyTags.add(name);
+        }
+        sort();
+    }
+
+    private synchronized void replace(Map<String, TagRanking> rebuilt) {
+        tags.clear();
+        tags.putAll(rebuilt);
+        sort();
+    }
+
+    // 좋아요가 하나도 없는 태그는 랭킹에서 제외 (기존 조회와 동일)
+    private void sort() {
+        ranked = tags.values().stream()
+                .filter(t -> t.getScore() > 0)
+                .sorted(Comparator.comparing(TagRanking::getScore).reversed().thenComparing(TagRanking::getName))
+                .collect(Collectors.toList());
+    }
+
+    private void save(Collection<TagRanking> rankings) {
+        List<PopularRecipe> rows = rankings.stream()
+                .map(t -> PopularRecipe.builder()
+                        .alcoholTagName(t.getName())
+                        .score(t.getScore())
+                        .topPostIds(t.getTopPosts().stream().map(p -> String.valueOf(p.getPostId())).collect(Collectors.joining(",")))
+                        .build())
+                .collect(Collectors.toList());
+        Boolean saved = transactionTemplate.execute(status -> {
+            if (popularRecipeRepository.getLock(SAVE_LOCK) != 1) {
+                return false;
+            }
+            try {
+                LocalDateTime lastSaved = popularRecipeRepository.findLastSavedDate();
+                if (lastSaved != null && lastSaved.isAfter(LocalDateTime.now().minus(saveMinIntervalMillis, ChronoUnit.MILLIS))) {
+                    return false;
+                }
+                popularRecipeRepository.deleteAllInBatch();
+                popularRecipeRepository.saveAll(rows);
+                popularRecipeRepository.flush();
+                return true;
+            } finally {
+                popularRecipeRepository.releaseLock(SAVE_LOCK);
+            }
+        });
+        if (!Boolean.TRUE.equals(saved)) {
+            log.info("popular recipe snapshot is saved by another server, skip");
+        }
+    }
+
+    private List<TopPost> loadTopPosts(String name) {
+        return alcoholTagRepository.findTopRecipePosts(name, TOP_POST_CANDIDATES).stream()
+                .map(row -> {
+                    Long postId = ((Number) row[0]).longValue();
+                    long likeCount = postCounterService.getPostLikeCount(postId, ((Number) row[1]).longValue());
+                    return new TopPost(postId, likeCount, (String) row[2]);
+                })
+                .sorted(TopPost.ORDER)
+                .limit(TOP_POST_COUNT)
+                .collect(Collectors.toList());
+    }
+
+    // 태그마다 최고 인기 게시글의 재료를 한번에 조회
+    private Map<Long, List<RecipeIngredientDto>> loadIngredients(Collection<List<TopPost>> topPosts) {
+        Set<Long> firstPostIds = topPosts.stream()
+                .filter(posts -> !posts.isEmpty())
+                .map(posts -> posts.get(0).getPostId())
+                .collect(Collectors.toSet());
+        if (firstPostIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return recipeIngredientRepository.findByPostIds(firstPostIds).stream()
+                .collect(Collectors.groupingBy(ri -> ri.getPost().getId(),
+                        Collectors.mapping(RecipeIngredientDto::new, Collectors.toList())));
+    }
+
+    private List<RecipeIngredientDto> ingredientsOf(List<TopPost> posts, Map<Long, List<RecipeIngredientDto>> ingredients) {
+        if (posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return ingredients.getOrDefault(posts.get(0).getPostId(), new ArrayList<>());
+    }
+
+    private List<Long> parseIds(String ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return Arrays.stream(ids.split(",")).map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class TagRanking {
+        private final String name;
+        private final Long score;
+        private final List<TopPost> topPosts;
+        private final List<RecipeIngredientDto> ingredients;
+
+        TagRanking withScore(long score) {
+            return new TagRanking(name, score, topPosts, ingredients);
+        }
+
+        TagRanking withTopPosts(List<TopPost> topPosts, List<RecipeIngredientDto> ingredients) {
+            return new TagRanking(name, score, topPosts, ingredients);
+        }
+
+        PopularRecipeDto toDto() {
+            List<String> images = topPosts.stream()
+                    .map(p -> "https://" + S3Service.CLOUD_FRONT_DOMAIN_NAME + "/" + p.getFilePath())
+                    .collect(Collectors.toList());
+            return PopularRecipeDto.builder().alcoholTagName(name).ingredients(ingredients).images(images).build();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class TopPost {
+        static final Comparator<TopPost> ORDER = Comparator.comparing(TopPost::getLikeCount).reversed()
+                .thenComparing(Comparator.comparing(TopPost::getPostId).reversed());
+
+        private final Long postId;
+        private final Long likeCount;
+        private final String filePath;
+    }
+}
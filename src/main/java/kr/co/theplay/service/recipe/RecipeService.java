@@ -10,6 +10,8 @@ import kr.co.theplay.dto.recipe.PopularRecipeDto;
 import kr.co.theplay.dto.recipe.UserRecipeResDto;
 import kr.co.theplay.service.api.advice.exception.CommonBadRequestException;
 import kr.co.theplay.service.api.advice.exception.CommonNotFoundException;
+import kr.co.theplay.service.api.security.UserPrincipal;
+import kr.co.theplay.service.post.PostFeedAssembler;
 import kr.co.theplay.service.zzz.S3Service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -21,9 +23,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
@@ -36,50 +37,19 @@ public class RecipeService {
     private final UserRepository userRepository;
     private final UserRecipeRepository userRecipeRepository;
     private final PostRepository postRepository;
-    private final PostLikeRepository postLikeRepository;
-    private final PostCommentRepository postCommentRepository;
+    private final PostFeedAssembler postFeedAssembler;
+    private final PopularRecipeRanking popularRecipeRanking;
 
     public Page<PopularRecipeDto> getPopularRecipes(int number, int size) {
-
-        Pageable pageable = PageRequest.of(number, size);
-
-        // 술 태그명을 인기순으로 paging 조회 : 좋아요 수 cnt(Long), alcoholName(String)
-        Page<Object[]> tagNames = alcoholTagRepository.findPopularTags(pageable);
-        List<Object[]> tagNameList = tagNames.getContent();
-        List<PopularRecipeDto> dtos = new ArrayList<>();
-
-        // 각 tagName 별로 10개의 상위 인기 post 조회
-        // response Dto에 필요한 정보 : alcoholTagName, 최고 인기 게시글의 ingredients(dto), 10개의 images(List<String>)
-        for (int i = 0; i < tagNameList.size(); i++) {
-
-            //tagName
-            String tagName = (String) tagNameList.get(i)[1];
-
-            // postId(Long), 좋아요 수 cnt(Long), 첫이미지(String, filePath) 순 조회함. postId는 resDto에 없지만 최고 인기 게시글의 재료를 알기 위해 조회함.
-            List<Object[]> tenPopularPostInfos = alcoholTagRepository.find10PopularImagesByAlcoholTagName(tagName);
-
-            //이미지 path 목록을 가진 list 생성
-            List<String> images = tenPopularPostInfos.stream().map(m ->
-                    "https://" + S3Service.CLOUD_FRONT_DOMAIN_NAME + "/" + (String) m[2])
-                    .collect(Collectors.toList());
-
-            //최고 인기 레시피의 postId로 재료 정보 dto 생성
-            List<RecipeIngredient> ingredients = recipeIngredientRepository.findByPostId(((BigInteger) tenPopularPostInfos.get(0)[0]).longValue());
-            List<RecipeIngredientDto> ingredientDtos = ingredients.stream().map(RecipeIngredientDto::new).collect(Collectors.toList());
-
-            PopularRecipeDto createdDto = PopularRecipeDto.builder().alcoholTagName(tagName).ingredients(ingredientDtos).images(images).build();
-            dtos.add(createdDto);
-        }
-
-        return new PageImpl<>(dtos, pageable, tagNames.getTotalElements());
+        // 미리 계산해 둔 랭킹에서 잘라서 내려준다
+        return popularRecipeRanking.getPopularRecipes(number, size);
     }
 
-    public Page<UserRecipeResDto> getUserRecipes(String email, int number, int size) {
+    public Page<UserRecipeResDto> getUserRecipes(UserPrincipal principal, int number, int size) {
         // 사용자가 저장한 레시피들을 불러온다.
         Pageable pageable = PageRequest.of(number, size);
 
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
-        Page<UserRecipe> userRecipes = userRecipeRepository.findByUserIdOrderByCreatedDateDesc(pageable, user.getId());
+        Page<UserRecipe> userRecipes = userRecipeRepository.findByUserIdOrderByCreatedDateDesc(pageable, principal.getId());
 
         List<UserRecipe> userRecipeList = userRecipes.getContent();
 
@@ -101,11 +71,11 @@ public class RecipeService {
         return new PageImpl<>(dtos, pageable, userRecipes.getTotalElements());
     }
 
-    public Page<UserRecipeResDto> getOtherUserRecipes(String email, Long userId, int number, int size) {
+    public Page<UserRecipeResDto> getOtherUserRecipes(UserPrincipal principal, Long userId, int number, int size) {
 
         User user = userRepository.findById(userId).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
 
-        if (user.getPrivacyYn().equals("Y") && !user.getEmail().equals(email)) {
+        if (user.getPrivacyYn().equals("Y") && !user.getId().equals(principal.getId())) {
             throw new CommonBadRequestException("userPrivacyInvaded");
         }
 
@@ -135,8 +105,8 @@ public class RecipeService {
         return new PageImpl<>(dtos, pageable, userRecipes.getTotalElements());
     }
 
-    public List<UserRecipeResDto> getUserSearchRecipe(String email, String recipeName) {
-        List<UserRecipe> userRecipes = userRecipeRepository.findByKeyword(email, recipeName);
+    public List<UserRecipeResDto> getUserSearchRecipe(UserPrincipal principal, String recipeName) {
+        List<UserRecipe> userRecipes = userRecipeRepository.findByKeyword(principal.getId(), recipeName);
         List<UserRecipeResDto> dtos = userRecipes.stream().map(UserRecipeResDto::new).collect(Collectors.toList());
 
         for (int i = 0; i < userRecipes.size(); i++) {
@@ -154,13 +124,13 @@ public class RecipeService {
         return dtos;
     }
 
-    public List<UserRecipeResDto> getOtherUserSearchRecipe(String email, Long userId, String recipeName) {
+    public List<UserRecipeResDto> getOtherUserSearchRecipe(UserPrincipal principal, Long userId, String recipeName) {
         User user = userRepository.findById(userId).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
-        if (user.getPrivacyYn().equals("Y") && !user.getEmail().equals(email)) {
+        if (user.getPrivacyYn().equals("Y") && !user.getId().equals(principal.getId())) {
             throw new CommonBadRequestException("userPrivacyInvaded");
         }
 
-        List<UserRecipe> userRecipes = userRecipeRepository.findByKeyword(user.getEmail(), recipeName);
+        List<UserRecipe> userRecipes = userRecipeRepository.findByKeyword(user.getId(), recipeName);
         List<UserRecipeResDto> dtos = userRecipes.stream().map(UserRecipeResDto::new).collect(Collectors.toList());
 
         for (int i = 0; i < userRecipes.size(); i++) {
@@ -178,67 +148,24 @@ public class RecipeService {
         return dtos;
     }
 
-    public Page<PostResDto> getPopularRecipesByTagName(String email, String tagName, int number, int size) {
+    public Page<PostResDto> getPopularRecipesByTagName(UserPrincipal principal, String tagName, int number, int size) {
 
         Pageable pageable = PageRequest.of(number, size);
 
         //태그에 해당되는 post에 대해 좋아요 개수와 postId를 인기순 조회 (좋아요 0개도 조회)
         Page<Object[]> postInfos = alcoholTagRepository.findByNameOrderByLikeCnt(tagName, pageable);
-        List<Object[]> postInfoList = postInfos.getContent();
-
-        //태그에 해당하는 각 post 정보를 postResDto로 매칭
-        List<PostResDto> dtos = new ArrayList<>();
-
-        for (int i = 0; i < postInfoList.size(); i++) {
-
-            Post post = postRepository.getRecipeByPostId(((BigInteger) postInfoList.get(i)[1]).longValue())
-                    .orElseThrow(() -> new CommonNotFoundException("pageNotFound"));
-            PostResDto dto = new PostResDto(post);
-
-            // 좋아요 여부
-            if (postLikeRepository.findByPostIdAndUserEmail(post.getId(), email).isPresent()) {
-                dto.setPostLikeYn("Y");
-            } else {
-                dto.setPostLikeYn("N");
-            }
-
-            // 레시피 저장 여부 (레시피가 있는 애들만 조회된 상태)
-            if (userRecipeRepository.findByPostIdAndUserEmail(post.getId(), email).isPresent()) {
-                dto.setSaveRecipeYn("Y");
-            } else {
-                dto.setSaveRecipeYn("N");
-            }
-
-            // 댓글 수
-            Long commentCnt = postCommentRepository.getCountOfPostComment(post.getId());
-            dto.setCommentCnt(commentCnt);
-
-            // 대표댓글
-            if (commentCnt != 0) {
-                PostComment comment = postCommentRepository.findFirstByPostIdAndPostCommentParentIdOrderByCreatedDateDesc(post.getId(), (long) 0);
-                dto.setComment(comment.getContent());
-            } else {
-                dto.setComment("N");
-            }
-
-            //이미지들
-            List<PostImageDto> imageDtos = post.getImages().stream().map(PostImageDto::new).collect(Collectors.toList());
-            dto.setImages(imageDtos);
-
-            // 술 태그들
-            List<AlcoholTagDto> alcoholTagDtos = post.getAlcoholTags().stream().map(AlcoholTagDto::new).collect(Collectors.toList());
-            dto.setAlcoholTags(alcoholTagDtos);
-
-            // 재료들
-            List<RecipeIngredientDto> ingredientDtos = post.getIngredients().stream().map(RecipeIngredientDto::new).collect(Collectors.toList());
-            dto.setIngredients(ingredientDtos);
-
-            // step들
-            List<RecipeStepDto> stepDtos = post.getSteps().stream().map(RecipeStepDto::new).collect(Collectors.toList());
-            dto.setSteps(stepDtos);
-
-            dtos.add(dto);
-        }
+        List<Long> postIds = postInfos.getContent().stream()
+                .map(info -> ((BigInteger) info[1]).longValue())
+                .collect(Collectors.toList());
+
+        // 게시글은 한번에 읽고 인기순 그대로 정렬, 태그, 이미지 ... 는 PostFeedAssembler 에서 게시글 아이디로 한번씩만 조회
+        Map<Long, Post> posts = postRepository.findAllById(postIds).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        List<Post> ordered = postIds.stream()
+                .map(posts::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        List<PostResDto> dtos = postFeedAssembler.assemble(principal.getId(), ordered);
 
         return new PageImpl<>(dtos, pageable, postInfos.getTotalElements());
     }
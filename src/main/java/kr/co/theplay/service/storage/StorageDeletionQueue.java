@@ -0,0 +1,124 @@
+package kr.co.theplay.service.storage;
+
+import kr.co.theplay.common.OutboxRetry;
+import kr.co.theplay.domain.post.ImageBlobRepository;
+import kr.co.theplay.domain.storage.StorageDeletion;
+import kr.co.theplay.domain.storage.StorageDeletionRepository;
+import kr.co.theplay.domain.storage.StorageDeletionStatus;
+import kr.co.theplay.service.zzz.S3Service;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+S3 객체 삭제 대기열
+enqueue 는 호출한 트랜잭션 안에서 row 만 쌓는다. (삭제 요청은 S3 를 기다리지 않고 바로 끝난다)
+drain 이 주기적으로 대기 중인 row 를 모아 multi-object delete 로 한번에 지우고,
+실패한 key 는 지수 백오프로 다시 시도하다가 max-attempts 를 넘기면 DEAD 로 남긴다.
+ImageBlob 원본 (blobHash 있음) 은 blob-grace-seconds 뒤에 지운다. 그 사이 같은 내용을 올리고 있던 요청이 커밋할 시간을 준다.
+지울 때는 hash 를 잠근 트랜잭션 안에서 확인하고 지우므로, 그 사이에 같은 hash 로 만들어지는 ImageBlob 은 삭제가 끝난 뒤에 생긴다.
+(ImageBlobService.acquire 가 새로 만든 blob 의 원본을 다시 확인한다)
+ */
+@Slf4j
+@Component
+public class StorageDeletionQueue {
+
+
+    private final StorageDeletionRepository storageDeletionRepository;
+    private final ImageBlobRepository imageBlobRepository;
+    private final S3Service s3Service;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final OutboxRetry retry;
+    private final long blobGraceSeconds;
+
+    public StorageDeletionQueue(StorageDeletionRepository storageDeletionRepository,
+                                ImageBlobRepository imageBlobRepository,
+                                S3Service s3Service,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${storage-deletion.batch-size:500}") int batchSize,
+                                @Value("${storage-deletion.max-attempts:8}") int maxAttempts,
+                                @Value("${storage-deletion.backoff-base-seconds:30}") long backoffBaseSeconds,
+                                @Value("${storage-deletion.blob-grace-seconds:300}") long blobGraceSeconds) {
+        this.storageDeletionRepository = storageDeletionRepository;
+        this.imageBlobRepository = imageBlobRepository;
+        this.s3Service = s3Service;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.retry = new OutboxRetry(maxAttempts, backoffBaseSeconds);
+        this.blobGraceSeconds = blobGraceSeconds;
+    }
+
+    // blobHash 는 ImageBlob 원본일 때만 (아니면 null)
+    public void enqueue(Collection<String> objectKeys, String blobHash) {
+        LocalDateTime nextAttemptAt = blobHash == null ? LocalDateTime.now() : LocalDateTime.now().plusSeconds(blobGraceSeconds);
+        List<StorageDeletion> deletions = objectKeys.stream()
+                .map(key -> StorageDeletion.builder().objectKey(key).blobHash(blobHash).nextAttemptAt(nextAttemptAt).build())
+                .collect(Collectors.toList());
+        storageDeletionRepository.saveAll(deletions);
+    }
+
+    @Scheduled(fixedDelayString = "${storage-deletion.interval-ms:10000}")
+    public void drain() {
+        List<StorageDeletion> due;
+        do {
+            due = storageDeletionRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize));
+            if (!due.isEmpty()) {
+                List<StorageDeletion> batch = due;
+                transactionTemplate.executeWithoutResult(status -> drain(batch));
+            }
+        } while (due.size() == batchSize);
+    }
+
+    private void drain(List<StorageDeletion> due) {
+        // 지우기 전에 같은 이미지가 다시 올라왔다면 (ImageBlob 이 다시 생겼다면) 지우지 않고 대기열에서만 뺀다
+        Set<String> hashes = due.stream()
+                .map(StorageDeletion::getBlobHash)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> reacquired = hashes.isEmpty() ? Collections.emptySet() : new HashSet<>(imageBlobRepository.lockExistingHashes(hashes));
+
+        List<Long> doneIds = new ArrayList<>();
+        Map<String, List<StorageDeletion>> byKey = new LinkedHashMap<>();
+        for (StorageDeletion deletion : due) {
+            if (deletion.getBlobHash() != null && reacquired.contains(deletion.getBlobHash())) {
+                doneIds.add(deletion.getId());
+            } else {
+                byKey.computeIfAbsent(deletion.getObjectKey(), k -> new ArrayList<>()).add(deletion);
+            }
+        }
+
+        Map<String, String> failed = byKey.isEmpty() ? Collections.emptyMap() : s3Service.deleteObjects(new ArrayList<>(byKey.keySet()));
+        byKey.forEach((key, deletions) -> {
+            String error = failed.get(key);
+            if (error == null) {
+                deletions.forEach(d -> doneIds.add(d.getId()));
+            } else {
+                deletions.forEach(d -> markFailed(d, error));
+            }
+        });
+
+        if (!doneIds.isEmpty()) {
+            storageDeletionRepository.deleteByIds(doneIds);
+        }
+    }
+
+    private void markFailed(StorageDeletion deletion, String error) {
+        int attempts = deletion.getAttempts() + 1;
+        StorageDeletionStatus status = retry.isDead(attempts) ? StorageDeletionStatus.DEAD : StorageDeletionStatus.PENDING;
+        String lastError = retry.lastError(error);
+
+        storageDeletionRepository.markFailed(deletion.getId(), status, retry.nextAttemptAt(attempts), lastError);
+        if (status == StorageDeletionStatus.DEAD) {
+            log.error("storage deletion dead : {} ({})", deletion.getObjectKey(), lastError);
+        }
+    }
+}
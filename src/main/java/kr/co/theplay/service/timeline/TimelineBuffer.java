@@ -0,0 +1,186 @@
+package kr.co.theplay.service.timeline;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/*
+한 유저의 최신 타임라인을 고정 크기 ring buffer 로 들고 있는다.
+(작성 시각 desc, postId desc) 순서를 유지하며, 가장 최신 게시글이 들어오는 경우 (대부분) 는 head 를 한칸 당기기만 한다.
+가득 찬 상태에서 새 게시글이 들어오면 가장 오래된 게시글을 덮어쓴다. 덮어쓴 뒤로는 버퍼가 전체 타임라인이 아니므로 complete = false.
+작성 시각은 객체 대신 epoch 초 + 나노초 배열로 저장한다.
+ */
+public class TimelineBuffer {
+
+    private final long[] postIds;
+    private final long[] authorIds;
+    private final long[] seconds;
+    private final int[] nanos;
+    private int head;
+    private int size;
+    // 버퍼 밖 (더 오래된) 타임라인이 없음
+    private boolean complete;
+
+    public TimelineBuffer(int capacity) {
+        this.postIds = new long[capacity];
+        this.authorIds = new long[capacity];
+        this.seconds = new long[capacity];
+        this.nanos = new int[capacity];
+    }
+
+    // 최신순으로 정렬된 목록으로 채운다. 목록이 capacity 보다 작으면 전체 타임라인
+    public synchronized void load(List<Entry> entries) {
+        head = 0;
+        size = 0;
+        for (Entry entry : entries) {
+            if (size == postIds.length) {
+                break;
+            }
+            write(size++, entry);
+        }
+        complete = entries.size() < postIds.length;
+    }
+
+    public synchronized void add(Entry entry) {
+        int capacity = postIds.length;
+        int pos = 0;
+        while (pos < size && compare(pos, entry) > 0) {
+            pos++;
+        }
+        if (pos < size && compare(pos, entry) == 0) {
+            // 이미 들어있는 게시글
+            return;
+        }
+        if (pos == size && !complete) {
+            // 버퍼 끝 뒤로는 DB 에만 있는 게시글이 있으므로 그보다 오래된 게시글을 이어 붙이면 중간이 빈다
+            return;
+        }
+        if (pos == 0) {
+            head = (head - 1 + capacity) % capacity;
+            if (size == capacity) {
+                complete = false;
+            } else {
+                size++;
+            }
+            write(0, entry);
+            return;
+        }
+        if (pos == capacity) {
+            // 가득 찬 버퍼의 가장 오래된 게시글보다 오래된 게시글은 DB 에만 둔다
+            complete = false;
+            return;
+        }
+        int last = Math.min(size, capacity - 1);
+        if (size == capacity) {
+            complete = false;
+        }
+        for (int i = last; i > pos; i--) {
+            copy(i - 1, i);
+        }
+        write(pos, entry);
+        size = Math.min(size + 1, capacity);
+    }
+
+    public synchronized void removePost(long postId) {
+        removeIf(p -> postIds[p] == postId);
+    }
+
+    // 언팔로우한 작성자의 게시글 제거
+    public synchronized void removeAuthor(long authorId) {
+        removeIf(p -> authorIds[p] == authorId);
+    }
+
+    /*
+    커서 (createdDate, postId) 이후 최대 limit 개.
+    버퍼만으로 limit 개를 채울 수 없고 버퍼 뒤에 더 오래된 타임라인이 있다면 null (DB 에서 읽어야 함)
+     */
+    public synchronized List<Entry> readAfter(LocalDateTime createdDate, long postId, int limit) {
+        long cursorSeconds = createdDate.toEpochSecond(ZoneOffset.UTC);
+        int cursorNanos = createdDate.getNano();
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < size && entries.size() < limit; i++) {
+            int p = physical(i);
+            if (isBefore(p, cursorSeconds, cursorNanos, postId)) {
+                entries.add(entry(p));
+            }
+        }
+        if (entries.size() < limit && !complete) {
+            return null;
+        }
+        return entries;
+    }
+
+    private void removeIf(IntPredicate physicalMatches) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!physicalMatches.test(physical(i))) {
+                if (kept != i) {
+                    copy(i, kept);
+                }
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    // 논리 위치 i 의 게시글이 entry 보다 최신이면 양수
+    private int compare(int i, Entry entry) {
+        int p = physical(i);
+        long entrySeconds = entry.getCreatedDate().toEpochSecond(ZoneOffset.UTC);
+        if (seconds[p] != entrySeconds) {
+            return Long.compare(seconds[p], entrySeconds);
+        }
+        if (nanos[p] != entry.getCreatedDate().getNano()) {
+            return Integer.compare(nanos[p], entry.getCreatedDate().getNano());
+        }
+        return Long.compare(postIds[p], entry.getPostId());
+    }
+
+    private boolean isBefore(int p, long cursorSeconds, int cursorNanos, long cursorPostId) {
+        if (seconds[p] != cursorSeconds) {
+            return seconds[p] < cursorSeconds;
+        }
+        if (nanos[p] != cursorNanos) {
+            return nanos[p] < cursorNanos;
+        }
+        return postIds[p] < cursorPostId;
+    }
+
+    private int physical(int i) {
+        return (head + i) % postIds.length;
+    }
+
+    private void copy(int from, int to) {
+        int f = physical(from);
+        int t = physical(to);
+        postIds[t] = postIds[f];
+        authorIds[t] = authorIds[f];
+        seconds[t] = seconds[f];
+        nanos[t] = nanos[f];
+    }
+
+    private void write(int i, Entry entry) {
+        int p = physical(i);
+        postIds[p] = entry.getPostId();
+        authorIds[p] = entry.getAuthorId();
+        seconds[p] = entry.getCreatedDate().toEpochSecond(ZoneOffset.UTC);
+        nanos[p] = entry.getCreatedDate().getNano();
+    }
+
+    private Entry entry(int p) {
+        return new Entry(postIds[p], authorIds[p], LocalDateTime.ofEpochSecond(seconds[p], nanos[p], ZoneOffset.UTC));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final long postId;
+        private final long authorId;
+        private final LocalDateTime createdDate;
+    }
+}
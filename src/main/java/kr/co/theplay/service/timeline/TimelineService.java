@@ -0,0 +1,243 @@
+package kr.co.theplay.service.timeline;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kr.co.theplay.common.ExpireAfterLoad;
+import kr.co.theplay.domain.follow.FollowRepository;
+import kr.co.theplay.domain.post.*;
+import kr.co.theplay.domain.timeline.Timeline;
+import kr.co.theplay.domain.timeline.TimelineRepository;
+import kr.co.theplay.service.post.FeedCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static kr.co.theplay.common.TransactionCallbacks.afterCommit;
+
+/*
+팔로잉 피드 타임라인 (fan-out on write + 팔로워가 많은 작성자는 pull)
+- 게시글 작성 : 커밋 이후 백그라운드에서 팔로워 아이디를 나눠 읽으며 timeline 테이블에 insert ... select 로 적재
+  팔로워 수가 fan-out-follower-limit 를 넘는 작성자는 적재하지 않고 (PULLED) 조회 시점에 직접 읽는다.
+- 조회 : 적재된 타임라인 (최근 조회한 유저는 메모리 ring buffer, 아니면 DB) 과 적재되지 않은 게시글을 시간순으로 병합
+  ring buffer 에 다른 서버에서 실행된 적재 / prune 은 expire-after-load 뒤에 반영된다. (ExpireAfterLoad)
+- 팔로우 / 언팔로우 : 해당 작성자 게시글을 backfill / prune, fan-out 도중 바뀐 관계는 fan-out 이 끝난 뒤 맞춘다
+적재 도중 실패한 게시글은 PENDING 으로 남아 조회 시 pull 로 보이고, sweepPending 에서 다시 적재한다.
+ */
+@Slf4j
+@Service
+public class TimelineService {
+
+    private static final int FAN_OUT_BATCH_SIZE = 500;
+
+    private final TimelineRepository timelineRepository;
+    private final PostRepository postRepository;
+    private final PostImageRepository postImageRepository;
+    private final AlcoholTagRepository alcoholTagRepository;
+    private final FollowRepository followRepository;
+    private final TaskExecutor timelineExecutor;
+
+    private final long fanOutFollowerLimit;
+    private final int bufferCapacity;
+    private final int sweepBatchSize;
+    private final Cache<Long, TimelineBuffer> buffers;
+
+    public TimelineService(TimelineRepository timelineRepository,
+                           PostRepository postRepository,
+                           PostImageRepository postImageRepository,
+                           AlcoholTagRepository alcoholTagRepository,
+                           FollowRepository followRepository,
+                           @Qualifier("timelineExecutor") TaskExecutor timelineExecutor,
+                           @Value("${timeline.fan-out-follower-limit:5000}") long fanOutFollowerLimit,
+                           @Value("${timeline.buffer.capacity:200}") int bufferCapacity,
+                           @Value("${timeline.buffer.maximum-size:5000}") long bufferMaximumSize,
+                           @Value("${timeline.buffer.expire-after-load-minutes:2}") long bufferExpireMinutes,
+                           @Value("${timeline.sweep-batch-size:100}") int sweepBatchSize) {
+        this.timelineRepository = timelineRepository;
+        this.postRepository = postRepository;
+        this.postImageRepository = postImageRepository;
+        this.alcoholTagRepository = alcoholTagRepository;
+        this.followRepository = followRepository;
+        this.timelineExecutor = timelineExecutor;
+        this.fanOutFollowerLimit = fanOutFollowerLimit;
+        this.bufferCapacity = bufferCapacity;
+        this.sweepBatchSize = sweepBatchSize;
+        this.buffers = Caffeine.newBuilder()
+                .maximumSize(bufferMaximumSize)
+                .expireAfter(new ExpireAfterLoad<Long, TimelineBuffer>(bufferExpireMinutes, TimeUnit.MINUTES))
+                .build();
+    }
+
+    public void fanOutAfterCommit(Long postId) {
+        afterCommit(() -> timelineExecutor.execute(() -> fanOut(postId)));
+    }
+
+    // 새로 팔로우한 작성자의 게시글 채워넣기, 버퍼는 다음 조회 때 다시 읽는다
+    public void backfillAfterCommit(Long userId, Long authorId) {
+        afterCommit(() -> timelineExecutor.execute(() -> {
+            try {
+                timelineRepository.backfill(userId, authorId);
+            } catch (RuntimeException e) {
+                log.warn("timeline backfill failed : user {}, author {}", userId, authorId, e);
+            }
+            buffers.invalidate(userId);
+        }));
+    }
+
+    // 언팔로우 (팔로워 삭제, 차단 포함) 한 작성자의 게시글 제거, 호출한 트랜잭션에 같이 묶인다
+    public void prune(Long userId, Long authorId) {
+        timelineRepository.prune(userId, authorId);
+        afterCommit(() -> updateBuffer(userId, buffer -> buffer.removeAuthor(authorId)));
+    }
+
+    // 게시글 삭제 전에 호출
+    public void deletePost(Long postId) {
+        timelineRepository.deleteByPostId(postId);
+        afterCommit(() -> buffers.asMap().values().forEach(buffer -> buffer.removePost(postId)));
+    }
+
+    /*
+    팔로잉 피드 커서 이후 최대 limit 개 게시글
+    적재된 타임라인과 적재되지 않은 게시글을 각각 limit 개씩 읽어 (작성 시각, 아이디) desc 로 병합한다.
+     */
+    public List<Post> getFollowingPosts(Long userId, FeedCursor cursor, int limit) {
+        List<TimelineBuffer.Entry> pushed = readPushed(userId, cursor, limit);
+        List<Post> pulled = postRepository.getPulledFollowingPostsAfter(userId, cursor.getCreatedDate(), cursor.getId(), PageRequest.of(0, limit));
+
+        List<TimelineBuffer.Entry> merged = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < pushed.size() || j < pulled.size())) {
+            TimelineBuffer.Entry next;
+            if (j >= pulled.size() || (i < pushed.size() && isNewer(pushed.get(i), pulled.get(j)))) {
+                next = pushed.get(i++);
+            } else {
+                Post post = pulled.get(j++);
+                next = new TimelineBuffer.Entry(post.getId(), post.getUser().getId(), post.getCreatedDate());
+            }
+            if (seen.add(next.getPostId())) {
+                merged.add(next);
+            }
+        }
+
+        // pull 로 읽은 게시글은 그대로 쓰고, 적재된 쪽 게시글만 한번에 조회 (그 사이 삭제된 게시글은 빠진다)
+        Map<Long, Post> posts = pulled.stream().collect(Collectors.toMap(Post::getId, Function.identity()));
+        List<Long> missingIds = merged.stream()
+                .map(TimelineBuffer.Entry::getPostId)
+                .filter(id -> !posts.containsKey(id))
+                .collect(Collectors.toList());
+        if (!missingIds.isEmpty()) {
+            postRepository.findAllById(missingIds).forEach(post -> posts.put(post.getId(), post));
+        }
+        return merged.stream()
+                .map(e -> posts.get(e.getPostId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // 커밋 이후 누락되었거나 (서버 재시작 등) 타임라인 도입 이전에 작성된 게시글 적재
+    @Scheduled(fixedDelayString = "${timeline.sweep-interval-ms:60000}")
+    public void sweepPending() {
+        List<Long> postIds = postRepository.findPendingFanOutIds(LocalDateTime.now().minusMinutes(1), PageRequest.of(0, sweepBatchSize));
+        postIds.forEach(this::fanOut);
+    }
+
+    private void fanOut(Long postId) {
+        try {
+            Optional<Post> found = postRepository.findById(postId);
+            if (!found.isPresent()) {
+                return;
+            }
+            Post post = found.get();
+            Long authorId = post.getUser().getId();
+
+            // 팔로잉 피드에 노출되지 않는 게시글 (이미지 또는 술 태그 없음), 팔로워가 너무 많은 작성자는 조회 시점에 읽는다
+            if (!postImageRepository.existsByPostId(postId) || !alcoholTagRepository.existsByPostId(postId)
+                    || followRepository.countByUserFollowId(authorId) > fanOutFollowerLimit) {
+                postRepository.changeFanOutStatus(postId, FanOutStatus.PULLED);
+                return;
+            }
+
+            TimelineBuffer.Entry entry = new TimelineBuffer.Entry(postId, authorId, post.getCreatedDate());
+            Long afterUserId = 0L;
+            while (true) {
+                List<Long> followerIds = followRepository.findFollowerIdsAfter(authorId, afterUserId, PageRequest.of(0, FAN_OUT_BATCH_SIZE));
+                if (followerIds.isEmpty()) {
+                    break;
+                }
+                timelineRepository.fanOut(postId, followerIds);
+                followerIds.forEach(followerId -> updateBuffer(followerId, buffer -> buffer.add(entry)));
+                afterUserId = followerIds.get(followerIds.size() - 1);
+            }
+            postRepository.changeFanOutStatus(postId, FanOutStatus.PUSHED);
+            reconcileFollowers(postId, entry);
+        } catch (RuntimeException e) {
+            log.warn("timeline fan-out failed, post {} stays pending", postId, e);
+        }
+    }
+
+    /*
+    fan-out 도중 바뀐 팔로우 관계 맞추기 (PUSHED 로 바꾼 뒤에 실행)
+    - 팔로우 : 아직 PENDING 이라 backfill 에서 빠졌고 팔로워 페이지도 지나갔으면 적재되지 않는다.
+    - 언팔로우 : prune 이후 남은 페이지에서 다시 적재될 수 있다.
+    PUSHED 이후의 팔로우 / 언팔로우는 backfill / prune 이 처리한다.
+     */
+    private void reconcileFollowers(Long postId, TimelineBuffer.Entry entry) {
+        List<Long> followedIds = timelineRepository.findFollowerIdsNotFannedOut(postId, entry.getAuthorId());
+        if (!followedIds.isEmpty()) {
+            timelineRepository.fanOut(postId, followedIds);
+            followedIds.forEach(followerId -> updateBuffer(followerId, buffer -> buffer.add(entry)));
+        }
+        List<Long> unfollowedIds = timelineRepository.findUnfollowedUserIds(postId);
+        if (!unfollowedIds.isEmpty()) {
+            timelineRepository.deleteByPostIdAndUserIds(postId, unfollowedIds);
+            unfollowedIds.forEach(userId -> updateBuffer(userId, buffer -> buffer.removePost(postId)));
+        }
+    }
+
+    // 메모리에 올라와 있는 버퍼만 갱신, 읽어오는 중인 버퍼는 다 읽을 때까지 기다렸다가 갱신한다
+    private void updateBuffer(Long userId, Consumer<TimelineBuffer> update) {
+        buffers.asMap().computeIfPresent(userId, (id, buffer) -> {
+            update.accept(buffer);
+            return buffer;
+        });
+    }
+
+    private List<TimelineBuffer.Entry> readPushed(Long userId, FeedCursor cursor, int limit) {
+        TimelineBuffer buffer = buffers.get(userId, this::loadBuffer);
+        List<TimelineBuffer.Entry> entries = buffer.readAfter(cursor.getCreatedDate(), cursor.getId(), limit);
+        if (entries != null) {
+            return entries;
+        }
+        return toEntries(timelineRepository.findByUserIdAfter(userId, cursor.getCreatedDate(), cursor.getId(), PageRequest.of(0, limit)));
+    }
+
+    private TimelineBuffer loadBuffer(Long userId) {
+        FeedCursor first = FeedCursor.decode(null);
+        TimelineBuffer buffer = new TimelineBuffer(bufferCapacity);
+        buffer.load(toEntries(timelineRepository.findByUserIdAfter(userId, first.getCreatedDate(), first.getId(), PageRequest.of(0, bufferCapacity))));
+        return buffer;
+    }
+
+    private List<TimelineBuffer.Entry> toEntries(List<Timeline> timelines) {
+        return timelines.stream()
+                .map(t -> new TimelineBuffer.Entry(t.getPost().getId(), t.getAuthor().getId(), t.getPostCreatedDate()))
+                .collect(Collectors.toList());
+    }
+
+    private boolean isNewer(TimelineBuffer.Entry entry, Post post) {
+        int compared = entry.getCreatedDate().compareTo(post.getCreatedDate());
+        return compared != 0 ? compared > 0 : entry.getPostId() > post.getId();
+    }
+}
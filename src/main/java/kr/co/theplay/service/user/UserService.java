@@ -1,14 +1,15 @@
 package kr.co.theplay.service.user;
 
 import kr.co.theplay.api.config.security.JwtTokenProvider;
-import kr.co.theplay.domain.follow.Follow;
-import kr.co.theplay.domain.follow.FollowRepository;
 import kr.co.theplay.domain.post.*;
 import kr.co.theplay.domain.user.*;
 import kr.co.theplay.dto.user.*;
 import kr.co.theplay.service.api.advice.exception.CommonBadRequestException;
 import kr.co.theplay.service.api.advice.exception.CommonConflictException;
 import kr.co.theplay.service.api.advice.exception.CommonNotFoundException;
+import kr.co.theplay.service.api.security.PrincipalCache;
+import kr.co.theplay.service.api.security.UserPrincipal;
+import kr.co.theplay.service.follow.FollowGraph;
 import lombok.RequiredArgsConstructor;
 import org.mapstruct.factory.Mappers;
 import org.springframework.mail.SimpleMailMessage;
@@ -27,14 +28,13 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final UserRoleRepository userRoleRepository;
-    private final UserRecipeRepository userRecipeRepository;
-    private final PostRepository postRepository;
-    private final FollowRepository followRepository;
-    private final PostLikeRepository postLikeRepository;
+    private final FollowGraph followGraph;
+    private final UserStatsService userStatsService;
     private final RecipeIngredientRepository recipeIngredientRepository;
 
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
+    private final PrincipalCache principalCache;
 
     private final JavaMailSender mailSender;
     private static final String FROM_ADDRESS = "todaysalcoholservice@gmail.com";
@@ -61,6 +61,7 @@ public class UserService {
         }
 
         userRepository.save(user);
+        userStatsService.create(user.getId());
 
         //Role 생성
         UserRole userRole = UserRole.builder().user(user).roleName("ROLE_USER").build();
@@ -74,8 +75,13 @@ public class UserService {
     @Transactional
     public void updateUserPassword(String email, String password) {
         User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonConflictException("userNotFound"));
+        updateUserPassword(user, password);
+    }
+
+    private void updateUserPassword(User user, String password) {
         user.updateUserPassword(passwordEncoder.encode(password));
         userRepository.save(user);
+        principalCache.evict(user.getId());
     }
 
 
@@ -99,8 +105,8 @@ public class UserService {
     }
 
     @Transactional
-    public void updateUserNickname(UserChangeNicknameDto userChangeNicknameDto, String email) {
-        User user = userRepository.findByEmail(email)
+    public void updateUserNickname(UserChangeNicknameDto userChangeNicknameDto, UserPrincipal principal) {
+        User user = userRepository.findById(principal.getId())
                 .orElseThrow(() -> new CommonNotFoundException("userNotFound"));
 
         if (userRepository.findByNickname(userChangeNicknameDto.getNickname()).isPresent()) {
@@ -109,6 +115,7 @@ public class UserService {
 
         user.updateUserNickname(userChangeNicknameDto.getNickname());
         userRepository.save(user);
+        principalCache.evict(user.getId());
     }
 
     @Transactional
@@ -152,16 +159,16 @@ public class UserService {
     }
 
     @Transactional
-    public UserChangePrivacyResDto changePrivacyYn(String email) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+    public UserChangePrivacyResDto changePrivacyYn(UserPrincipal principal) {
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
         String privacyYn = user.changePrivacyYn();
         UserChangePrivacyResDto userChangePrivacyResDto = UserChangePrivacyResDto.builder().privacyYn(privacyYn).build();
         return userChangePrivacyResDto;
     }
 
     @Transactional
-    public void changePassword(UserChangePasswordDto userChangePasswordDto, String email) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+    public void changePassword(UserChangePasswordDto userChangePasswordDto, UserPrincipal principal) {
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
 
         // 비밀번호 입력 오류
         if (!passwordEncoder.matches(userChangePasswordDto.getPassword(), user.getPassword())) {
@@ -178,15 +185,15 @@ public class UserService {
             throw new CommonConflictException("passwordDuplication");
         }
 
-        updateUserPassword(email, userChangePasswordDto.getNewPassword());
+        updateUserPassword(user, userChangePasswordDto.getNewPassword());
     }
 
-    public UserSettingsDto getUserSettings(String email) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+    public UserSettingsDto getUserSettings(UserPrincipal principal) {
+        // 닉네임, 이메일은 인증 정보에 있으므로 회원 조회 X
         UserSettingsDto userSettingsDto = UserSettingsDto
                 .builder()
-                .nickname(user.getNickname())
-                .email(user.getEmail())
+                .nickname(principal.getNickname())
+                .email(principal.getEmail())
                 .build();
         //UserSettingsDto userSettingsDto = UserSettingsDtoMapper.INSTANCE.toDto(user);
         return userSettingsDto;
@@ -221,53 +228,42 @@ public class UserService {
         return randomNicknameDto;
     }
 
-    public UserMainInfoDto getUserMainInfo(String email) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
-        List<Post> postCount = postRepository.findByUserEmail(email);
-        List<Follow> followerCount = followRepository.findFollowersByUser(email);
-        List<PostLike> likesCount = postLikeRepository.findByUserEmail(email);
-        List<UserRecipe> recipesCount = userRecipeRepository.getUserRecipeByUser(user);
-        UserMainInfoDto userMainInfoDto = UserMainInfoDto.builder().nickname(user.getNickname()).posts(postCount.stream().count()).followers(followerCount.stream().count()).likes(likesCount.stream().count()).recipes(recipesCount.stream().count()).followingYn("N").build();
+    public UserMainInfoDto getUserMainInfo(UserPrincipal principal) {
+        // 미리 세어둔 user_stats 한 row (캐시)
+        UserStats stats = userStatsService.get(principal.getId());
+        UserMainInfoDto userMainInfoDto = UserMainInfoDto.builder().nickname(principal.getNickname()).posts(stats.getPostCount()).followers(stats.getFollowerCount()).likes(stats.getLikeCount()).recipes(stats.getRecipeCount()).followingYn("N").build();
         return userMainInfoDto;
     }
 
-    public UserMainInfoDto getOtherUserIngo(String email, Long userId) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+    public UserMainInfoDto getOtherUserIngo(UserPrincipal principal, Long userId) {
         User otherUser = userRepository.findById(userId).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
 
         // 게시물은 가져온다
-        List<Post> postCount = postRepository.findByUserEmail(otherUser.getEmail());
+        UserStats stats = userStatsService.get(otherUser.getId());
+        long postCount = stats.getPostCount();
+        String followingYn = followGraph.isFollowing(principal.getId(), otherUser.getId()) ? "Y" : "N";
 
-        UserMainInfoDto userMainInfoDto = new UserMainInfoDto();
+        UserMainInfoDto userMainInfoDto;
 
         // 혹시나.. 토큰 사용자가 나의 정보를 이 API 로 접근하면? 예외처리도 괜찮지만 그냥 비공개 상관없이 보여주도록..
-        if (otherUser.getPrivacyYn().equals("N") || otherUser.getEmail().equals(email)) { // 비공개 계정이 아니라면
-            List<Follow> followerCount = followRepository.findFollowersByUser(otherUser.getEmail());
-            List<PostLike> likesCount = postLikeRepository.findByUserEmail(otherUser.getEmail());
-            List<UserRecipe> recipesCount = userRecipeRepository.getUserRecipeByUser(otherUser);
-            if(followRepository.existsFollowByUserAndUserFollow(user, otherUser))
-                userMainInfoDto = UserMainInfoDto.builder().nickname(otherUser.getNickname()).posts(postCount.stream().count()).followers(followerCount.stream().count()).likes(likesCount.stream().count()).recipes(recipesCount.stream().count()).followingYn("Y").build();
-            else
-                userMainInfoDto = UserMainInfoDto.builder().nickname(otherUser.getNickname()).posts(postCount.stream().count()).followers(followerCount.stream().count()).likes(likesCount.stream().count()).recipes(recipesCount.stream().count()).followingYn("N").build();
+        if (otherUser.getPrivacyYn().equals("N") || otherUser.getId().equals(principal.getId())) { // 비공개 계정이 아니라면
+            userMainInfoDto = UserMainInfoDto.builder().nickname(otherUser.getNickname()).posts(postCount).followers(stats.getFollowerCount()).likes(stats.getLikeCount()).recipes(stats.getRecipeCount()).followingYn(followingYn).build();
         } else {
             Long empty = (long) -1;
-            if(followRepository.existsFollowByUserAndUserFollow(user, otherUser))
-                userMainInfoDto = UserMainInfoDto.builder().nickname(otherUser.getNickname()).posts(postCount.stream().count()).followers(empty).likes(empty).recipes(empty).followingYn("Y").build();
-            else
-                userMainInfoDto = UserMainInfoDto.builder().nickname(otherUser.getNickname()).posts(postCount.stream().count()).followers(empty).likes(empty).recipes(empty).followingYn("N").build();
+            userMainInfoDto = UserMainInfoDto.builder().nickname(otherUser.getNickname()).posts(postCount).followers(empty).likes(empty).recipes(empty).followingYn(followingYn).build();
         }
 
         return userMainInfoDto;
     }
 
-    public UserChangePrivacyResDto getUserPrivacy(String email) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+    public UserChangePrivacyResDto getUserPrivacy(UserPrincipal principal) {
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
         UserChangePrivacyResDto userChangePrivacyResDto = UserChangePrivacyResDto.builder().privacyYn(user.getPrivacyYn()).build();
         return userChangePrivacyResDto;
     }
 
-    public UserAlarmNewYnDto getNewAlarmYn(String email) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
+    public UserAlarmNewYnDto getNewAlarmYn(UserPrincipal principal) {
+        User user = userRepository.findById(principal.getId()).orElseThrow(() -> new CommonNotFoundException("userNotFound"));
         UserAlarmNewYnDto userAlarmNewYnDto;
         if(user.getNewAlarmYn().equals("Y")){
             userAlarmNewYnDto = UserAlarmNewYnDto.builder().newAlarmYn("Y").build();
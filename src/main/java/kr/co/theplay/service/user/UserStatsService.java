@@ -0,0 +1,125 @@
+package kr.co.theplay.service.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kr.co.theplay.domain.follow.FollowRepository;
+import kr.co.theplay.domain.post.PostLikeRepository;
+import kr.co.theplay.domain.post.PostRepository;
+import kr.co.theplay.domain.user.UserRecipeRepository;
+import kr.co.theplay.domain.user.UserStats;
+import kr.co.theplay.domain.user.UserStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static kr.co.theplay.common.TransactionCallbacks.afterCommit;
+
+/*
+유저 메인 상단 정보 (user_stats)
+- 변경 : 게시글 작성/삭제, 좋아요, 레시피 저장, 팔로우 트랜잭션 안에서 증감, 커밋 이후 캐시에서 내보낸다.
+- 조회 : 캐시 -> user_stats 한 row, row 가 아직 없는 유저 (도입 이전 가입) 는 count 쿼리로 계산한다.
+- 밤마다 빠진 row 를 채우고 원본 테이블 기준으로 어긋난 값을 보정한다.
+ */
+@Slf4j
+@Component
+public class UserStatsService {
+
+    private final UserStatsRepository userStatsRepository;
+    private final PostRepository postRepository;
+    private final FollowRepository followRepository;
+    private final PostLikeRepository postLikeRepository;
+    private final UserRecipeRepository userRecipeRepository;
+    private final Cache<Long, UserStats> cache;
+
+    public UserStatsService(UserStatsRepository userStatsRepository,
+                            PostRepository postRepository,
+                            FollowRepository followRepository,
+                            PostLikeRepository postLikeRepository,
+                            UserRecipeRepository userRecipeRepository,
+                            @Value("${user-stats.cache.maximum-size:10000}") long maximumSize,
+                            @Value("${user-stats.cache.expire-after-write-minutes:5}") long expireAfterWriteMinutes) {
+        this.userStatsRepository = userStatsRepository;
+        this.postRepository = postRepository;
+        this.followRepository = followRepository;
+        this.postLikeRepository = postLikeRepository;
+        this.userRecipeRepository = userRecipeRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    public UserStats get(Long userId) {
+        return cache.get(userId, this::load);
+    }
+
+    // 회원가입 트랜잭션 안에서 호출
+    public void create(Long userId) {
+        userStatsRepository.save(new UserStats(userId, 0, 0, 0, 0, 0));
+    }
+
+    public void changePostCount(Long userId, long delta) {
+        change(Collections.singletonList(userId), delta, userStatsRepository::addPostCount);
+    }
+
+    // follower 가 following 을 팔로우 (delta 1) / 언팔로우 (delta -1)
+    public void changeFollow(Long followerId, Long followingId, long delta) {
+        // 두 row 를 항상 같은 순서로 잠근다
+        if (followerId < followingId) {
+            change(Collections.singletonList(followerId), delta, userStatsRepository::addFollowingCount);
+            change(Collections.singletonList(followingId), delta, userStatsRepository::addFollowerCount);
+        } else {
+            change(Collections.singletonList(followingId), delta, userStatsRepository::addFollowerCount);
+            change(Collections.singletonList(followerId), delta, userStatsRepository::addFollowingCount);
+        }
+    }
+
+    // userIds 는 중복 가능, 등장한 횟수만큼 증감
+    public void changeLikeCounts(List<Long> userIds, long deltaEach) {
+        changeEach(userIds, deltaEach, userStatsRepository::addLikeCount);
+    }
+
+    public void changeRecipeCounts(List<Long> userIds, long deltaEach) {
+        changeEach(userIds, deltaEach, userStatsRepository::addRecipeCount);
+    }
+
+    @Scheduled(cron = "${user-stats.reconcile-cron:0 15 4 * * *}")
+    public void reconcile() {
+        int inserted = userStatsRepository.insertMissing();
+        int corrected = userStatsRepository.reconcile();
+        cache.invalidateAll();
+        log.info("user stats reconcile : {} rows inserted, {} rows corrected", inserted, corrected);
+    }
+
+    private void changeEach(List<Long> userIds, long deltaEach, BiFunction<Collection<Long>, Long, Integer> updater) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        // 같은 증감값을 가진 유저끼리 묶어서 update
+        Map<Long, Long> counts = userIds.stream().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        Map<Long, List<Long>> idsByDelta = new HashMap<>();
+        counts.forEach((id, count) -> idsByDelta.computeIfAbsent(count * deltaEach, d -> new ArrayList<>()).add(id));
+        idsByDelta.forEach((delta, ids) -> change(ids, delta, updater));
+    }
+
+    private void change(Collection<Long> userIds, long delta, BiFunction<Collection<Long>, Long, Integer> updater) {
+        updater.apply(userIds, delta);
+        afterCommit(() -> cache.invalidateAll(userIds));
+    }
+
+    private UserStats load(Long userId) {
+        return userStatsRepository.findById(userId).orElseGet(() -> new UserStats(userId,
+                postRepository.countByUserId(userId),
+                followRepository.countByUserFollowId(userId),
+                followRepository.countByUserId(userId),
+                postLikeRepository.countByUserId(userId),
+                userRecipeRepository.countByUserId(userId)));
+    }
+}
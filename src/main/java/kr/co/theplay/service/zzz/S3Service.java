@@ -1,31 +1,54 @@
 package kr.co.theplay.service.zzz;
 
+import com.amazonaws.HttpMethod;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
-import lombok.NoArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
 import org.apache.tomcat.util.http.fileupload.FileUploadException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.io.InputStream;
+import java.net.URL;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
-@NoArgsConstructor
+@RequiredArgsConstructor
 public class S3Service {
     public static final String CLOUD_FRONT_DOMAIN_NAME = "d3a2h23el0lzek.cloudfront.net";
     public static final int MAXIMUM_FILE_SIZE = 5 * 1024 * 1024; // 5MB
+    private static final int MAXIMUM_DELETE_KEYS = 1000;
 
     private AmazonS3 s3Client;
 
+    private final MeterRegistry meterRegistry;
+
     @Value("${cloud.aws.credentials.accessKey}")
     private String accessKey;
 
@@ -38,13 +61,114 @@ public class S3Service {
     @Value("${cloud.aws.region.static}")
     private String region;
 
+    // 로컬 S3 호환 서버 (minio, localstack 등) 로 붙을 때만 지정, 비어있으면 AWS
+    @Value("${cloud.aws.s3.endpoint:}")
+    private String endpoint;
+
+    // 전송 실패 시 재시도를 위해 SDK 가 mark 해두는 크기, 이 이상은 메모리에 들고 있지 않는다
+    @Value("${cloud.aws.s3.read-limit-bytes:131072}")
+    private int readLimit;
+
     @PostConstruct
     public void setS3Client() {
         AWSCredentials awsCredentials = new BasicAWSCredentials(this.accessKey, this.secretKey);
-        s3Client = AmazonS3ClientBuilder.standard()
-                .withCredentials(new AWSStaticCredentialsProvider(awsCredentials))
-                .withRegion(this.region)
-                .build();
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard()
+                .withCredentials(new AWSStaticCredentialsProvider(awsCredentials));
+        if (endpoint != null && !endpoint.isEmpty()) {
+            builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(this.endpoint, this.region))
+                    .withPathStyleAccessEnabled(true);
+        } else {
+            builder.withRegion(this.region);
+        }
+        s3Client = builder.build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        s3Client.shutdown();
+    }
+
+    /*
+    게시글 이미지 하나를 스트림 그대로 업로드 (메모리에 전부 올리지 않도록 content length 지정)
+    MAXIMUM_FILE_SIZE (5MB) 가 S3 multipart 의 최소 part 크기와 같아서 multipart 로 나눌 일이 없으므로 한번에 PUT 한다.
+     */
+    public void putObject(String key, MultipartFile file) throws IOException {
+        putStream(key, file, "post");
+    }
+
+    // 메모리에서 만든 파일 (리사이즈 이미지 등) 업로드
+    public void putObject(String key, byte[] bytes, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(bytes.length);
+        metadata.setContentType(contentType);
+        s3Client.putObject(new PutObjectRequest(bucket, key, new ByteArrayInputStream(bytes), metadata)
+                .withCannedAcl(CannedAccessControlList.PublicRead));
+    }
+
+    /*
+    클라이언트가 직접 올릴 PUT presigned URL
+    content type 과 public-read ACL 이 서명에 들어가므로 PUT 요청에 같은 헤더를 붙여야 한다.
+    크기는 서명으로 막을 수 없으므로 올라온 객체를 HEAD 로 확인하고, 서버 key 로 복사한 뒤 복사본을 한번 더 확인한다. (copyObject)
+     */
+    public URL presignPut(String key, String contentType, Date expiration) {
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucket, key, HttpMethod.PUT)
+                .withExpiration(expiration)
+                .withContentType(contentType);
+        request.putCustomRequestHeader(Headers.S3_CANNED_ACL, CannedAccessControlList.PublicRead.toString());
+        return s3Client.generatePresignedUrl(request);
+    }
+
+    // 같은 버킷 안에서 복사 (public-read), 원본이 없으면 false
+    public boolean copyObject(String sourceKey, String targetKey) {
+        try {
+            s3Client.copyObject(new CopyObjectRequest(bucket, sourceKey, bucket, targetKey)
+                    .withCannedAccessControlList(CannedAccessControlList.PublicRead));
+            return true;
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    // HEAD, 객체가 없으면 null
+    public ObjectMetadata headObject(String key) {
+        try {
+            return s3Client.getObjectMetadata(bucket, key);
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    // 다 읽은 뒤 닫아야 커넥션이 반환된다
+    public InputStream openObject(String key) {
+        return s3Client.getObject(bucket, key).getObjectContent();
+    }
+
+    /*
+    여러 객체를 한번에 삭제 (요청 하나에 최대 1000개), 실패한 key 와 사유를 돌려준다.
+    없는 key 는 S3 에서 성공으로 처리하므로 존재 여부는 따로 확인하지 않는다.
+     */
+    public Map<String, String> deleteObjects(List<String> keys) {
+        Map<String, String> failed = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += MAXIMUM_DELETE_KEYS) {
+            List<String> chunk = keys.subList(from, Math.min(from + MAXIMUM_DELETE_KEYS, keys.size()));
+            DeleteObjectsRequest request = new DeleteObjectsRequest(bucket)
+                    .withKeys(chunk.toArray(new String[0]))
+                    .withQuiet(true);
+            try {
+                s3Client.deleteObjects(request);
+            } catch (MultiObjectDeleteException e) {
+                e.getErrors().forEach(error -> failed.put(error.getKey(), error.getCode() + " " + error.getMessage()));
+            } catch (RuntimeException e) {
+                chunk.forEach(key -> failed.put(key, e.getMessage()));
+            }
+        }
+        return failed;
     }
 
     public String upload(MultipartFile file) throws IOException {
@@ -54,12 +178,10 @@ public class S3Service {
             return "EXCEED";
         }
 
-        // 고유한 key 값을 갖기위해 현재 시간을 postfix로 붙여줌
-        SimpleDateFormat date = new SimpleDateFormat("yyyymmddHHmmsss");
-        String fileName = file.getOriginalFilename() + "-" + date.format(new Date());
+        // 고유한 key 값을 갖기위해 UUID를 postfix로 붙여줌 (시간은 동시에 올리면 겹친다)
+        String fileName = file.getOriginalFilename() + "-" + UUID.randomUUID();
 
-        s3Client.putObject(new PutObjectRequest(bucket, fileName, file.getInputStream(), null)
-                .withCannedAcl(CannedAccessControlList.PublicRead));
+        putStream(fileName, file, "upload");
         // 리턴받는 fileName을 받아서 다시 Controller에서는 Local DataBase에 정보를 삽입하는 Service를 call 한다.
         return fileName;
     }
@@ -72,9 +194,8 @@ public class S3Service {
             throw new FileUploadException("imageSizeExcessLimit");
         }
 
-        // 고유한 key 값을 갖기위해 현재 시간을 postfix로 붙여줌
-        SimpleDateFormat date = new SimpleDateFormat("yyyymmddHHmmsss");
-        String fileName = file.getOriginalFilename() + "-" + date.format(new Date());
+        // 고유한 key 값을 갖기위해 UUID를 postfix로 붙여줌 (시간은 동시에 올리면 겹친다)
+        String fileName = file.getOriginalFilename() + "-" + UUID.randomUUID();
 
         if ("".equals(currentFilePath) == false && currentFilePath != null) {
             boolean isExistObject = s3Client.doesObjectExist(bucket, currentFilePath);
@@ -84,8 +205,7 @@ public class S3Service {
             }
         }
 
-        s3Client.putObject(new PutObjectRequest(bucket, fileName, file.getInputStream(), null)
-                .withCannedAcl(CannedAccessControlList.PublicRead));
+        putStream(fileName, file, "edit");
         // 리턴받는 fileName을 받아서 다시 Controller에서는 Local DataBase에 정보를 삽입하는 Service를 call 한다.
         return fileName;
     }
@@ -99,4 +219,35 @@ public class S3Service {
             }
         }
     }
+
+    /*
+    content length, type 을 지정해서 요청에서 받은 파일 (임시 파일) 을 그대로 흘려보낸다.
+    length 를 모르면 SDK 가 길이를 재려고 스트림 전체를 메모리에 올린다.
+     */
+    private void putStream(String key, MultipartFile file, String operation) throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(file.getSize());
+        metadata.setContentType(file.getContentType());
+
+        long start = System.nanoTime();
+        try (InputStream inputStream = file.getInputStream()) {
+            PutObjectRequest request = new PutObjectRequest(bucket, key, inputStream, metadata)
+                    .withCannedAcl(CannedAccessControlList.PublicRead);
+            request.getRequestClientOptions().setReadLimit(readLimit);
+            s3Client.putObject(request);
+        }
+        recordUpload(operation, file.getSize(), System.nanoTime() - start);
+    }
+
+    // 업로드 시간, 크기, 처리량 (byte/s)
+    private void recordUpload(String operation, long bytes, long elapsedNanos) {
+        Timer.builder("s3.upload.time").tag("operation", operation).register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("s3.upload.size").baseUnit("bytes").tag("operation", operation).register(meterRegistry)
+                .record(bytes);
+        if (elapsedNanos > 0) {
+            DistributionSummary.builder("s3.upload.throughput").baseUnit("bytes/s").tag("operation", operation).register(meterRegistry)
+                    .record(bytes * 1_000_000_000.0 / elapsedNanos);
+        }
+    }
 }
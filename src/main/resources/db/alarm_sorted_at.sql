@@ -0,0 +1,18 @@
+-- 알림 목록 정렬 기준 (sorted_at) 과 묶인 알림의 보낸 사람 (alarm_actor) 추가할 때 한번 실행한다.
+-- 기존 알림은 created_date 를 그대로 정렬 기준으로 쓴다.
+-- 기존에 묶인 알림은 보낸 사람 목록이 없으므로 다음에 묶일 때 이미 센 사람이 한 번 더 세질 수 있다. (읽으면 새 알림으로 시작)
+alter table alarm add column sorted_at datetime null;
+update alarm set sorted_at = created_date where sorted_at is null;
+alter table alarm modify sorted_at datetime not null;
+create index idx_alarm_user_sorted_at on alarm (user_id, sorted_at);
+drop index idx_alarm_user_created_date on alarm;
+-- 보관 정책 (AlarmArchiver) 이 sorted_at 으로 지난 알림을 찾는다
+create index idx_alarm_sorted_at on alarm (sorted_at);
+
+create table if not exists alarm_actor (
+    id bigint not null auto_increment,
+    alarm_id bigint not null,
+    sender_id bigint not null,
+    primary key (id),
+    unique key uk_alarm_actor_alarm_sender (alarm_id, sender_id)
+) engine = InnoDB;
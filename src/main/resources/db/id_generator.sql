@@ -0,0 +1,47 @@
+-- 아이디 발급 테이블 (@TableGenerator, pooled-lo)
+-- IDENTITY 로 운영하던 DB 에 적용할 때 한번 실행한다. 테이블마다 현재 최대 아이디 다음 값부터 발급하도록 맞춘다.
+-- 여러 번 실행해도 이미 더 큰 값이 있으면 그대로 둔다.
+create table if not exists id_generator (
+    sequence_name varchar(255) not null,
+    next_val bigint,
+    primary key (sequence_name)
+) engine = InnoDB;
+
+insert into id_generator (sequence_name, next_val) select 'post', coalesce(max(id), 0) + 1 from `post`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'alcohol_tag', coalesce(max(id), 0) + 1 from `alcohol_tag`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'recipe_ingredient', coalesce(max(id), 0) + 1 from `recipe_ingredient`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'recipe_step', coalesce(max(id), 0) + 1 from `recipe_step`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'post_image', coalesce(max(id), 0) + 1 from `post_image`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'post_like', coalesce(max(id), 0) + 1 from `post_like`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'post_comment', coalesce(max(id), 0) + 1 from `post_comment`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'comment_like', coalesce(max(id), 0) + 1 from `comment_like`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'post_report', coalesce(max(id), 0) + 1 from `post_report`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'popular_recipe', coalesce(max(id), 0) + 1 from `popular_recipe`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'image_upload_slot', coalesce(max(id), 0) + 1 from `image_upload_slot`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'user_recipe', coalesce(max(id), 0) + 1 from `user_recipe`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'user', coalesce(max(id), 0) + 1 from `user`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'user_role', coalesce(max(id), 0) + 1 from `user_role`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'follow', coalesce(max(id), 0) + 1 from `follow`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'block', coalesce(max(id), 0) + 1 from `block`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'alarm', coalesce(max(id), 0) + 1 from `alarm`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'notice', coalesce(max(id), 0) + 1 from `notice`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
+insert into id_generator (sequence_name, next_val) select 'storage_deletion', coalesce(max(id), 0) + 1 from `storage_deletion`
+    on duplicate key update next_val = greatest(next_val, values(next_val));
@@ -0,0 +1,10 @@
+-- 게시글 좋아요/댓글 수, 댓글 좋아요 수 컬럼 (like_count, comment_count) 추가 후 한번 실행한다.
+-- 컬럼이 생기기 전에 있던 row 는 0 으로 시작하므로 원본 테이블 기준으로 채운다. (이후는 PostCounterService 가 맞춘다)
+update post p
+    left join (select post_id, count(*) as cnt from post_like group by post_id) l on l.post_id = p.id
+    left join (select post_id, count(*) as cnt from post_comment group by post_id) c on c.post_id = p.id
+set p.like_count = coalesce(l.cnt, 0), p.comment_count = coalesce(c.cnt, 0);
+
+update post_comment pc
+    left join (select post_comment_id, count(*) as cnt from comment_like group by post_comment_id) l on l.post_comment_id = pc.id
+set pc.like_count = coalesce(l.cnt, 0);
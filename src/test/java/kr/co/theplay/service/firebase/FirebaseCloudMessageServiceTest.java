@@ -0,0 +1,135 @@
+package kr.co.theplay.service.firebase;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import kr.co.theplay.dto.firebase.FcmMessage;
+import kr.co.theplay.dto.firebase.FcmSendResult;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 로컬 HTTP stub (MockWebServer) 으로 발송, access token 은 미리 넣어둔다
+class FirebaseCloudMessageServiceTest {
+
+    private static final int MAX_IN_FLIGHT = 3;
+
+    private MockWebServer server;
+    private FirebaseCloudMessageService fcmService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        fcmService = new FirebaseCloudMessageService(new ObjectMapper(), new ByteArrayResource(new byte[0]),
+                server.url("/v1/projects/test/messages:send").toString(), MAX_IN_FLIGHT, 8, 5000, 300);
+        AccessToken token = new AccessToken("test-token", new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+        ReflectionTestUtils.setField(fcmService, "credentials", GoogleCredentials.create(token));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        fcmService.shutdown();
+        server.shutdown();
+    }
+
+    @Test
+    void sendSuccess() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("{\"name\":\"projects/test/messages/1\"}"));
+
+        FcmSendResult result = fcmService.sendMessageTo("device-token", "title", "body");
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getName()).isEqualTo("projects/test/messages/1");
+        RecordedRequest request = server.takeRequest();
+        assertThat(request.getMethod()).isEqualTo("POST");
+        assertThat(request.getHeader("Authorization")).isEqualTo("Bearer test-token");
+        assertThat(request.getBody().readUtf8()).contains("\"token\":\"device-token\"");
+    }
+
+    @Test
+    void sendClientError() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404).setBody("{\"error\":{\"status\":\"NOT_FOUND\"}}"));
+
+        FcmSendResult result = fcmService.sendMessageTo("expired-token", "title", "body");
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getStatus()).isEqualTo(404);
+        assertThat(result.getError()).contains("NOT_FOUND");
+    }
+
+    @Test
+    void droppedConnectionIsFailure() {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+            }
+        });
+
+        List<FcmSendResult> results = fcmService.sendAll(messages(2));
+
+        assertThat(results).hasSize(2);
+        assertThat(results).allSatisfy(result -> {
+            assertThat(result.isSuccess()).isFalse();
+            assertThat(result.getStatus()).isEqualTo(0);
+        });
+    }
+
+    @Test
+    void sendAllKeepsAtMostMaxInFlight() {
+        AtomicInteger current = new AtomicInteger();
+        AtomicInteger max = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                max.accumulateAndGet(current.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    current.decrementAndGet();
+                }
+                return new MockResponse().setResponseCode(200).setBody("{\"name\":\"projects/test/messages/1\"}");
+            }
+        });
+
+        List<FcmSendResult> results = fcmService.sendAll(messages(20));
+
+        assertThat(results).hasSize(20);
+        assertThat(results).allMatch(FcmSendResult::isSuccess);
+        assertThat(server.getRequestCount()).isEqualTo(20);
+        assertThat(max.get()).isLessThanOrEqualTo(MAX_IN_FLIGHT);
+    }
+
+    private List<FcmMessage> messages(int count) {
+        List<FcmMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(FcmMessage.builder()
+                    .message(FcmMessage.Message.builder()
+                            .token("device-token-" + i)
+                            .notification(FcmMessage.Notification.builder().title("title").body("body").build())
+                            .build())
+                    .validate_only(false)
+                    .build());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,129 @@
+package kr.co.theplay.service.post;
+
+import kr.co.theplay.domain.post.Post;
+import kr.co.theplay.domain.post.PostRepository;
+import kr.co.theplay.domain.user.User;
+import kr.co.theplay.domain.user.UserRepository;
+import kr.co.theplay.dto.post.AlcoholTagDto;
+import kr.co.theplay.dto.post.PostReqDto;
+import kr.co.theplay.dto.post.RecipeIngredientDto;
+import kr.co.theplay.dto.post.RecipeStepDto;
+import kr.co.theplay.service.api.security.UserPrincipal;
+import kr.co.theplay.service.notice.NotificationDispatcher;
+import kr.co.theplay.service.recipe.PopularRecipeRanking;
+import kr.co.theplay.service.storage.StorageDeletionQueue;
+import kr.co.theplay.service.timeline.TimelineService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+PostService.create 한 번에 준비되는 JDBC statement 수 (hibernate.generate_statistics)
+자식 (술 태그, 재료, 단계) 수만 다르게 두 번 작성해서 차이를 본다. (user, 신고 수 조회 같은 고정 비용은 빠진다)
+통계는 SessionFactory 전체 기준이므로 백그라운드에서 DB 를 읽는 빈 (스케줄러, 커밋 이후 작업) 은 mock 으로 바꾼다.
+ */
+abstract class AbstractPostCreateStatementCountTest {
+
+    // 아이디 블록 (allocationSize 50) 을 넘지 않는 크기, 넘으면 id_generator 조회가 섞인다
+    static final int FEW = 1;
+    static final int MANY = 10;
+
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private TimelineService timelineService;
+    @MockBean
+    private PopularRecipeRanking popularRecipeRanking;
+    @MockBean
+    private ImageRenditionService imageRenditionService;
+    @MockBean
+    private ImageUploadSlotService imageUploadSlotService;
+    @MockBean
+    private PostCounterService postCounterService;
+    @MockBean
+    private NotificationDispatcher notificationDispatcher;
+    @MockBean
+    private StorageDeletionQueue storageDeletionQueue;
+
+    private Statistics statistics;
+    private UserPrincipal principal;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String suffix = Long.toString(System.nanoTime(), 36);
+        User user = userRepository.save(User.builder()
+                .email("statement-" + suffix + "@test.com")
+                .password("password")
+                .nickname("s" + suffix)
+                .privacyYn("N")
+                .newAlarmYn("N")
+                .build());
+        principal = UserPrincipal.of(user);
+
+        // 엔티티별 아이디 블록을 미리 받아둔다
+        postService.create(principal, postReqDto(MANY), Collections.emptyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        FeedCursor first = FeedCursor.decode(null);
+        List<Post> posts = postRepository.getUserLatestPostsAfter(principal.getId(), first.getCreatedDate(), first.getId(), PageRequest.of(0, 10));
+        posts.forEach(post -> postService.deletePostById(principal, post.getId()));
+        userRepository.deleteById(principal.getId());
+    }
+
+    // MANY 개 작성할 때와 FEW 개 작성할 때 statement 수 차이
+    long extraStatementsForMoreChildren() {
+        return prepareStatementCount(MANY) - prepareStatementCount(FEW);
+    }
+
+    long extraInsertsForMoreChildren() {
+        statistics.clear();
+        postService.create(principal, postReqDto(MANY), Collections.emptyList());
+        long many = statistics.getEntityInsertCount();
+        statistics.clear();
+        postService.create(principal, postReqDto(FEW), Collections.emptyList());
+        return many - statistics.getEntityInsertCount();
+    }
+
+    private long prepareStatementCount(int children) {
+        statistics.clear();
+        postService.create(principal, postReqDto(children), Collections.emptyList());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private PostReqDto postReqDto(int children) {
+        List<AlcoholTagDto> alcoholTags = new ArrayList<>();
+        List<RecipeIngredientDto> ingredients = new ArrayList<>();
+        List<RecipeStepDto> steps = new ArrayList<>();
+        for (int i = 0; i < children; i++) {
+            alcoholTags.add(AlcoholTagDto.builder().iconName("Drinks/soju/main").name("soju" + i).color(1).recipeYn("N").build());
+            ingredients.add(RecipeIngredientDto.builder().iconName("Drinks/soju/main").name("ice" + i).quantity("1").color(1).build());
+            steps.add(RecipeStepDto.builder().number(i + 1).content("step " + i).build());
+        }
+        return PostReqDto.builder()
+                .content("statement count")
+                .haveRecipeYn("Y")
+                .alcoholTags(alcoholTags)
+                .ingredients(ingredients)
+                .steps(steps)
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package kr.co.theplay.service.post;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExifOrientationTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 8})
+    void readsLittleEndianOrientation(int orientation) {
+        assertThat(ExifOrientation.read(jpeg(tiff(true, 8, orientation)))).isEqualTo(orientation);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 8})
+    void readsBigEndianOrientation(int orientation) {
+        assertThat(ExifOrientation.read(jpeg(tiff(false, 8, orientation)))).isEqualTo(orientation);
+    }
+
+    @Test
+    void outOfRangeValueIsNormal() {
+        assertThat(ExifOrientation.read(jpeg(tiff(true, 8, 9)))).isEqualTo(ExifOrientation.NORMAL);
+        assertThat(ExifOrientation.read(jpeg(tiff(false, 8, 0)))).isEqualTo(ExifOrientation.NORMAL);
+    }
+
+    @Test
+    void skipsSegmentsBeforeApp1() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out, 0xFF, 0xD8);
+        // APP0 (JFIF)
+        write(out, 0xFF, 0xE0, 0x00, 0x07, 'J', 'F', 'I', 'F', 0x00);
+        byte[] app1 = app1(tiff(false, 8, 6));
+        out.write(app1, 0, app1.length);
+        write(out, 0xFF, 0xDA);
+        assertThat(ExifOrientation.read(out.toByteArray())).isEqualTo(6);
+    }
+
+    @Test
+    void truncatedApp1IsNormal() {
+        byte[] jpeg = jpeg(tiff(true, 8, 6));
+        // SOS 와 IFD 뒷부분을 잘라내서 APP1 길이가 남은 바이트보다 길다
+        byte[] truncated = Arrays.copyOf(jpeg, jpeg.length - 12);
+        assertThat(ExifOrientation.read(truncated)).isEqualTo(ExifOrientation.NORMAL);
+    }
+
+    @Test
+    void bogusIfdOffsetIsNormal() {
+        assertThat(ExifOrientation.read(jpeg(tiff(true, 0x7FFFFFF0, 6)))).isEqualTo(ExifOrientation.NORMAL);
+        assertThat(ExifOrientation.read(jpeg(tiff(false, 0xFFFFFFFF, 6)))).isEqualTo(ExifOrientation.NORMAL);
+        // APP1 안이지만 엔트리가 APP1 끝을 넘는 위치 (count 필드를 엔트리 수로 읽는다)
+        assertThat(ExifOrientation.read(jpeg(tiff(true, 14, 6)))).isEqualTo(ExifOrientation.NORMAL);
+    }
+
+    @Test
+    void notJpegIsNormal() {
+        assertThat(ExifOrientation.read(new byte[0])).isEqualTo(ExifOrientation.NORMAL);
+        assertThat(ExifOrientation.read(new byte[]{(byte) 0x89, 'P', 'N', 'G'})).isEqualTo(ExifOrientation.NORMAL);
+    }
+
+    @Test
+    void withoutExifIsNormal() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out, 0xFF, 0xD8, 0xFF, 0xDA);
+        assertThat(ExifOrientation.read(out.toByteArray())).isEqualTo(ExifOrientation.NORMAL);
+    }
+
+    // SOI + APP1 + SOS
+    private static byte[] jpeg(byte[] tiff) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out, 0xFF, 0xD8);
+        byte[] app1 = app1(tiff);
+        out.write(app1, 0, app1.length);
+        write(out, 0xFF, 0xDA);
+        return out.toByteArray();
+    }
+
+    private static byte[] app1(byte[] tiff) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int length = 2 + 6 + tiff.length;
+        write(out, 0xFF, 0xE1, length >> 8, length & 0xFF);
+        write(out, 'E', 'x', 'i', 'f', 0x00, 0x00);
+        out.write(tiff, 0, tiff.length);
+        return out.toByteArray();
+    }
+
+    // TIFF 헤더 + IFD0 (Orientation 엔트리 하나), IFD 는 헤더 바로 뒤 (8) 에 둔다
+    private static byte[] tiff(boolean littleEndian, int ifdOffset, int orientation) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (littleEndian) {
+            write(out, 'I', 'I');
+        } else {
+            write(out, 'M', 'M');
+        }
+        writeShort(out, 42, littleEndian);
+        writeInt(out, ifdOffset, littleEndian);
+        writeShort(out, 1, littleEndian);
+        // tag, type (SHORT), count, value (2바이트 + 채움)
+        writeShort(out, 0x0112, littleEndian);
+        writeShort(out, 3, littleEndian);
+        writeInt(out, 1, littleEndian);
+        writeShort(out, orientation, littleEndian);
+        writeShort(out, 0, littleEndian);
+        // 다음 IFD 없음
+        writeInt(out, 0, littleEndian);
+        return out.toByteArray();
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value, boolean littleEndian) {
+        if (littleEndian) {
+            write(out, value & 0xFF, (value >> 8) & 0xFF);
+        } else {
+            write(out, (value >> 8) & 0xFF, value & 0xFF);
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value, boolean littleEndian) {
+        if (littleEndian) {
+            writeShort(out, value & 0xFFFF, true);
+            writeShort(out, (value >>> 16) & 0xFFFF, true);
+        } else {
+            writeShort(out, (value >>> 16) & 0xFFFF, false);
+            writeShort(out, value & 0xFFFF, false);
+        }
+    }
+
+    private static void write(ByteArrayOutputStream out, int... bytes) {
+        for (int b : bytes) {
+            out.write(b);
+        }
+    }
+}
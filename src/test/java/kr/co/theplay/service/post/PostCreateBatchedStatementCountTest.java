@@ -0,0 +1,17 @@
+package kr.co.theplay.service.post;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// application.yml 의 jdbc.batch_size (100) 그대로, 같은 테이블 insert 는 statement 하나로 모인다
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PostCreateBatchedStatementCountTest extends AbstractPostCreateStatementCountTest {
+
+    @Test
+    void childInsertsShareStatements() {
+        assertThat(extraInsertsForMoreChildren()).isEqualTo(3 * (MANY - FEW));
+        assertThat(extraStatementsForMoreChildren()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,20 @@
+package kr.co.theplay.service.post;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// batch_size 1 이면 batch 없이 insert 마다 statement 를 준비한다
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=1"
+})
+class PostCreateUnbatchedStatementCountTest extends AbstractPostCreateStatementCountTest {
+
+    @Test
+    void everyChildInsertPreparesStatement() {
+        assertThat(extraInsertsForMoreChildren()).isEqualTo(3 * (MANY - FEW));
+        assertThat(extraStatementsForMoreChildren()).isEqualTo(3 * (MANY - FEW));
+    }
+}